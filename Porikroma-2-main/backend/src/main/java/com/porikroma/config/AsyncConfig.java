@@ -0,0 +1,53 @@
+package com.porikroma.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    @Value("${porikroma.async.invitations.pool-size:4}")
+    private int invitationPoolSize;
+
+    @Value("${porikroma.async.invitations.queue-capacity:500}")
+    private int invitationQueueCapacity;
+
+    @Value("${porikroma.async.invitations.reject-wait-ms:100}")
+    private long invitationRejectWaitMs;
+
+    // Bounded so an invite burst queues here instead of holding a DB connection per request.
+    // A full queue makes the publisher wait briefly for room and then drops the fan-out; running it
+    // on the publisher would open a second connection while the committed request still holds its first
+    @Bean(name = "invitationExecutor")
+    public ThreadPoolTaskExecutor invitationExecutor(MeterRegistry meterRegistry) {
+        Counter dropped = meterRegistry.counter("porikroma.async.invitations.dropped");
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(invitationPoolSize);
+        executor.setMaxPoolSize(invitationPoolSize);
+        executor.setQueueCapacity(invitationQueueCapacity);
+        executor.setThreadNamePrefix("invitation-");
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            try {
+                if (!pool.isShutdown() && pool.getQueue().offer(task, invitationRejectWaitMs, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            dropped.increment();
+            System.err.println("AsyncConfig: invitation executor saturated, dropping a fan-out task");
+        });
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+}
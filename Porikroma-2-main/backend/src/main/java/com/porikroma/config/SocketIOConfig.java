@@ -1,6 +1,7 @@
 package com.porikroma.config;
 
 import com.corundumstudio.socketio.SocketIOServer;
+import com.porikroma.security.SocketAuthorizationListener;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -8,7 +9,7 @@ import org.springframework.context.annotation.Configuration;
 public class SocketIOConfig {
 
     @Bean
-    public SocketIOServer socketIOServer() {
+    public SocketIOServer socketIOServer(SocketAuthorizationListener socketAuthorizationListener) {
         com.corundumstudio.socketio.Configuration config = new com.corundumstudio.socketio.Configuration();
         config.setHostname("localhost");
         config.setPort(9092);
@@ -22,6 +23,9 @@ public class SocketIOConfig {
         config.setMaxHttpContentLength(1024 * 1024);
         config.setPingTimeout(60000);
         config.setPingInterval(25000);
+
+        // Reject handshakes carrying an invalid JWT
+        config.setAuthorizationListener(socketAuthorizationListener);
         
         return new SocketIOServer(config);
     }
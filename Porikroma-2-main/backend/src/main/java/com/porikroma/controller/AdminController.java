@@ -1,14 +1,17 @@
 package com.porikroma.controller;
 
+import com.porikroma.dto.CursorPageDto;
 import com.porikroma.dto.UserDto;
 import com.porikroma.dto.DestinationDto;
 import com.porikroma.dto.TripDto;
 import com.porikroma.service.AdminService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -85,10 +88,24 @@ public class AdminController {
     }
 
     // Trip Management
+    // Capped at the newest TripCursor.UNPAGED_LIMIT trips; X-Next-Cursor is set when more exist
     @GetMapping("/trips")
     public ResponseEntity<List<TripDto>> getAllTrips() {
-        List<TripDto> trips = adminService.getAllTrips();
-        return ResponseEntity.ok(trips);
+        CursorPageDto<TripDto> trips = adminService.getAllTrips();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (trips.isHasMore()) {
+            response.header("X-Next-Cursor", trips.getNextCursor());
+        }
+        return response.body(trips.getItems());
+    }
+
+    @GetMapping(value = "/trips", params = "limit")
+    public ResponseEntity<CursorPageDto<TripDto>> getTripsPage(
+            @RequestParam Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long destinationId) {
+        return ResponseEntity.ok(adminService.getTripsPage(status, destinationId, cursor, limit));
     }
 
     @GetMapping("/trips/stats")
@@ -97,6 +114,32 @@ public class AdminController {
         return ResponseEntity.ok(stats);
     }
 
+    @GetMapping("/trips/calendar")
+    public ResponseEntity<List<TripDto>> getTripsInWindow(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "false") boolean containedOnly) {
+        return ResponseEntity.ok(adminService.getTripsInWindow(from, to, containedOnly));
+    }
+
+    @GetMapping("/trips/active")
+    public ResponseEntity<List<TripDto>> getTripsActiveOn(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(adminService.getTripsActiveOn(date));
+    }
+
+    // Reconciles the per-trip cost ledger with the item and expense tables
+    @PostMapping("/trips/cost-ledger/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildTripCostLedger() {
+        return ResponseEntity.ok(adminService.rebuildTripCostLedger());
+    }
+
+    // Runs the cold-archive pass now instead of waiting for the nightly schedule
+    @PostMapping("/trips/archive/run")
+    public ResponseEntity<Map<String, Object>> archiveCompletedTrips() {
+        return ResponseEntity.ok(adminService.archiveCompletedTrips());
+    }
+
     // Content Management
     @GetMapping("/content/stats")
     public ResponseEntity<Map<String, Object>> getContentStats() {
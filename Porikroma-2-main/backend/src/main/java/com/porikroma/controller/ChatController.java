@@ -1,6 +1,7 @@
 package com.porikroma.controller;
 
 import com.porikroma.dto.TripMessageDto;
+import com.porikroma.dto.UnreadCountDto;
 import com.porikroma.service.ChatService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,13 +19,19 @@ public class ChatController {
     private ChatService chatService;
 
     @GetMapping("/trips/{tripId}/messages")
-    public ResponseEntity<List<TripMessageDto>> getTripMessages(@PathVariable Long tripId, HttpServletRequest request) {
+    public ResponseEntity<List<TripMessageDto>> getTripMessages(
+            @PathVariable Long tripId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            HttpServletRequest request) {
         Long userId = (Long) request.getAttribute("userId");
         // Check if user is a member of this trip before allowing access to messages
         if (!chatService.isUserTripMember(tripId, userId)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
-        List<TripMessageDto> messages = chatService.getTripMessages(tripId);
+        // Latest page by default; older pages with ?before=<messageId>, newer ones with ?after=<messageId>
+        List<TripMessageDto> messages = chatService.getTripMessages(tripId, before, after, limit);
         return ResponseEntity.ok(messages);
     }
 
@@ -81,4 +88,13 @@ public class ChatController {
         chatService.markMessagesAsRead(tripId, userId);
         return ResponseEntity.ok().build();
     }
+
+    // Unread counts for the given trips, or for all of the user's trips when tripIds is omitted
+    @GetMapping("/messages/unread-counts")
+    public ResponseEntity<List<UnreadCountDto>> getUnreadCounts(
+            @RequestParam(required = false) List<Long> tripIds,
+            HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        return ResponseEntity.ok(chatService.getUnreadCounts(userId, tripIds));
+    }
 }
\ No newline at end of file
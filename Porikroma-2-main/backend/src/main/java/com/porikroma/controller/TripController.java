@@ -1,17 +1,25 @@
 package com.porikroma.controller;
 
+import com.porikroma.dto.BatchInsertResultDto;
+import com.porikroma.dto.BulkInviteRequest;
+import com.porikroma.dto.BulkInviteResultDto;
+import com.porikroma.dto.CloneTripRequest;
+import com.porikroma.dto.ItineraryDto;
+import com.porikroma.dto.CursorPageDto;
 import com.porikroma.dto.TripDto;
 import com.porikroma.dto.TripMemberDto;
 import com.porikroma.dto.TripInvitationDto;
 import com.porikroma.service.TripService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping
@@ -20,11 +28,27 @@ public class TripController {
     @Autowired
     private TripService tripService;
 
+    // Capped at the newest TripCursor.UNPAGED_LIMIT trips; X-Next-Cursor is set when more exist
     @GetMapping("/users/me/trips")
     public ResponseEntity<List<TripDto>> getUserTrips(HttpServletRequest request) {
         Long userId = (Long) request.getAttribute("userId");
-        List<TripDto> trips = tripService.getUserTrips(userId);
-        return ResponseEntity.ok(trips);
+        CursorPageDto<TripDto> trips = tripService.getUserTrips(userId);
+        return unpagedResponse(trips);
+    }
+
+    // Paged variant, picked when the client sends a limit; follow nextCursor until hasMore is false
+    @GetMapping(value = "/users/me/trips", params = "limit")
+    public ResponseEntity<CursorPageDto<TripDto>> getUserTripsPage(
+            @RequestParam Integer limit,
+            @RequestParam(required = false) String cursor,
+            HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        return ResponseEntity.ok(tripService.getUserTripsPage(userId, cursor, limit));
+    }
+
+    @GetMapping("/trips/popular")
+    public ResponseEntity<List<TripDto>> getPopularTrips(@RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(tripService.getPopularTrips(limit));
     }
 
     @GetMapping("/trips/{tripId}")
@@ -34,8 +58,44 @@ public class TripController {
         if (!tripService.isUserTripMember(tripId, userId) && !tripService.hasUserInvitation(tripId, userId)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
+
+        // Answer re-polls from the cached version alone, without loading the trip aggregate
+        Optional<Long> version = tripService.getTripVersion(tripId);
+        if (version.isPresent() && eTagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), tripETag(version.get()))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tripETag(version.get())).build();
+        }
+
         TripDto trip = tripService.getTripById(tripId);
-        return ResponseEntity.ok(trip);
+        return ResponseEntity.ok().eTag(tripETag(trip.getVersion())).body(trip);
+    }
+
+    // Plain list for existing clients; the cursor for the rest goes in a header
+    private ResponseEntity<List<TripDto>> unpagedResponse(CursorPageDto<TripDto> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.isHasMore()) {
+            response.header("X-Next-Cursor", page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
+    private String tripETag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    private boolean eTagMatches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @PostMapping("/trips")
@@ -48,6 +108,16 @@ public class TripController {
         return ResponseEntity.ok(createdTrip);
     }
 
+    @PostMapping("/trips/{tripId}/clone")
+    public ResponseEntity<TripDto> cloneTrip(
+            @PathVariable Long tripId,
+            @RequestBody(required = false) CloneTripRequest cloneRequest,
+            HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        TripDto clonedTrip = tripService.cloneTrip(tripId, userId, cloneRequest != null ? cloneRequest : new CloneTripRequest());
+        return ResponseEntity.ok(clonedTrip);
+    }
+
     @PutMapping("/trips/{tripId}")
     public ResponseEntity<TripDto> updateTrip(
             @PathVariable Long tripId,
@@ -85,6 +155,15 @@ public class TripController {
         return ResponseEntity.ok(invitation);
     }
 
+    @PostMapping("/trips/{tripId}/invite/bulk")
+    public ResponseEntity<BulkInviteResultDto> bulkInviteToTrip(
+            @PathVariable Long tripId,
+            @RequestBody BulkInviteRequest bulkInviteRequest,
+            HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        return ResponseEntity.ok(tripService.bulkInviteToTrip(tripId, userId, bulkInviteRequest));
+    }
+
     @PostMapping("/invitations/{invitationId}/accept")
     public ResponseEntity<Void> acceptInvitation(
             @PathVariable Long invitationId,
@@ -132,18 +211,31 @@ public class TripController {
         }
     }
 
+    // Sub-destinations in a short visiting order, optionally starting from a given stop
+    @GetMapping("/trips/{tripId}/itinerary")
+    public ResponseEntity<ItineraryDto> getOptimizedItinerary(
+            @PathVariable Long tripId,
+            @RequestParam(required = false) Long startSubDestinationId,
+            HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        if (!tripService.isUserTripMember(tripId, userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(tripService.getOptimizedItinerary(tripId, startSubDestinationId));
+    }
+
     @PostMapping("/trips/{tripId}/sub-destinations")
-    public ResponseEntity<Void> addSubDestinations(
+    public ResponseEntity<BatchInsertResultDto> addSubDestinations(
             @PathVariable Long tripId,
             @RequestBody com.porikroma.dto.AddSubDestinationsRequest request,
             HttpServletRequest httpRequest) {
         Long userId = (Long) httpRequest.getAttribute("userId");
-        tripService.addSubDestinationsToTrip(tripId, request.getSubDestinationIds(), userId);
-        return ResponseEntity.ok().build();
+        BatchInsertResultDto result = tripService.addSubDestinationsToTrip(tripId, request.getSubDestinationIds(), userId);
+        return ResponseEntity.ok(result);
     }
 
     @PostMapping("/trips/{tripId}/accommodations")
-    public ResponseEntity<Void> addAccommodations(
+    public ResponseEntity<BatchInsertResultDto> addAccommodations(
             @PathVariable Long tripId,
             @RequestBody List<com.porikroma.dto.AccommodationSelectionDto> accommodationData,
             HttpServletRequest request) {
@@ -154,12 +246,12 @@ public class TripController {
                 .map(com.porikroma.dto.AccommodationSelectionDto::getAccommodationId)
                 .collect(java.util.stream.Collectors.toList());
                 
-        tripService.addAccommodationsToTrip(tripId, accommodationIds, userId);
-        return ResponseEntity.ok().build();
+        BatchInsertResultDto result = tripService.addAccommodationsToTrip(tripId, accommodationIds, userId);
+        return ResponseEntity.ok(result);
     }
 
     @PostMapping("/trips/{tripId}/transports")
-    public ResponseEntity<Void> addTransports(
+    public ResponseEntity<BatchInsertResultDto> addTransports(
             @PathVariable Long tripId,
             @RequestBody List<com.porikroma.dto.TransportSelectionDto> transportData,
             HttpServletRequest request) {
@@ -170,7 +262,7 @@ public class TripController {
                 .map(com.porikroma.dto.TransportSelectionDto::getTransportId)
                 .collect(java.util.stream.Collectors.toList());
                 
-        tripService.addTransportsToTrip(tripId, transportIds, userId);
-        return ResponseEntity.ok().build();
+        BatchInsertResultDto result = tripService.addTransportsToTrip(tripId, transportIds, userId);
+        return ResponseEntity.ok(result);
     }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.porikroma.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchInsertResultDto {
+    private List<Long> insertedIds;
+    private List<Long> ignoredIds;  // Already linked, unknown or repeated in the request
+}
@@ -0,0 +1,16 @@
+package com.porikroma.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkInviteOutcomeDto {
+    private Long inviteeUserId;
+    private String status;  // INVITED, ALREADY_MEMBER, ALREADY_INVITED, USER_NOT_FOUND, DUPLICATE, SELF
+    private Long invitationId;  // Set only when status is INVITED
+}
@@ -0,0 +1,11 @@
+package com.porikroma.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class BulkInviteRequest {
+    private List<Long> inviteeUserIds;
+    private String inviterName;
+    private String invitationMessage;
+}
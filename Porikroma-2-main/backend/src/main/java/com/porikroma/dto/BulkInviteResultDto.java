@@ -0,0 +1,17 @@
+package com.porikroma.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkInviteResultDto {
+    private int invitedCount;
+    private List<BulkInviteOutcomeDto> outcomes;  // One per requested invitee, in request order
+}
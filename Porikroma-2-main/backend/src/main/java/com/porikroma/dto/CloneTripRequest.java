@@ -0,0 +1,10 @@
+package com.porikroma.dto;
+
+import lombok.Data;
+import java.time.LocalDate;
+
+@Data
+public class CloneTripRequest {
+    private String tripName;  // Defaults to "<source name> (copy)"
+    private LocalDate startDate;  // All plan dates shift with it; keeps the source dates when null
+}
@@ -0,0 +1,18 @@
+package com.porikroma.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterEnvelopeDto {
+    private String originNode;  // Random per process start
+    private long originSeq;  // Increases per origin node; used for de-duplication
+    private String room;
+    private String event;
+    private String payload;  // Event data as JSON
+}
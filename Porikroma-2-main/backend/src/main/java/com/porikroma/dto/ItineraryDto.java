@@ -0,0 +1,19 @@
+package com.porikroma.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItineraryDto {
+    private Long tripId;
+    private List<SubDestinationDto> stops;  // In visiting order; stops without coordinates come last
+    private double totalDistanceKm;
+    private boolean optimizationComplete;  // False when the time budget cut the search short
+}
@@ -0,0 +1,19 @@
+package com.porikroma.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PollDeltaDto {
+    private Long messageId;
+    private Long tripId;
+    private Long seq;  // Increases per poll; a gap means the client should refetch the message
+    private Map<Integer, Long> deltas;  // Option index -> change in votes since the previous update
+}
@@ -0,0 +1,17 @@
+package com.porikroma.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadMarkDto {
+    private Long userId;
+    private Long tripId;
+    private long readSeq;  // trip_chat_state.message_seq at the point the user had read up to
+    private Long lastReadMessageId;
+}
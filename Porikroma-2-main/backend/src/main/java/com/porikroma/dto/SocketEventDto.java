@@ -0,0 +1,16 @@
+package com.porikroma.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One entry of an "events-batch" frame
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SocketEventDto {
+    private String event;
+    private Object data;
+}
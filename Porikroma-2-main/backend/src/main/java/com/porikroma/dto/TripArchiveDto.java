@@ -0,0 +1,20 @@
+package com.porikroma.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripArchiveDto {
+    private Long tripId;
+    private LocalDateTime archivedAt;
+    private List<TripMessageDto> messages;
+    private List<ExpenseDto> expenses;  // Each with its settlements attached
+}
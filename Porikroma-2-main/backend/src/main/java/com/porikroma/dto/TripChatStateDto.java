@@ -0,0 +1,16 @@
+package com.porikroma.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripChatStateDto {
+    private Long tripId;
+    private long messageSeq;  // Messages ever sent to the trip; deletes don't lower it
+    private Long lastMessageId;
+}
@@ -0,0 +1,23 @@
+package com.porikroma.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripCostLedgerDto {
+    private Long tripId;
+    private BigDecimal expensesTotal;
+    private BigDecimal accommodationsTotal;
+    private BigDecimal transportTotal;
+    private BigDecimal subDestinationsTotal;
+    private BigDecimal totalCost;
+    private LocalDateTime updatedAt;
+}
@@ -28,6 +28,8 @@ public class TripDto {
     private String status;  // PLANNING, CONFIRMED, ONGOING, COMPLETED, CANCELLED
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;  // Bumped on every change to the trip, its members, items or expenses
+    private LocalDateTime archivedAt;  // Non-null once the trip is archived and read-only
     
     // Additional fields for detailed views
     private List<TripMemberDto> members;
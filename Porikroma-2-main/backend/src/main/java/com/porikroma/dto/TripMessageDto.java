@@ -9,7 +9,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class TripMessageDto {
@@ -22,7 +22,9 @@ public class TripMessageDto {
     private String content;
     private String attachmentUrl;
     private List<String> pollOptions;
+    private List<Long> pollVoteCounts;  // Votes per option, aligned with pollOptions
     private Long replyToMessageId;
+    private Long replyToSenderUserId;
     private String replyToContent;
     private String replyToSenderName;
     private boolean isEdited;
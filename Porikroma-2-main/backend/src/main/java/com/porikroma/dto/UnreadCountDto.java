@@ -0,0 +1,17 @@
+package com.porikroma.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UnreadCountDto {
+    private Long tripId;
+    private long unreadCount;
+    private Long lastMessageId;
+    private Long lastReadMessageId;
+}
@@ -0,0 +1,22 @@
+package com.porikroma.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Just what chat and notifications show for a user
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserProfileDto {
+    private Long userId;
+    private String firstName;
+    private String lastName;
+    private String profilePictureUrl;
+
+    public String getDisplayName() {
+        return firstName + " " + lastName;
+    }
+}
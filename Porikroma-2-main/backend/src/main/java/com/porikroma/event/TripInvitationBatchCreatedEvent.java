@@ -0,0 +1,24 @@
+package com.porikroma.event;
+
+import com.porikroma.dto.TripInvitationDto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Published once per bulk invite, so the fan-out is one summarized chat message and one
+ * batched notification insert rather than one of each per invitee.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripInvitationBatchCreatedEvent {
+    private Long tripId;
+    private Long inviterUserId;
+    private String inviterName;
+    private List<TripInvitationDto> invitations;
+}
@@ -0,0 +1,22 @@
+package com.porikroma.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Published when an invitation row is saved; the chat message, notification and
+ * socket push are handled after the inviting transaction commits.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripInvitationCreatedEvent {
+    private Long invitationId;
+    private Long tripId;
+    private Long inviterUserId;
+    private String inviterName;
+    private Long inviteeUserId;
+}
@@ -0,0 +1,20 @@
+package com.porikroma.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Published by the lifecycle scheduler for each chunk of trips it moved to a new status.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripStatusChangedEvent {
+    private List<Long> tripIds;
+    private String status;
+}
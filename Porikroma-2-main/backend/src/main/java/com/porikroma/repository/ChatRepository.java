@@ -7,11 +7,23 @@ import java.util.Optional;
 
 public interface ChatRepository {
     List<TripMessageDto> findByTripIdOrderByCreatedAt(Long tripId);
+    // Newest page strictly older than beforeMessageId (or the latest page when null), oldest first
+    List<TripMessageDto> findPageBefore(Long tripId, Long beforeMessageId, int limit);
+    // Page strictly newer than afterMessageId, oldest first
+    List<TripMessageDto> findPageAfter(Long tripId, Long afterMessageId, int limit);
+    // The message must already carry an id from allocateMessageIds
     TripMessageDto save(TripMessageDto messageDto);
+    // Inserts messages that already carry their ids in one statement and returns the ones it wrote.
+    // Rows left by an earlier attempt are skipped; an id held by a different message fails the call
+    List<TripMessageDto> saveAllWithIds(List<TripMessageDto> messages);
+    // Reserves count consecutive message ids and returns the first
+    long allocateMessageIds(int count);
+    // Sender name and picture from the profile cache
+    void populateSender(TripMessageDto messageDto);
     Optional<TripMessageDto> findById(Long messageId);
     TripMessageDto update(TripMessageDto messageDto);
     void deleteById(Long messageId);
-    TripMessageDto updatePollVote(Long messageId, Long userId, String option);
+    // Newest first
     List<TripMessageDto> findRecentMessages(Long tripId, int limit);
     Long getTripCreatorId(Long tripId);
 }
\ No newline at end of file
@@ -1,19 +1,27 @@
 package com.porikroma.repository;
 
 import com.porikroma.dto.TripMessageDto;
+import com.porikroma.dto.UserProfileDto;
+import com.porikroma.service.UserProfileCache;
+import com.porikroma.util.PollOptionsJson;
 import com.porikroma.util.TripMessageRowMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
-import java.sql.PreparedStatement;
-import java.sql.Statement;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public class ChatRepositoryImpl implements ChatRepository {
@@ -21,76 +29,192 @@ public class ChatRepositoryImpl implements ChatRepository {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private UserProfileCache userProfileCache;
+
     private final TripMessageRowMapper messageRowMapper = new TripMessageRowMapper();
 
     @Override
     public List<TripMessageDto> findByTripIdOrderByCreatedAt(Long tripId) {
         String sql = """
-            SELECT m.*, u.first_name, u.last_name, u.profile_picture_url,
-                   rm.content as reply_content, ru.first_name as reply_sender_name
+            SELECT m.*, rm.content as reply_content, rm.sender_user_id as reply_sender_user_id
             FROM trip_messages m
-            LEFT JOIN users u ON m.sender_user_id = u.user_id
             LEFT JOIN trip_messages rm ON m.reply_to_message_id = rm.message_id
-            LEFT JOIN users ru ON rm.sender_user_id = ru.user_id
             WHERE m.trip_id = ?
             ORDER BY m.created_at ASC
             """;
-        return jdbcTemplate.query(sql, messageRowMapper, tripId);
+        return withProfiles(jdbcTemplate.query(sql, messageRowMapper, tripId));
     }
 
     @Override
-    public TripMessageDto save(TripMessageDto messageDto) {
+    public List<TripMessageDto> findPageBefore(Long tripId, Long beforeMessageId, int limit) {
+        // Walks idx_messages_trip_message backwards from the cursor, so cost is bounded by the page size
         String sql = """
-            INSERT INTO trip_messages (trip_id, sender_user_id, message_type, content, 
-                                     attachment_url, poll_options, reply_to_message_id, created_at) 
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            SELECT m.*, rm.content as reply_content, rm.sender_user_id as reply_sender_user_id
+            FROM trip_messages m
+            LEFT JOIN trip_messages rm ON m.reply_to_message_id = rm.message_id
+            WHERE m.trip_id = ? AND m.message_id < ?
+            ORDER BY m.message_id DESC
+            LIMIT ?
             """;
+        List<TripMessageDto> messages = new ArrayList<>(jdbcTemplate.query(sql, messageRowMapper,
+            tripId, beforeMessageId != null ? beforeMessageId : Long.MAX_VALUE, limit));
+        Collections.reverse(messages);
+        return withProfiles(messages);
+    }
 
-        KeyHolder keyHolder = new GeneratedKeyHolder();
-        LocalDateTime now = LocalDateTime.now();
+    @Override
+    public List<TripMessageDto> findPageAfter(Long tripId, Long afterMessageId, int limit) {
+        String sql = """
+            SELECT m.*, rm.content as reply_content, rm.sender_user_id as reply_sender_user_id
+            FROM trip_messages m
+            LEFT JOIN trip_messages rm ON m.reply_to_message_id = rm.message_id
+            WHERE m.trip_id = ? AND m.message_id > ?
+            ORDER BY m.message_id ASC
+            LIMIT ?
+            """;
+        return withProfiles(jdbcTemplate.query(sql, messageRowMapper, tripId, afterMessageId, limit));
+    }
 
-        jdbcTemplate.update(connection -> {
-            PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            ps.setLong(1, messageDto.getTripId());
-            ps.setObject(2, messageDto.getSenderUserId());
-            ps.setString(3, messageDto.getMessageType());
-            ps.setString(4, messageDto.getContent());
-            ps.setString(5, messageDto.getAttachmentUrl());
-            ps.setString(6, messageDto.getPollOptions() != null ? 
-                String.join(",", messageDto.getPollOptions()) : null);
-            ps.setObject(7, messageDto.getReplyToMessageId());
-            ps.setTimestamp(8, Timestamp.valueOf(now));
-            return ps;
-        }, keyHolder);
-
-        Long generatedId = keyHolder.getKey().longValue();
-        messageDto.setMessageId(generatedId);
+    @Override
+    public TripMessageDto save(TripMessageDto messageDto) {
+        // Ids come from id_sequences only; nothing relies on AUTO_INCREMENT, so it can't hand out a reserved id
+        LocalDateTime now = LocalDateTime.now();
         messageDto.setCreatedAt(now);
-        
+        insertWithIds(List.of(messageDto));
+
         // Get sender info
-        if (messageDto.getSenderUserId() != null) {
-            String userSql = "SELECT first_name, last_name, profile_picture_url FROM users WHERE user_id = ?";
-            jdbcTemplate.query(userSql, rs -> {
-                messageDto.setSenderName(rs.getString("first_name") + " " + rs.getString("last_name"));
-                messageDto.setSenderProfilePicture(rs.getString("profile_picture_url"));
-            }, messageDto.getSenderUserId());
-        }
+        populateSender(messageDto);
         
         return messageDto;
     }
 
+    @Override
+    public void populateSender(TripMessageDto messageDto) {
+        withProfiles(List.of(messageDto));
+    }
+
+    // Fills sender and reply-sender names from the profile cache instead of joining users
+    private List<TripMessageDto> withProfiles(List<TripMessageDto> messages) {
+        Set<Long> userIds = new HashSet<>();
+        for (TripMessageDto message : messages) {
+            userIds.add(message.getSenderUserId());
+            userIds.add(message.getReplyToSenderUserId());
+        }
+        userIds.remove(null);
+        Map<Long, UserProfileDto> profiles = userProfileCache.getAll(userIds);
+        for (TripMessageDto message : messages) {
+            UserProfileDto sender = profiles.get(message.getSenderUserId());
+            if (sender != null) {
+                if (sender.getFirstName() != null && sender.getLastName() != null) {
+                    message.setSenderName(sender.getDisplayName());
+                }
+                message.setSenderProfilePicture(sender.getProfilePictureUrl());
+            }
+            UserProfileDto replySender = profiles.get(message.getReplyToSenderUserId());
+            if (replySender != null) {
+                message.setReplyToSenderName(replySender.getFirstName());
+            }
+        }
+        return messages;
+    }
+
+    @Override
+    public List<TripMessageDto> saveAllWithIds(List<TripMessageDto> messages) {
+        // A retry after an unacknowledged commit finds its own rows already there; anything else
+        // holding one of these ids is a collision and must not be silently skipped
+        Map<Long, TripMessageDto> existing = findStoredKeys(messages);
+        List<TripMessageDto> toInsert = new ArrayList<>();
+        for (TripMessageDto message : messages) {
+            TripMessageDto stored = existing.get(message.getMessageId());
+            if (stored == null) {
+                toInsert.add(message);
+            } else if (!isSameMessage(stored, message)) {
+                throw new DataIntegrityViolationException("Message id " + message.getMessageId()
+                    + " is already used by another message in trip " + stored.getTripId());
+            }
+        }
+        if (!toInsert.isEmpty()) {
+            insertWithIds(toInsert);
+        }
+        return toInsert;
+    }
+
+    private Map<Long, TripMessageDto> findStoredKeys(List<TripMessageDto> messages) {
+        Map<Long, TripMessageDto> stored = new HashMap<>();
+        if (messages.isEmpty()) {
+            return stored;
+        }
+        String placeholders = String.join(",", Collections.nCopies(messages.size(), "?"));
+        String sql = """
+            SELECT message_id, trip_id, sender_user_id, created_at
+            FROM trip_messages
+            WHERE message_id IN (%s)
+            """.formatted(placeholders);
+        jdbcTemplate.query(sql, rs -> {
+            stored.put(rs.getLong("message_id"), TripMessageDto.builder()
+                .messageId(rs.getLong("message_id"))
+                .tripId(rs.getLong("trip_id"))
+                .senderUserId(rs.getLong("sender_user_id"))
+                .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+                .build());
+        }, messages.stream().map(TripMessageDto::getMessageId).toArray());
+        return stored;
+    }
+
+    private boolean isSameMessage(TripMessageDto stored, TripMessageDto message) {
+        // created_at is stored in whole seconds, rounded
+        long skewMillis = Math.abs(Duration.between(stored.getCreatedAt(), message.getCreatedAt()).toMillis());
+        return stored.getTripId().equals(message.getTripId())
+            && Objects.equals(stored.getSenderUserId(), message.getSenderUserId())
+            && skewMillis < 1000;
+    }
+
+    private void insertWithIds(List<TripMessageDto> messages) {
+        // rewriteBatchedStatements turns this into a single multi-row INSERT
+        String sql = """
+            INSERT INTO trip_messages (message_id, trip_id, sender_user_id, message_type, content,
+                                     attachment_url, poll_options, reply_to_message_id, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+        jdbcTemplate.batchUpdate(sql, messages, messages.size(), (ps, message) -> {
+            ps.setLong(1, message.getMessageId());
+            ps.setLong(2, message.getTripId());
+            ps.setObject(3, message.getSenderUserId());
+            ps.setString(4, message.getMessageType());
+            ps.setString(5, message.getContent());
+            ps.setString(6, message.getAttachmentUrl());
+            ps.setString(7, PollOptionsJson.write(message.getPollOptions()));
+            ps.setObject(8, message.getReplyToMessageId());
+            ps.setTimestamp(9, Timestamp.valueOf(message.getCreatedAt()));
+        });
+    }
+
+    @Override
+    public long allocateMessageIds(int count) {
+        jdbcTemplate.update("INSERT IGNORE INTO id_sequences (sequence_name, next_value) VALUES ('trip_messages', 1)");
+
+        // Never hands out ids below what AUTO_INCREMENT inserts have already used
+        String sql = """
+            UPDATE id_sequences
+            SET next_value = LAST_INSERT_ID(GREATEST(next_value, (SELECT COALESCE(MAX(message_id), 0) + 1 FROM trip_messages)) + ?)
+            WHERE sequence_name = 'trip_messages'
+            """;
+        jdbcTemplate.update(sql, count);
+        // LAST_INSERT_ID() is per connection, and this runs inside the caller's transaction
+        Long blockEnd = jdbcTemplate.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
+        return blockEnd - count;
+    }
+
     @Override
     public Optional<TripMessageDto> findById(Long messageId) {
         String sql = """
-            SELECT m.*, u.first_name, u.last_name, u.profile_picture_url,
-                   rm.content as reply_content, ru.first_name as reply_sender_name
+            SELECT m.*, rm.content as reply_content, rm.sender_user_id as reply_sender_user_id
             FROM trip_messages m
-            LEFT JOIN users u ON m.sender_user_id = u.user_id
             LEFT JOIN trip_messages rm ON m.reply_to_message_id = rm.message_id
-            LEFT JOIN users ru ON rm.sender_user_id = ru.user_id
             WHERE m.message_id = ?
             """;
-        List<TripMessageDto> messages = jdbcTemplate.query(sql, messageRowMapper, messageId);
+        List<TripMessageDto> messages = withProfiles(jdbcTemplate.query(sql, messageRowMapper, messageId));
         return messages.isEmpty() ? Optional.empty() : Optional.of(messages.get(0));
     }
 
@@ -115,27 +239,17 @@ public class ChatRepositoryImpl implements ChatRepository {
         jdbcTemplate.update(sql, messageId);
     }
 
-    @Override
-    public TripMessageDto updatePollVote(Long messageId, Long userId, String option) {
-        // For now, just return the message as-is
-        // In a real implementation, you'd update poll votes in a separate table or JSON column
-        return findById(messageId).orElse(null);
-    }
-
     @Override
     public List<TripMessageDto> findRecentMessages(Long tripId, int limit) {
         String sql = """
-            SELECT m.*, u.first_name, u.last_name, u.profile_picture_url,
-                   rm.content as reply_content, ru.first_name as reply_sender_name
+            SELECT m.*, rm.content as reply_content, rm.sender_user_id as reply_sender_user_id
             FROM trip_messages m
-            LEFT JOIN users u ON m.sender_user_id = u.user_id
             LEFT JOIN trip_messages rm ON m.reply_to_message_id = rm.message_id
-            LEFT JOIN users ru ON rm.sender_user_id = ru.user_id
             WHERE m.trip_id = ?
-            ORDER BY m.created_at DESC
+            ORDER BY m.message_id DESC
             LIMIT ?
             """;
-        return jdbcTemplate.query(sql, messageRowMapper, tripId, limit);
+        return withProfiles(jdbcTemplate.query(sql, messageRowMapper, tripId, limit));
     }
 
     @Override
@@ -1,5 +1,6 @@
 package com.porikroma.repository;
 
+import com.porikroma.dto.BatchInsertResultDto;
 import com.porikroma.dto.ExpenseDto;
 import com.porikroma.dto.ExpenseSettlementDto;
 
@@ -14,8 +15,9 @@ public interface ExpenseRepository {
     ExpenseDto update(ExpenseDto expenseDto);
     void deleteById(Long expenseId);
     List<ExpenseSettlementDto> findSettlementsByExpenseId(Long expenseId);
+    List<ExpenseSettlementDto> findSettlementsByTripId(Long tripId);
     ExpenseSettlementDto updateSettlement(ExpenseSettlementDto settlementDto);
-    void createSettlementsForExpense(Long expenseId, List<Long> memberIds, java.math.BigDecimal amountPerPerson);
+    BatchInsertResultDto createSettlementsForExpense(Long expenseId, List<Long> memberIds, java.math.BigDecimal amountPerPerson);
     Object getTripExpenseSummary(Long tripId);
     Optional<ExpenseSettlementDto> findSettlementById(Long settlementId);
 }
\ No newline at end of file
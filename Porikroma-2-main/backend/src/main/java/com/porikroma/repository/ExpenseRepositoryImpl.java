@@ -1,7 +1,9 @@
 package com.porikroma.repository;
 
+import com.porikroma.dto.BatchInsertResultDto;
 import com.porikroma.dto.ExpenseDto;
 import com.porikroma.dto.ExpenseSettlementDto;
+import com.porikroma.util.BatchInsertSupport;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
@@ -118,7 +120,7 @@ public class ExpenseRepositoryImpl implements ExpenseRepository {
     @Override
     public ExpenseDto update(ExpenseDto expenseDto) {
         String sql = """
-            UPDATE expenses SET trip_id = ?, paid_by_user_id = ?, expense_category = ?, 
+            UPDATE trip_expenses SET trip_id = ?, paid_by_user_id = ?, expense_category = ?, 
             description = ?, amount = ?, currency = ?, expense_date = ?, receipt_url = ?, 
             updated_at = ? WHERE expense_id = ?
             """;
@@ -155,6 +157,16 @@ public class ExpenseRepositoryImpl implements ExpenseRepository {
         return jdbcTemplate.query(sql, settlementRowMapper, expenseId);
     }
 
+    @Override
+    public List<ExpenseSettlementDto> findSettlementsByTripId(Long tripId) {
+        String sql = """
+            SELECT es.* FROM expense_settlements es
+            JOIN trip_expenses te ON es.expense_id = te.expense_id
+            WHERE te.trip_id = ?
+            """;
+        return jdbcTemplate.query(sql, settlementRowMapper, tripId);
+    }
+
     @Override
     public ExpenseSettlementDto updateSettlement(ExpenseSettlementDto settlementDto) {
         String sql = """
@@ -174,22 +186,16 @@ public class ExpenseRepositoryImpl implements ExpenseRepository {
     }
 
     @Override
-    public void createSettlementsForExpense(Long expenseId, List<Long> memberIds, BigDecimal amountPerPerson) {
+    public BatchInsertResultDto createSettlementsForExpense(Long expenseId, List<Long> memberIds, BigDecimal amountPerPerson) {
         String sql = """
-            INSERT INTO expense_settlements (expense_id, user_id, amount_owed, amount_paid, 
+            INSERT IGNORE INTO expense_settlements (expense_id, user_id, amount_owed, amount_paid, 
             is_checked, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)
             """;
         
-        for (Long memberId : memberIds) {
-            jdbcTemplate.update(sql,
-                expenseId,
-                memberId,
-                amountPerPerson,
-                BigDecimal.ZERO,
-                false,
-                java.sql.Timestamp.valueOf(java.time.LocalDateTime.now()),
-                java.sql.Timestamp.valueOf(java.time.LocalDateTime.now()));
-        }
+        java.sql.Timestamp now = java.sql.Timestamp.valueOf(java.time.LocalDateTime.now());
+        return BatchInsertSupport.insertMissing(jdbcTemplate, "users", "user_id",
+            "trip_expenses", "expense_settlements", "expense_id", expenseId, memberIds,
+            sql, memberId -> new Object[] { expenseId, memberId, amountPerPerson, BigDecimal.ZERO, false, now, now });
     }
 
     @Override
@@ -18,6 +18,9 @@ public interface NotificationRepository {
     
     NotificationDto save(NotificationDto notification);
     
+    // Batch insert; fills in each notification's generated id
+    List<NotificationDto> saveAll(List<NotificationDto> notifications);
+    
     void markAsRead(Long notificationId);
     
     void markAllAsReadForUser(Long userId);
@@ -2,6 +2,7 @@ package com.porikroma.repository;
 
 import com.porikroma.dto.NotificationDto;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
@@ -14,6 +15,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
@@ -103,6 +105,50 @@ public class NotificationRepositoryImpl implements NotificationRepository {
         return notification;
     }
 
+    @Override
+    public List<NotificationDto> saveAll(List<NotificationDto> notifications) {
+        if (notifications.isEmpty()) {
+            return notifications;
+        }
+        String sql = """
+            INSERT INTO user_notifications (user_id, notification_type, title, message, related_entity_type, 
+            related_entity_id, is_read, priority, action_url, created_at) 
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+            connection -> connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS),
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    NotificationDto notification = notifications.get(i);
+                    ps.setLong(1, notification.getUserId());
+                    ps.setString(2, notification.getNotificationType());
+                    ps.setString(3, notification.getTitle());
+                    ps.setString(4, notification.getMessage());
+                    ps.setString(5, notification.getRelatedEntityType());
+                    ps.setLong(6, notification.getRelatedEntityId() != null ? notification.getRelatedEntityId() : 0);
+                    ps.setBoolean(7, notification.isRead());
+                    ps.setString(8, notification.getPriority());
+                    ps.setString(9, notification.getActionUrl());
+                    ps.setTimestamp(10, java.sql.Timestamp.valueOf(notification.getCreatedAt()));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return notifications.size();
+                }
+            },
+            keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < notifications.size(); i++) {
+            notifications.get(i).setNotificationId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+        return notifications;
+    }
+
     @Override
     public void markAsRead(Long notificationId) {
         String sql = "UPDATE user_notifications SET is_read = true, read_at = ? WHERE notification_id = ?";
@@ -0,0 +1,12 @@
+package com.porikroma.repository;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface PollVoteRepository {
+    // Records or changes the user's vote; returns the option it replaced, or null for a first vote
+    Integer saveVote(Long messageId, Long userId, int optionIndex);
+
+    // message id -> option index -> votes
+    Map<Long, Map<Integer, Long>> countByMessageIds(Collection<Long> messageIds);
+}
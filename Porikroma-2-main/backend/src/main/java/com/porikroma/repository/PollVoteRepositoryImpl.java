@@ -0,0 +1,49 @@
+package com.porikroma.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+@Repository
+public class PollVoteRepositoryImpl implements PollVoteRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Integer saveVote(Long messageId, Long userId, int optionIndex) {
+        // Assignments run left to right, so previous_option_index receives the old choice
+        String sql = """
+            INSERT INTO poll_votes (message_id, user_id, option_index)
+            VALUES (?, ?, ?)
+            ON DUPLICATE KEY UPDATE previous_option_index = option_index,
+                                    option_index = VALUES(option_index)
+            """;
+        jdbcTemplate.update(sql, messageId, userId, optionIndex);
+        // Only an update fills previous_option_index; the row is already locked by the upsert
+        return jdbcTemplate.queryForObject(
+            "SELECT previous_option_index FROM poll_votes WHERE message_id = ? AND user_id = ?",
+            Integer.class, messageId, userId);
+    }
+
+    @Override
+    public Map<Long, Map<Integer, Long>> countByMessageIds(Collection<Long> messageIds) {
+        Map<Long, Map<Integer, Long>> counts = new HashMap<>();
+        if (messageIds.isEmpty()) {
+            return counts;
+        }
+        String placeholders = String.join(",", Collections.nCopies(messageIds.size(), "?"));
+        String sql = "SELECT message_id, option_index, COUNT(*) AS votes FROM poll_votes " +
+                     "WHERE message_id IN (" + placeholders + ") GROUP BY message_id, option_index";
+        jdbcTemplate.query(sql, rs -> {
+            counts.computeIfAbsent(rs.getLong("message_id"), id -> new HashMap<>())
+                .put(rs.getInt("option_index"), rs.getLong("votes"));
+        }, messageIds.toArray());
+        return counts;
+    }
+}
@@ -0,0 +1,23 @@
+package com.porikroma.repository;
+
+import com.porikroma.dto.ReadMarkDto;
+import com.porikroma.dto.TripChatStateDto;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ReadMarkRepository {
+    // Adds count sent messages to the trip and returns the new message_seq
+    long incrementMessageSeq(Long tripId, int count, Long lastMessageId);
+
+    Optional<TripChatStateDto> findChatState(Long tripId);
+
+    // Trips the user has accepted, or only those in tripIds when given; trips without messages have seq 0
+    List<TripChatStateDto> findChatStatesForMember(Long userId, Collection<Long> tripIds);
+
+    List<ReadMarkDto> findMarks(Long userId, Collection<Long> tripIds);
+
+    // Marks only move forward
+    void saveMarks(List<ReadMarkDto> marks);
+}
@@ -0,0 +1,107 @@
+package com.porikroma.repository;
+
+import com.porikroma.dto.ReadMarkDto;
+import com.porikroma.dto.TripChatStateDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public class ReadMarkRepositoryImpl implements ReadMarkRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public long incrementMessageSeq(Long tripId, int count, Long lastMessageId) {
+        // LAST_INSERT_ID(expr) hands the new value back on this connection for both branches
+        String sql = """
+            INSERT INTO trip_chat_state (trip_id, message_seq, last_message_id)
+            VALUES (?, LAST_INSERT_ID(?), ?)
+            ON DUPLICATE KEY UPDATE message_seq = LAST_INSERT_ID(message_seq + ?),
+                                    last_message_id = GREATEST(COALESCE(last_message_id, 0), VALUES(last_message_id))
+            """;
+        jdbcTemplate.update(sql, tripId, count, lastMessageId, count);
+        Long seq = jdbcTemplate.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
+        return seq != null ? seq : 0L;
+    }
+
+    @Override
+    public Optional<TripChatStateDto> findChatState(Long tripId) {
+        String sql = "SELECT trip_id, message_seq, last_message_id FROM trip_chat_state WHERE trip_id = ?";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> TripChatStateDto.builder()
+                .tripId(rs.getLong("trip_id"))
+                .messageSeq(rs.getLong("message_seq"))
+                .lastMessageId(rs.getObject("last_message_id", Long.class))
+                .build(), tripId).stream().findFirst();
+    }
+
+    @Override
+    public List<TripChatStateDto> findChatStatesForMember(Long userId, Collection<Long> tripIds) {
+        StringBuilder sql = new StringBuilder("""
+            SELECT tm.trip_id, COALESCE(s.message_seq, 0) AS message_seq, s.last_message_id
+            FROM trip_members tm
+            LEFT JOIN trip_chat_state s ON s.trip_id = tm.trip_id
+            WHERE tm.user_id = ? AND tm.invitation_status = 'ACCEPTED'
+            """);
+        List<Object> params = new ArrayList<>();
+        params.add(userId);
+        if (tripIds != null) {
+            if (tripIds.isEmpty()) {
+                return List.of();
+            }
+            sql.append(" AND tm.trip_id IN (").append(String.join(",", Collections.nCopies(tripIds.size(), "?"))).append(")");
+            params.addAll(tripIds);
+        }
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> TripChatStateDto.builder()
+                .tripId(rs.getLong("trip_id"))
+                .messageSeq(rs.getLong("message_seq"))
+                .lastMessageId(rs.getObject("last_message_id", Long.class))
+                .build(), params.toArray());
+    }
+
+    @Override
+    public List<ReadMarkDto> findMarks(Long userId, Collection<Long> tripIds) {
+        if (tripIds.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(",", Collections.nCopies(tripIds.size(), "?"));
+        String sql = "SELECT user_id, trip_id, read_seq, last_read_message_id FROM trip_read_marks " +
+                     "WHERE user_id = ? AND trip_id IN (" + placeholders + ")";
+        List<Object> params = new ArrayList<>();
+        params.add(userId);
+        params.addAll(tripIds);
+        return jdbcTemplate.query(sql, (rs, rowNum) -> ReadMarkDto.builder()
+                .userId(rs.getLong("user_id"))
+                .tripId(rs.getLong("trip_id"))
+                .readSeq(rs.getLong("read_seq"))
+                .lastReadMessageId(rs.getObject("last_read_message_id", Long.class))
+                .build(), params.toArray());
+    }
+
+    @Override
+    public void saveMarks(List<ReadMarkDto> marks) {
+        if (marks.isEmpty()) {
+            return;
+        }
+        String sql = """
+            INSERT INTO trip_read_marks (user_id, trip_id, read_seq, last_read_message_id)
+            VALUES (?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE read_seq = GREATEST(read_seq, VALUES(read_seq)),
+                                    last_read_message_id = GREATEST(COALESCE(last_read_message_id, 0),
+                                                                    COALESCE(VALUES(last_read_message_id), 0))
+            """;
+        jdbcTemplate.batchUpdate(sql, marks, marks.size(), (ps, mark) -> {
+            ps.setLong(1, mark.getUserId());
+            ps.setLong(2, mark.getTripId());
+            ps.setLong(3, mark.getReadSeq());
+            ps.setObject(4, mark.getLastReadMessageId());
+        });
+    }
+}
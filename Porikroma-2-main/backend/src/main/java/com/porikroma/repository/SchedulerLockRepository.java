@@ -0,0 +1,9 @@
+package com.porikroma.repository;
+
+public interface SchedulerLockRepository {
+
+    // True when this owner now holds the lease, either fresh or renewed
+    boolean tryAcquire(String lockName, String owner, int leaseSeconds);
+
+    void release(String lockName, String owner);
+}
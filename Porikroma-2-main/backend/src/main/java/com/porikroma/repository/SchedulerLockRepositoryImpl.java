@@ -0,0 +1,30 @@
+package com.porikroma.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class SchedulerLockRepositoryImpl implements SchedulerLockRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public boolean tryAcquire(String lockName, String owner, int leaseSeconds) {
+        jdbcTemplate.update("INSERT IGNORE INTO scheduler_locks (lock_name, locked_until) VALUES (?, NOW())", lockName);
+
+        // The row lock makes this a compare-and-set: only one node sees an expired lease
+        String sql = """
+            UPDATE scheduler_locks SET locked_by = ?, locked_until = DATE_ADD(NOW(), INTERVAL ? SECOND) 
+            WHERE lock_name = ? AND (locked_until <= NOW() OR locked_by = ?)
+            """;
+        return jdbcTemplate.update(sql, owner, leaseSeconds, lockName, owner) == 1;
+    }
+
+    @Override
+    public void release(String lockName, String owner) {
+        String sql = "UPDATE scheduler_locks SET locked_until = NOW() WHERE lock_name = ? AND locked_by = ?";
+        jdbcTemplate.update(sql, lockName, owner);
+    }
+}
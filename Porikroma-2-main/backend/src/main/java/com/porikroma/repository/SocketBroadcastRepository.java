@@ -0,0 +1,20 @@
+package com.porikroma.repository;
+
+import com.porikroma.dto.ClusterEnvelopeDto;
+
+import java.util.List;
+
+public interface SocketBroadcastRepository {
+
+    record StoredBroadcast(long eventId, boolean settled, ClusterEnvelopeDto envelope) {
+    }
+
+    void saveAll(List<ClusterEnvelopeDto> envelopes);
+
+    // Rows after eventId in id order; settled once older than settleMillis, so a gap before it is final
+    List<StoredBroadcast> findAfter(long eventId, long settleMillis, int limit);
+
+    long findMaxEventId();
+
+    int deleteOlderThan(int retentionSeconds, int limit);
+}
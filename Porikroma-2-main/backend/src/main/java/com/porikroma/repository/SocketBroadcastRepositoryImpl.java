@@ -0,0 +1,67 @@
+package com.porikroma.repository;
+
+import com.porikroma.dto.ClusterEnvelopeDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public class SocketBroadcastRepositoryImpl implements SocketBroadcastRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void saveAll(List<ClusterEnvelopeDto> envelopes) {
+        // rewriteBatchedStatements makes this one multi-row INSERT, so ids follow list order
+        String sql = """
+            INSERT INTO socket_broadcasts (origin_node, origin_seq, room, event_name, payload)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+        jdbcTemplate.batchUpdate(sql, envelopes, envelopes.size(), (ps, envelope) -> {
+            ps.setString(1, envelope.getOriginNode());
+            ps.setLong(2, envelope.getOriginSeq());
+            ps.setString(3, envelope.getRoom());
+            ps.setString(4, envelope.getEvent());
+            ps.setString(5, envelope.getPayload());
+        });
+    }
+
+    @Override
+    public List<StoredBroadcast> findAfter(long eventId, long settleMillis, int limit) {
+        String sql = """
+            SELECT event_id, origin_node, origin_seq, room, event_name, payload,
+                   created_at <= NOW(3) - INTERVAL ? MICROSECOND AS settled
+            FROM socket_broadcasts
+            WHERE event_id > ?
+            ORDER BY event_id
+            LIMIT ?
+            """;
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new StoredBroadcast(
+                rs.getLong("event_id"),
+                rs.getBoolean("settled"),
+                ClusterEnvelopeDto.builder()
+                    .originNode(rs.getString("origin_node"))
+                    .originSeq(rs.getLong("origin_seq"))
+                    .room(rs.getString("room"))
+                    .event(rs.getString("event_name"))
+                    .payload(rs.getString("payload"))
+                    .build()),
+            settleMillis * 1000, eventId, limit);
+    }
+
+    @Override
+    public long findMaxEventId() {
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(event_id), 0) FROM socket_broadcasts", Long.class);
+        return max != null ? max : 0L;
+    }
+
+    @Override
+    public int deleteOlderThan(int retentionSeconds, int limit) {
+        return jdbcTemplate.update(
+            "DELETE FROM socket_broadcasts WHERE created_at < NOW(3) - INTERVAL ? SECOND LIMIT ?",
+            retentionSeconds, limit);
+    }
+}
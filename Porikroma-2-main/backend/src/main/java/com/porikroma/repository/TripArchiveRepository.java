@@ -0,0 +1,27 @@
+package com.porikroma.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface TripArchiveRepository {
+
+    // Completed trips that ended before the cutoff and still have hot rows
+    List<Long> findTripIdsDueForArchive(LocalDate endedBefore, int limit);
+
+    // Row-locks the trip if it is still eligible; concurrent message and expense inserts wait on it
+    boolean lockForArchive(Long tripId);
+
+    void save(Long tripId, byte[] payload, int messageCount, int expenseCount, int settlementCount);
+
+    Optional<byte[]> findPayloadByTripId(Long tripId);
+
+    // Deletes the trip's messages, expenses and settlements and flags the trip as archived
+    void purgeHotRows(Long tripId);
+
+    boolean isArchived(Long tripId);
+
+    // Share-locks those of the trips not yet archived and returns their ids; an archive run waits for the caller to commit
+    List<Long> lockUnarchived(Collection<Long> tripIds);
+}
@@ -0,0 +1,89 @@
+package com.porikroma.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public class TripArchiveRepositoryImpl implements TripArchiveRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Long> findTripIdsDueForArchive(LocalDate endedBefore, int limit) {
+        String sql = """
+            SELECT trip_id FROM trips
+            WHERE status = 'COMPLETED' AND end_date < ? AND archived_at IS NULL
+            ORDER BY end_date, trip_id LIMIT ?
+            """;
+        return jdbcTemplate.queryForList(sql, Long.class, Date.valueOf(endedBefore), limit);
+    }
+
+    @Override
+    public boolean lockForArchive(Long tripId) {
+        String sql = """
+            SELECT trip_id FROM trips
+            WHERE trip_id = ? AND status = 'COMPLETED' AND archived_at IS NULL
+            FOR UPDATE
+            """;
+        return !jdbcTemplate.queryForList(sql, Long.class, tripId).isEmpty();
+    }
+
+    @Override
+    public void save(Long tripId, byte[] payload, int messageCount, int expenseCount, int settlementCount) {
+        String sql = """
+            INSERT INTO trip_archives (trip_id, payload, message_count, expense_count, settlement_count, archived_at)
+            VALUES (?, ?, ?, ?, ?, NOW())
+            """;
+        jdbcTemplate.update(sql, tripId, payload, messageCount, expenseCount, settlementCount);
+    }
+
+    @Override
+    public Optional<byte[]> findPayloadByTripId(Long tripId) {
+        List<byte[]> payloads = jdbcTemplate.query("SELECT payload FROM trip_archives WHERE trip_id = ?",
+            (rs, rowNum) -> rs.getBytes("payload"), tripId);
+        return payloads.isEmpty() ? Optional.empty() : Optional.of(payloads.get(0));
+    }
+
+    @Override
+    public void purgeHotRows(Long tripId) {
+        jdbcTemplate.update("""
+            DELETE es FROM expense_settlements es
+            JOIN trip_expenses te ON es.expense_id = te.expense_id
+            WHERE te.trip_id = ?
+            """, tripId);
+        jdbcTemplate.update("DELETE FROM trip_expenses WHERE trip_id = ?", tripId);
+        // Replies point at messages in the same trip, so detach them before the delete
+        jdbcTemplate.update("UPDATE trip_messages SET reply_to_message_id = NULL WHERE trip_id = ? AND reply_to_message_id IS NOT NULL", tripId);
+        jdbcTemplate.update("DELETE FROM trip_messages WHERE trip_id = ?", tripId);
+        jdbcTemplate.update("UPDATE trips SET archived_at = NOW(), version = version + 1 WHERE trip_id = ?", tripId);
+    }
+
+    @Override
+    public boolean isArchived(Long tripId) {
+        Integer count = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM trips WHERE trip_id = ? AND archived_at IS NOT NULL", Integer.class, tripId);
+        return count != null && count > 0;
+    }
+
+    @Override
+    public List<Long> lockUnarchived(Collection<Long> tripIds) {
+        if (tripIds.isEmpty()) {
+            return List.of();
+        }
+        String sql = """
+            SELECT trip_id FROM trips
+            WHERE trip_id IN (%s) AND archived_at IS NULL
+            FOR SHARE
+            """.formatted(String.join(",", Collections.nCopies(tripIds.size(), "?")));
+        return jdbcTemplate.queryForList(sql, Long.class, tripIds.toArray());
+    }
+}
@@ -0,0 +1,27 @@
+package com.porikroma.repository;
+
+import com.porikroma.dto.TripCostLedgerDto;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+public interface TripCostLedgerRepository {
+
+    Optional<TripCostLedgerDto> findByTripId(Long tripId);
+
+    void createEmpty(Long tripId);
+
+    void applyExpenseDelta(Long tripId, BigDecimal delta);
+
+    // Re-sum a single component for one trip after its items change
+    void refreshAccommodations(Long tripId);
+
+    void refreshTransport(Long tripId);
+
+    void refreshSubDestinations(Long tripId);
+
+    void rebuild(Long tripId);
+
+    // Recomputes every trip from source tables; returns how many ledger rows were missing or drifted
+    long rebuildAll();
+}
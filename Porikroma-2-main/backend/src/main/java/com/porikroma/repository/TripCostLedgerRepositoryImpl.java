@@ -0,0 +1,175 @@
+package com.porikroma.repository;
+
+import com.porikroma.dto.TripCostLedgerDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public class TripCostLedgerRepositoryImpl implements TripCostLedgerRepository {
+
+    // Per-row cost of each component; unpriced rows fall back to catalog prices
+    private static final String ACCOMMODATION_COST = """
+        CASE WHEN ta.total_cost IS NOT NULL THEN ta.total_cost
+             ELSE a.price_per_night * GREATEST(ta.number_of_rooms, 1) * COALESCE(DATEDIFF(ta.check_out_date, ta.check_in_date), 7)
+        END""";
+
+    private static final String TRANSPORT_COST = """
+        CASE WHEN tt.total_cost IS NOT NULL THEN tt.total_cost
+             ELSE tr.price * GREATEST(tt.number_of_passengers, 1)
+        END""";
+
+    private static final String SUB_DESTINATION_COST = "COALESCE(ts.estimated_cost, sd.entry_fee, 0)";
+
+    private static final String EXPENSES_TOTAL_SQL =
+        "SELECT COALESCE(SUM(te.amount), 0) FROM trip_expenses te WHERE te.trip_id = %s";
+
+    private static final String ACCOMMODATIONS_TOTAL_SQL = """
+        SELECT COALESCE(SUM(%s), 0) FROM trip_accommodations ta
+        JOIN accommodations a ON ta.accommodation_id = a.accommodation_id
+        WHERE ta.trip_id = %%s""".formatted(ACCOMMODATION_COST);
+
+    private static final String TRANSPORT_TOTAL_SQL = """
+        SELECT COALESCE(SUM(%s), 0) FROM trip_transport tt
+        JOIN transport tr ON tt.transport_id = tr.transport_id
+        WHERE tt.trip_id = %%s""".formatted(TRANSPORT_COST);
+
+    private static final String SUB_DESTINATIONS_TOTAL_SQL = """
+        SELECT COALESCE(SUM(%s), 0) FROM trip_subdestinations ts
+        JOIN sub_destinations sd ON ts.sub_destination_id = sd.sub_destination_id
+        WHERE ts.trip_id = %%s""".formatted(SUB_DESTINATION_COST);
+
+    // Every trip's components computed in one pass with grouped derived tables. Archived trips are
+    // skipped: their expenses left trip_expenses, so the ledger is the only place their totals live
+    private static final String COMPUTED_COSTS_SQL = """
+        SELECT trip.trip_id,
+               COALESCE(e.total, 0) AS expenses_total,
+               COALESCE(a.total, 0) AS accommodations_total,
+               COALESCE(t.total, 0) AS transport_total,
+               COALESCE(s.total, 0) AS subdestinations_total
+        FROM trips trip
+        LEFT JOIN (SELECT te.trip_id, SUM(te.amount) AS total FROM trip_expenses te GROUP BY te.trip_id) e
+            ON e.trip_id = trip.trip_id
+        LEFT JOIN (SELECT ta.trip_id, SUM(%s) AS total FROM trip_accommodations ta
+                   JOIN accommodations a ON ta.accommodation_id = a.accommodation_id GROUP BY ta.trip_id) a
+            ON a.trip_id = trip.trip_id
+        LEFT JOIN (SELECT tt.trip_id, SUM(%s) AS total FROM trip_transport tt
+                   JOIN transport tr ON tt.transport_id = tr.transport_id GROUP BY tt.trip_id) t
+            ON t.trip_id = trip.trip_id
+        LEFT JOIN (SELECT ts.trip_id, SUM(%s) AS total FROM trip_subdestinations ts
+                   JOIN sub_destinations sd ON ts.sub_destination_id = sd.sub_destination_id GROUP BY ts.trip_id) s
+            ON s.trip_id = trip.trip_id
+        WHERE trip.archived_at IS NULL
+        """.formatted(ACCOMMODATION_COST, TRANSPORT_COST, SUB_DESTINATION_COST);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final RowMapper<TripCostLedgerDto> ledgerRowMapper = new RowMapper<TripCostLedgerDto>() {
+        @Override
+        public TripCostLedgerDto mapRow(ResultSet rs, int rowNum) throws SQLException {
+            return TripCostLedgerDto.builder()
+                    .tripId(rs.getLong("trip_id"))
+                    .expensesTotal(rs.getBigDecimal("expenses_total"))
+                    .accommodationsTotal(rs.getBigDecimal("accommodations_total"))
+                    .transportTotal(rs.getBigDecimal("transport_total"))
+                    .subDestinationsTotal(rs.getBigDecimal("subdestinations_total"))
+                    .totalCost(rs.getBigDecimal("total_cost"))
+                    .updatedAt(rs.getTimestamp("updated_at") != null ? rs.getTimestamp("updated_at").toLocalDateTime() : null)
+                    .build();
+        }
+    };
+
+    @Override
+    public Optional<TripCostLedgerDto> findByTripId(Long tripId) {
+        String sql = "SELECT * FROM trip_cost_ledger WHERE trip_id = ?";
+        List<TripCostLedgerDto> ledgers = jdbcTemplate.query(sql, ledgerRowMapper, tripId);
+        return ledgers.isEmpty() ? Optional.empty() : Optional.of(ledgers.get(0));
+    }
+
+    @Override
+    public void createEmpty(Long tripId) {
+        jdbcTemplate.update("INSERT IGNORE INTO trip_cost_ledger (trip_id) VALUES (?)", tripId);
+    }
+
+    @Override
+    public void applyExpenseDelta(Long tripId, BigDecimal delta) {
+        String sql = "UPDATE trip_cost_ledger SET expenses_total = expenses_total + ? WHERE trip_id = ?";
+        if (jdbcTemplate.update(sql, delta, tripId) == 0) {
+            // No ledger row yet (trip predates the ledger), so build it from the source tables
+            rebuild(tripId);
+        }
+    }
+
+    @Override
+    public void refreshAccommodations(Long tripId) {
+        refreshComponent("accommodations_total", ACCOMMODATIONS_TOTAL_SQL, tripId);
+    }
+
+    @Override
+    public void refreshTransport(Long tripId) {
+        refreshComponent("transport_total", TRANSPORT_TOTAL_SQL, tripId);
+    }
+
+    @Override
+    public void refreshSubDestinations(Long tripId) {
+        refreshComponent("subdestinations_total", SUB_DESTINATIONS_TOTAL_SQL, tripId);
+    }
+
+    private void refreshComponent(String column, String totalSql, Long tripId) {
+        String sql = "UPDATE trip_cost_ledger SET " + column + " = (" + totalSql.formatted("?") + ") WHERE trip_id = ?";
+        if (jdbcTemplate.update(sql, tripId, tripId) == 0) {
+            rebuild(tripId);
+        }
+    }
+
+    @Override
+    public void rebuild(Long tripId) {
+        String sql = """
+            INSERT INTO trip_cost_ledger (trip_id, expenses_total, accommodations_total, transport_total, subdestinations_total)
+            SELECT trip.trip_id, (%s), (%s), (%s), (%s)
+            FROM trips trip WHERE trip.trip_id = ? AND trip.archived_at IS NULL
+            ON DUPLICATE KEY UPDATE expenses_total = VALUES(expenses_total),
+                accommodations_total = VALUES(accommodations_total),
+                transport_total = VALUES(transport_total),
+                subdestinations_total = VALUES(subdestinations_total)
+            """.formatted(EXPENSES_TOTAL_SQL.formatted("trip.trip_id"),
+                ACCOMMODATIONS_TOTAL_SQL.formatted("trip.trip_id"),
+                TRANSPORT_TOTAL_SQL.formatted("trip.trip_id"),
+                SUB_DESTINATIONS_TOTAL_SQL.formatted("trip.trip_id"));
+        jdbcTemplate.update(sql, tripId);
+    }
+
+    @Override
+    public long rebuildAll() {
+        String driftSql = """
+            SELECT COUNT(*) FROM (%s) c
+            LEFT JOIN trip_cost_ledger l ON l.trip_id = c.trip_id
+            WHERE l.trip_id IS NULL
+               OR l.expenses_total <> c.expenses_total
+               OR l.accommodations_total <> c.accommodations_total
+               OR l.transport_total <> c.transport_total
+               OR l.subdestinations_total <> c.subdestinations_total
+            """.formatted(COMPUTED_COSTS_SQL);
+        Long drifted = jdbcTemplate.queryForObject(driftSql, Long.class);
+
+        String rebuildSql = """
+            INSERT INTO trip_cost_ledger (trip_id, expenses_total, accommodations_total, transport_total, subdestinations_total)
+            SELECT c.trip_id, c.expenses_total, c.accommodations_total, c.transport_total, c.subdestinations_total
+            FROM (%s) c
+            ON DUPLICATE KEY UPDATE expenses_total = c.expenses_total,
+                accommodations_total = c.accommodations_total,
+                transport_total = c.transport_total,
+                subdestinations_total = c.subdestinations_total
+            """.formatted(COMPUTED_COSTS_SQL);
+        jdbcTemplate.update(rebuildSql);
+        return drifted != null ? drifted : 0;
+    }
+}
@@ -1,9 +1,14 @@
 package com.porikroma.repository;
 
+import com.porikroma.dto.BatchInsertResultDto;
+import com.porikroma.dto.CursorPageDto;
 import com.porikroma.dto.TripDto;
 import com.porikroma.dto.TripMemberDto;
 import com.porikroma.dto.TripInvitationDto;
+import com.porikroma.util.TripCursor;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface TripRepository {
@@ -12,30 +17,72 @@ public interface TripRepository {
     
     Optional<TripDto> findById(Long tripId);
     
+    // Loads the trip with members, items, expenses and derived totals in one round trip
+    Optional<TripDto> findTripAggregateById(Long tripId);
+    
     List<TripDto> findByUserId(Long userId);
     
     List<TripDto> findByDestinationId(Long destinationId);
     
     List<TripDto> findByStatus(String status);
     
+    // Keyset pages ordered by (created_at DESC, trip_id DESC); a null cursor starts at the newest trip
+    CursorPageDto<TripDto> findAllPage(TripCursor cursor, int limit);
+    
+    CursorPageDto<TripDto> findByUserIdPage(Long userId, TripCursor cursor, int limit);
+    
+    CursorPageDto<TripDto> findByStatusPage(String status, TripCursor cursor, int limit);
+    
+    CursorPageDto<TripDto> findByDestinationIdPage(Long destinationId, TripCursor cursor, int limit);
+    
+    CursorPageDto<TripDto> findByStatusAndDestinationIdPage(String status, Long destinationId, TripCursor cursor, int limit);
+    
     List<TripDto> findPublicTrips();
     
     List<TripDto> findByDateRange(String startDate, String endDate);
     
+    // Only trip_id, start_date and end_date are populated
+    List<TripDto> findDateRanges();
+    
+    List<TripDto> findByIds(List<Long> tripIds);
+    
     TripDto save(TripDto trip);
     
     TripDto update(Long tripId, TripDto trip);
     
+    // Copies the trip and its sub-destinations, accommodations and transport with INSERT ... SELECT,
+    // shifting every date by shiftDays; returns the new trip id
+    Long cloneTrip(Long sourceTripId, Long creatorUserId, String tripName, int shiftDays);
+    
+    boolean isPublicTrip(Long tripId);
+    
+    // Scheduled lifecycle: trips whose dates call for targetStatus (ONGOING or COMPLETED)
+    List<Long> findTripIdsDueForStatus(String targetStatus, LocalDate today, int limit);
+    
+    int updateStatusIfDue(List<Long> tripIds, String targetStatus, LocalDate today);
+    
+    Map<Long, List<Long>> findAcceptedMemberIdsByTripIds(List<Long> tripIds);
+    
     void deleteById(Long tripId);
     
     boolean existsById(Long tripId);
     
+    // Holds the trip row until the transaction ends, so check-then-insert on its children is serialized
+    void lockById(Long tripId);
+    
+    Optional<Long> findVersionById(Long tripId);
+    
+    void incrementVersion(Long tripId);
+    
     long count();
     
     long countByStatus(String status);
     
     List<TripDto> findPopularTrips(int limit);
     
+    // Single public trip with its accepted member count, empty if the trip is private or gone
+    Optional<TripDto> findPopularTripById(Long tripId);
+    
     List<TripDto> findRecentTrips(int limit);
     
     // Additional methods for admin analytics and trip functionality
@@ -47,19 +94,26 @@ public interface TripRepository {
     // Trip member management
     void addMember(TripMemberDto member);
     List<TripMemberDto> findMembersByTripId(Long tripId);
+    List<TripMemberDto> findRosterByTripId(Long tripId);
     boolean isUserTripMember(Long tripId, Long userId);
     
     // Trip invitation management
     TripInvitationDto saveInvitation(TripInvitationDto invitation);
+    // Batch insert; fills in each invitation's generated id
+    List<TripInvitationDto> saveInvitations(List<TripInvitationDto> invitations);
+    
+    // userId -> ALREADY_MEMBER, ALREADY_INVITED or ELIGIBLE; unknown or deleted users are absent
+    Map<Long, String> findInviteeStates(Long tripId, List<Long> userIds);
+    
     Optional<TripInvitationDto> findInvitationById(Long invitationId);
     void updateInvitation(TripInvitationDto invitation);
     List<TripInvitationDto> findInvitationsByUserId(Long userId);
     boolean hasUserInvitation(Long tripId, Long userId);
     
     // Trip features
-    void addSubDestinations(Long tripId, List<Long> subDestinationIds);
-    void addAccommodations(Long tripId, List<Long> accommodationIds);
-    void addTransports(Long tripId, List<Long> transportIds);
+    BatchInsertResultDto addSubDestinations(Long tripId, List<Long> subDestinationIds);
+    BatchInsertResultDto addAccommodations(Long tripId, List<Long> accommodationIds);
+    BatchInsertResultDto addTransports(Long tripId, List<Long> transportIds);
     
     // Trip data retrieval
     List<com.porikroma.dto.SubDestinationDto> findSubDestinationsByTripId(Long tripId);
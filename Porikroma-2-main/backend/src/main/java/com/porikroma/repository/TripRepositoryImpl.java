@@ -1,27 +1,117 @@
 package com.porikroma.repository;
 
+import java.math.BigDecimal;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
+import com.porikroma.dto.BatchInsertResultDto;
+import com.porikroma.dto.CursorPageDto;
 import com.porikroma.dto.TripDto;
 import com.porikroma.dto.TripInvitationDto;
 import com.porikroma.dto.TripMemberDto;
+import com.porikroma.util.BatchInsertSupport;
+import com.porikroma.util.TripCursor;
 
 @Repository
 public class TripRepositoryImpl implements TripRepository {
 
+    private static final int FIND_BY_IDS_CHUNK = 1000;
+
+    private static final String TRIP_DETAIL_SQL = """
+        SELECT t.*, 
+               d.destination_name as destination_name,
+               u.first_name as creator_first_name,
+               u.last_name as creator_last_name
+        FROM trips t
+        LEFT JOIN destinations d ON t.destination_id = d.destination_id
+        LEFT JOIN users u ON t.creator_user_id = u.user_id
+        WHERE t.trip_id = ?
+        """;
+
+    private static final String TRIP_MEMBERS_SQL = """
+        SELECT tm.*, 
+               u.first_name as user_first_name,
+               u.last_name as user_last_name,
+               u.email as user_email,
+               u.profile_picture_url as user_profile_picture,
+               inv.first_name as inviter_first_name,
+               inv.last_name as inviter_last_name
+        FROM trip_members tm
+        LEFT JOIN users u ON tm.user_id = u.user_id
+        LEFT JOIN users inv ON tm.invited_by = inv.user_id
+        WHERE tm.trip_id = ? 
+        ORDER BY tm.invited_at
+        """;
+
+    private static final String TRIP_SUB_DESTINATIONS_SQL = """
+        SELECT sd.*, ts.estimated_cost, ts.status, ts.notes, d.destination_name
+        FROM trip_subdestinations ts
+        JOIN sub_destinations sd ON ts.sub_destination_id = sd.sub_destination_id
+        JOIN destinations d ON sd.destination_id = d.destination_id
+        WHERE ts.trip_id = ?
+        ORDER BY sd.sub_destination_name
+        """;
+
+    private static final String TRIP_ACCOMMODATIONS_SQL = """
+        SELECT a.*, ta.check_in_date, ta.check_out_date, ta.number_of_rooms, 
+               ta.room_type, ta.total_cost, ta.booking_status, ta.booking_reference, 
+               ta.special_requests, d.destination_name
+        FROM trip_accommodations ta
+        JOIN accommodations a ON ta.accommodation_id = a.accommodation_id
+        JOIN destinations d ON a.destination_id = d.destination_id
+        WHERE ta.trip_id = ?
+        ORDER BY a.accommodation_name
+        """;
+
+    private static final String TRIP_TRANSPORTS_SQL = """
+        SELECT t.*, tt.journey_type, tt.travel_date, tt.departure_time as trip_departure_time, 
+               tt.arrival_time as trip_arrival_time, tt.number_of_passengers, tt.seat_preference, 
+               tt.total_cost, tt.booking_status, tt.booking_reference, d.destination_name
+        FROM trip_transport tt
+        JOIN transport t ON tt.transport_id = t.transport_id
+        JOIN destinations d ON t.destination_id = d.destination_id
+        WHERE tt.trip_id = ?
+        ORDER BY t.transport_type, t.operator_name
+        """;
+
+    private static final String TRIP_EXPENSES_SQL = """
+        SELECT * FROM trip_expenses 
+        WHERE trip_id = ?
+        ORDER BY expense_date DESC, created_at DESC
+        """;
+
+    // Public trips with their accepted member count; %s takes an extra AND predicate
+    private static final String POPULAR_TRIPS_SQL = """
+        SELECT t.*, COUNT(tm.user_id) as member_count 
+        FROM trips t 
+        LEFT JOIN trip_members tm ON t.trip_id = tm.trip_id AND tm.invitation_status = 'ACCEPTED' 
+        WHERE t.is_public = true %s
+        GROUP BY t.trip_id 
+        """;
+
+    private static final String TRIP_COST_LEDGER_SQL = "SELECT total_cost FROM trip_cost_ledger WHERE trip_id = ?";
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -44,6 +134,12 @@ public class TripRepositoryImpl implements TripRepository {
         }
     };
 
+    private final RowMapper<TripDto> popularTripRowMapper = (rs, rowNum) -> {
+        TripDto trip = tripRowMapper.mapRow(rs, rowNum);
+        trip.setMemberCount(rs.getInt("member_count"));
+        return trip;
+    };
+
     private final RowMapper<TripDto> enhancedTripRowMapper = new RowMapper<TripDto>() {
         @Override
         public TripDto mapRow(ResultSet rs, int rowNum) throws SQLException {
@@ -69,6 +165,8 @@ public class TripRepositoryImpl implements TripRepository {
             trip.setStatus(rs.getString("status"));
             trip.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
             trip.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+            trip.setVersion(rs.getLong("version"));
+            trip.setArchivedAt(rs.getTimestamp("archived_at") != null ? rs.getTimestamp("archived_at").toLocalDateTime() : null);
             return trip;
         }
     };
@@ -230,6 +328,155 @@ public class TripRepositoryImpl implements TripRepository {
         }
     };
 
+    private final RowMapper<com.porikroma.dto.SubDestinationDto> tripSubDestinationRowMapper = (rs, rowNum) -> {
+        com.porikroma.dto.SubDestinationDto dto = new com.porikroma.dto.SubDestinationDto();
+        dto.setSubDestinationId(rs.getLong("sub_destination_id"));
+        dto.setDestinationId(rs.getLong("destination_id"));
+        dto.setDestinationName(rs.getString("destination_name"));
+        dto.setSubDestinationName(rs.getString("sub_destination_name"));
+        dto.setCategory(rs.getString("category"));
+        dto.setDescription(rs.getString("description"));
+        dto.setFeaturedImage(rs.getString("featured_image"));
+        dto.setAddress(rs.getString("address"));
+        dto.setLatitude(rs.getBigDecimal("latitude"));
+        dto.setLongitude(rs.getBigDecimal("longitude"));
+        dto.setEntryFee(rs.getBigDecimal("entry_fee"));
+        dto.setOpeningHours(rs.getString("opening_hours"));
+        dto.setContactPhone(rs.getString("contact_phone"));
+        dto.setContactEmail(rs.getString("contact_email"));
+        dto.setWebsiteUrl(rs.getString("website_url"));
+        dto.setDurationHours(rs.getBigDecimal("duration_hours"));
+        dto.setDifficultyLevel(rs.getString("difficulty_level"));
+        dto.setAccessibilityInfo(rs.getString("accessibility_info"));
+        dto.setBestVisitTime(rs.getString("best_visit_time"));
+        dto.setFacilities(rs.getString("facilities"));
+        dto.setCreatedAt(rs.getTimestamp("created_at") != null ? rs.getTimestamp("created_at").toLocalDateTime() : null);
+        dto.setUpdatedAt(rs.getTimestamp("updated_at") != null ? rs.getTimestamp("updated_at").toLocalDateTime() : null);
+        
+        // Trip-specific fields from trip_subdestinations table
+        dto.setEstimatedCost(rs.getBigDecimal("estimated_cost"));
+        dto.setStatus(rs.getString("status"));
+        dto.setNotes(rs.getString("notes"));
+        
+        return dto;
+    };
+
+    private final RowMapper<com.porikroma.dto.AccommodationDto> tripAccommodationRowMapper = (rs, rowNum) -> {
+        com.porikroma.dto.AccommodationDto dto = new com.porikroma.dto.AccommodationDto();
+        dto.setAccommodationId(rs.getLong("accommodation_id"));
+        dto.setDestinationId(rs.getLong("destination_id"));
+        dto.setDestinationName(rs.getString("destination_name"));
+        dto.setAccommodationName(rs.getString("accommodation_name"));
+        dto.setAccommodationType(rs.getString("accommodation_type"));
+        dto.setDescription(rs.getString("description"));
+        dto.setAddress(rs.getString("address"));
+        dto.setLatitude(rs.getBigDecimal("latitude"));
+        dto.setLongitude(rs.getBigDecimal("longitude"));
+        dto.setContactPhone(rs.getString("contact_phone"));
+        dto.setContactEmail(rs.getString("contact_email"));
+        dto.setWebsiteUrl(rs.getString("website_url"));
+        dto.setCheckInTime(rs.getTime("check_in_time") != null ? rs.getTime("check_in_time").toLocalTime() : null);
+        dto.setCheckOutTime(rs.getTime("check_out_time") != null ? rs.getTime("check_out_time").toLocalTime() : null);
+        dto.setPricePerNight(rs.getBigDecimal("price_per_night"));
+        dto.setCurrency(rs.getString("currency"));
+        dto.setAmenities(rs.getString("amenities"));
+        dto.setRoomTypes(rs.getString("room_types"));
+        dto.setCancellationPolicy(rs.getString("cancellation_policy"));
+        // Parse photos JSON array if exists
+        String photosJson = rs.getString("photos");
+        if (photosJson != null && !photosJson.isEmpty()) {
+            // Simple JSON array parsing - can be improved with Jackson if needed
+            dto.setPhotos(java.util.Arrays.asList(photosJson.replaceAll("[\\[\\]\"]", "").split(",")));
+        }
+        dto.setCreatedAt(rs.getTimestamp("created_at") != null ? rs.getTimestamp("created_at").toLocalDateTime() : null);
+        dto.setUpdatedAt(rs.getTimestamp("updated_at") != null ? rs.getTimestamp("updated_at").toLocalDateTime() : null);
+        
+        // Trip-specific fields
+        dto.setCheckInDate(rs.getDate("check_in_date") != null ? rs.getDate("check_in_date").toLocalDate() : null);
+        dto.setCheckOutDate(rs.getDate("check_out_date") != null ? rs.getDate("check_out_date").toLocalDate() : null);
+        dto.setNumberOfRooms(rs.getInt("number_of_rooms"));
+        dto.setRoomType(rs.getString("room_type"));
+        
+        // Calculate total cost if not set
+        java.math.BigDecimal totalCost = rs.getBigDecimal("total_cost");
+        if (totalCost == null && dto.getPricePerNight() != null) {
+            int rooms = dto.getNumberOfRooms() > 0 ? dto.getNumberOfRooms() : 1;
+            // Estimate 7 days if no dates set, otherwise calculate days
+            int nights = 7;
+            if (dto.getCheckInDate() != null && dto.getCheckOutDate() != null) {
+                nights = (int) java.time.temporal.ChronoUnit.DAYS.between(dto.getCheckInDate(), dto.getCheckOutDate());
+            }
+            totalCost = dto.getPricePerNight().multiply(java.math.BigDecimal.valueOf(rooms * nights));
+        }
+        dto.setTotalCost(totalCost);
+        
+        dto.setBookingStatus(rs.getString("booking_status"));
+        dto.setBookingReference(rs.getString("booking_reference"));
+        dto.setSpecialRequests(rs.getString("special_requests"));
+        
+        return dto;
+    };
+
+    private final RowMapper<com.porikroma.dto.TransportDto> tripTransportRowMapper = (rs, rowNum) -> {
+        com.porikroma.dto.TransportDto dto = new com.porikroma.dto.TransportDto();
+        dto.setTransportId(rs.getLong("transport_id"));
+        dto.setDestinationId(rs.getLong("destination_id"));
+        dto.setDestinationName(rs.getString("destination_name"));
+        dto.setTransportType(rs.getString("transport_type"));
+        dto.setOperatorName(rs.getString("operator_name"));
+        dto.setRouteFrom(rs.getString("route_from"));
+        dto.setRouteTo(rs.getString("route_to"));
+        dto.setDepartureTime(rs.getTime("departure_time") != null ? rs.getTime("departure_time").toLocalTime() : null);
+        dto.setArrivalTime(rs.getTime("arrival_time") != null ? rs.getTime("arrival_time").toLocalTime() : null);
+        dto.setDurationMinutes(rs.getInt("duration_minutes"));
+        dto.setPrice(rs.getBigDecimal("price"));
+        dto.setCurrency(rs.getString("currency"));
+        dto.setSeatTypes(rs.getString("seat_types"));
+        dto.setAmenities(rs.getString("amenities"));
+        dto.setBookingInfo(rs.getString("booking_info"));
+        dto.setContactPhone(rs.getString("contact_phone"));
+        dto.setContactEmail(rs.getString("contact_email"));
+        dto.setWebsiteUrl(rs.getString("website_url"));
+        dto.setFrequency(rs.getString("frequency"));
+        dto.setSeasonalAvailability(rs.getString("seasonal_availability"));
+        dto.setCreatedAt(rs.getTimestamp("created_at") != null ? rs.getTimestamp("created_at").toLocalDateTime() : null);
+        dto.setUpdatedAt(rs.getTimestamp("updated_at") != null ? rs.getTimestamp("updated_at").toLocalDateTime() : null);
+        
+        // Trip-specific fields
+        dto.setJourneyType(rs.getString("journey_type"));
+        dto.setTravelDate(rs.getDate("travel_date") != null ? rs.getDate("travel_date").toLocalDate() : null);
+        dto.setTripDepartureTime(rs.getTime("trip_departure_time") != null ? rs.getTime("trip_departure_time").toLocalTime() : null);
+        dto.setTripArrivalTime(rs.getTime("trip_arrival_time") != null ? rs.getTime("trip_arrival_time").toLocalTime() : null);
+        dto.setNumberOfPassengers(rs.getInt("number_of_passengers"));
+        dto.setSeatPreference(rs.getString("seat_preference"));
+        
+        // Calculate total cost if not set
+        java.math.BigDecimal totalCost = rs.getBigDecimal("total_cost");
+        if (totalCost == null && dto.getPrice() != null) {
+            int passengers = dto.getNumberOfPassengers() > 0 ? dto.getNumberOfPassengers() : 1;
+            totalCost = dto.getPrice().multiply(java.math.BigDecimal.valueOf(passengers));
+        }
+        dto.setTotalCost(totalCost);
+        
+        dto.setBookingStatus(rs.getString("booking_status"));
+        dto.setBookingReference(rs.getString("booking_reference"));
+        
+        return dto;
+    };
+
+    private final RowMapper<com.porikroma.dto.ExpenseDto> tripExpenseRowMapper = (rs, rowNum) -> {
+        com.porikroma.dto.ExpenseDto dto = new com.porikroma.dto.ExpenseDto();
+        dto.setExpenseId(rs.getLong("expense_id"));
+        dto.setTripId(rs.getLong("trip_id"));
+        dto.setPaidByUserId(rs.getLong("paid_by_user_id"));
+        dto.setExpenseCategory(rs.getString("expense_category"));
+        dto.setDescription(rs.getString("description"));
+        dto.setAmount(rs.getBigDecimal("amount"));
+        dto.setCurrency(rs.getString("currency"));
+        dto.setExpenseDate(rs.getDate("expense_date").toLocalDate());
+        return dto;
+    };
+
     @Override
     public List<TripDto> findAll() {
         String sql = "SELECT * FROM trips ORDER BY created_at DESC";
@@ -238,17 +485,7 @@ public class TripRepositoryImpl implements TripRepository {
 
     @Override
     public Optional<TripDto> findById(Long tripId) {
-        String sql = """
-            SELECT t.*, 
-                   d.destination_name as destination_name,
-                   u.first_name as creator_first_name,
-                   u.last_name as creator_last_name
-            FROM trips t
-            LEFT JOIN destinations d ON t.destination_id = d.destination_id
-            LEFT JOIN users u ON t.creator_user_id = u.user_id
-            WHERE t.trip_id = ?
-            """;
-        List<TripDto> trips = jdbcTemplate.query(sql, enhancedTripRowMapper, tripId);
+        List<TripDto> trips = jdbcTemplate.query(TRIP_DETAIL_SQL, enhancedTripRowMapper, tripId);
         return trips.isEmpty() ? Optional.empty() : Optional.of(trips.get(0));
     }
 
@@ -275,6 +512,69 @@ public class TripRepositoryImpl implements TripRepository {
         return jdbcTemplate.query(sql, tripRowMapper, status);
     }
 
+    @Override
+    public CursorPageDto<TripDto> findAllPage(TripCursor cursor, int limit) {
+        return queryTripPage("SELECT t.* FROM trips t WHERE 1 = 1", new ArrayList<>(), cursor, limit);
+    }
+
+    @Override
+    public CursorPageDto<TripDto> findByUserIdPage(Long userId, TripCursor cursor, int limit) {
+        // Sorted on trip_members' copy of the trip's created_at, so the page is read in order from
+        // idx_trip_members_user_created and only limit + 1 trips are joined
+        String sql = """
+            SELECT t.* FROM trip_members tm
+            INNER JOIN trips t ON t.trip_id = tm.trip_id
+            WHERE tm.user_id = ? AND tm.invitation_status = 'ACCEPTED'
+            """;
+        return queryTripPage(sql, "tm.trip_created_at", "tm.trip_id", new ArrayList<>(List.of(userId)), cursor, limit);
+    }
+
+    @Override
+    public CursorPageDto<TripDto> findByStatusPage(String status, TripCursor cursor, int limit) {
+        return queryTripPage("SELECT t.* FROM trips t WHERE t.status = ?", new ArrayList<>(List.of(status)), cursor, limit);
+    }
+
+    @Override
+    public CursorPageDto<TripDto> findByDestinationIdPage(Long destinationId, TripCursor cursor, int limit) {
+        return queryTripPage("SELECT t.* FROM trips t WHERE t.destination_id = ?",
+                new ArrayList<>(List.of(destinationId)), cursor, limit);
+    }
+
+    @Override
+    public CursorPageDto<TripDto> findByStatusAndDestinationIdPage(String status, Long destinationId, TripCursor cursor, int limit) {
+        // Seeks on idx_trips_destination_created and filters status along the way
+        return queryTripPage("SELECT t.* FROM trips t WHERE t.destination_id = ? AND t.status = ?",
+                new ArrayList<>(List.of(destinationId, status)), cursor, limit);
+    }
+
+    private CursorPageDto<TripDto> queryTripPage(String baseSql, List<Object> args, TripCursor cursor, int limit) {
+        return queryTripPage(baseSql, "t.created_at", "t.trip_id", args, cursor, limit);
+    }
+
+    // Seeks past the cursor instead of using OFFSET, so every page is an index range scan of limit + 1 rows
+    private CursorPageDto<TripDto> queryTripPage(String baseSql, String createdAtColumn, String tripIdColumn,
+                                                 List<Object> args, TripCursor cursor, int limit) {
+        StringBuilder sql = new StringBuilder(baseSql);
+        if (cursor != null) {
+            Timestamp createdAt = Timestamp.valueOf(cursor.getCreatedAt());
+            sql.append(" AND (%1$s < ? OR (%1$s = ? AND %2$s < ?))".formatted(createdAtColumn, tripIdColumn));
+            args.add(createdAt);
+            args.add(createdAt);
+            args.add(cursor.getTripId());
+        }
+        sql.append(" ORDER BY %s DESC, %s DESC LIMIT ?".formatted(createdAtColumn, tripIdColumn));
+        args.add(limit + 1);
+
+        List<TripDto> trips = jdbcTemplate.query(sql.toString(), tripRowMapper, args.toArray());
+        boolean hasMore = trips.size() > limit;
+        List<TripDto> items = hasMore ? new ArrayList<>(trips.subList(0, limit)) : trips;
+        return CursorPageDto.<TripDto>builder()
+                .items(items)
+                .nextCursor(hasMore ? TripCursor.encode(items.get(items.size() - 1)) : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
     @Override
     public List<TripDto> findPublicTrips() {
         String sql = "SELECT * FROM trips WHERE is_public = true ORDER BY created_at DESC";
@@ -287,6 +587,36 @@ public class TripRepositoryImpl implements TripRepository {
         return jdbcTemplate.query(sql, tripRowMapper, startDate, endDate);
     }
 
+    @Override
+    public List<TripDto> findDateRanges() {
+        String sql = "SELECT trip_id, start_date, end_date FROM trips WHERE start_date IS NOT NULL AND end_date IS NOT NULL";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            TripDto trip = new TripDto();
+            trip.setTripId(rs.getLong("trip_id"));
+            trip.setStartDate(rs.getDate("start_date").toLocalDate());
+            trip.setEndDate(rs.getDate("end_date").toLocalDate());
+            return trip;
+        });
+    }
+
+    @Override
+    public List<TripDto> findByIds(List<Long> tripIds) {
+        if (tripIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // Bounded IN lists, so a large date-index hit doesn't become one huge statement
+        List<TripDto> trips = new ArrayList<>();
+        for (int from = 0; from < tripIds.size(); from += FIND_BY_IDS_CHUNK) {
+            List<Long> chunk = tripIds.subList(from, Math.min(from + FIND_BY_IDS_CHUNK, tripIds.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            String sql = "SELECT * FROM trips WHERE trip_id IN (" + placeholders + ")";
+            trips.addAll(jdbcTemplate.query(sql, tripRowMapper, chunk.toArray()));
+        }
+        trips.sort(Comparator.comparing(TripDto::getStartDate, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(TripDto::getTripId));
+        return trips;
+    }
+
     @Override
     public TripDto save(TripDto trip) {
         String sql = """
@@ -315,6 +645,114 @@ public class TripRepositoryImpl implements TripRepository {
         return trip;
     }
 
+    @Override
+    public Long cloneTrip(Long sourceTripId, Long creatorUserId, String tripName, int shiftDays) {
+        String tripSql = """
+            INSERT INTO trips (trip_name, destination_id, creator_user_id, trip_photo_url, start_date, end_date, 
+            trip_budget, status, created_at, updated_at) 
+            SELECT COALESCE(?, CONCAT(trip_name, ' (copy)')), destination_id, ?, trip_photo_url, 
+                   DATE_ADD(start_date, INTERVAL ? DAY), DATE_ADD(end_date, INTERVAL ? DAY), 
+                   trip_budget, 'PLANNING', NOW(), NOW() 
+            FROM trips WHERE trip_id = ?
+            """;
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(tripSql, Statement.RETURN_GENERATED_KEYS);
+            ps.setString(1, tripName);
+            ps.setLong(2, creatorUserId);
+            ps.setInt(3, shiftDays);
+            ps.setInt(4, shiftDays);
+            ps.setLong(5, sourceTripId);
+            return ps;
+        }, keyHolder);
+        Long tripId = keyHolder.getKey().longValue();
+
+        // Plan items are copied set-based; bookings are not transferable so statuses reset to PLANNED
+        jdbcTemplate.update("""
+            INSERT INTO trip_subdestinations (trip_id, sub_destination_id, estimated_cost, status, notes, created_at) 
+            SELECT ?, sub_destination_id, estimated_cost, 'PLANNED', notes, NOW() 
+            FROM trip_subdestinations WHERE trip_id = ?
+            """, tripId, sourceTripId);
+        jdbcTemplate.update("""
+            INSERT INTO trip_accommodations (trip_id, accommodation_id, check_in_date, check_out_date, number_of_rooms, 
+            room_type, total_cost, booking_status, special_requests, created_at, updated_at) 
+            SELECT ?, accommodation_id, DATE_ADD(check_in_date, INTERVAL ? DAY), DATE_ADD(check_out_date, INTERVAL ? DAY), 
+                   number_of_rooms, room_type, total_cost, 'PLANNED', special_requests, NOW(), NOW() 
+            FROM trip_accommodations WHERE trip_id = ?
+            """, tripId, shiftDays, shiftDays, sourceTripId);
+        jdbcTemplate.update("""
+            INSERT INTO trip_transport (trip_id, transport_id, journey_type, travel_date, departure_time, arrival_time, 
+            number_of_passengers, seat_preference, total_cost, booking_status, created_at, updated_at) 
+            SELECT ?, transport_id, journey_type, DATE_ADD(travel_date, INTERVAL ? DAY), departure_time, arrival_time, 
+                   number_of_passengers, seat_preference, total_cost, 'PLANNED', NOW(), NOW() 
+            FROM trip_transport WHERE trip_id = ?
+            """, tripId, shiftDays, sourceTripId);
+        return tripId;
+    }
+
+    @Override
+    public List<Long> findTripIdsDueForStatus(String targetStatus, LocalDate today, int limit) {
+        String sql = "SELECT trip_id FROM trips WHERE " + dueCondition(targetStatus) + " LIMIT ?";
+        List<Object> args = dueArgs(targetStatus, today);
+        args.add(limit);
+        return jdbcTemplate.queryForList(sql, Long.class, args.toArray());
+    }
+
+    @Override
+    public int updateStatusIfDue(List<Long> tripIds, String targetStatus, LocalDate today) {
+        if (tripIds.isEmpty()) {
+            return 0;
+        }
+        // Re-checks the condition so a trip edited since it was selected is left alone
+        String placeholders = String.join(",", Collections.nCopies(tripIds.size(), "?"));
+        String sql = "UPDATE trips SET status = ?, version = version + 1, updated_at = NOW() " +
+            "WHERE trip_id IN (" + placeholders + ") AND " + dueCondition(targetStatus);
+        List<Object> args = new ArrayList<>();
+        args.add(targetStatus);
+        args.addAll(tripIds);
+        args.addAll(dueArgs(targetStatus, today));
+        return jdbcTemplate.update(sql, args.toArray());
+    }
+
+    // Served by idx_trips_status_start / idx_trips_status_end
+    private String dueCondition(String targetStatus) {
+        return switch (targetStatus) {
+            case "ONGOING" -> "status IN ('PLANNING', 'CONFIRMED') AND start_date <= ? AND end_date >= ?";
+            case "COMPLETED" -> "status IN ('PLANNING', 'CONFIRMED', 'ONGOING') AND end_date < ?";
+            default -> throw new IllegalArgumentException("No scheduled transition to " + targetStatus);
+        };
+    }
+
+    private List<Object> dueArgs(String targetStatus, LocalDate today) {
+        List<Object> args = new ArrayList<>();
+        args.add(java.sql.Date.valueOf(today));
+        if ("ONGOING".equals(targetStatus)) {
+            args.add(java.sql.Date.valueOf(today));
+        }
+        return args;
+    }
+
+    @Override
+    public Map<Long, List<Long>> findAcceptedMemberIdsByTripIds(List<Long> tripIds) {
+        Map<Long, List<Long>> members = new HashMap<>();
+        if (tripIds.isEmpty()) {
+            return members;
+        }
+        String placeholders = String.join(",", Collections.nCopies(tripIds.size(), "?"));
+        String sql = "SELECT trip_id, user_id FROM trip_members WHERE invitation_status = 'ACCEPTED' AND trip_id IN (" + placeholders + ")";
+        jdbcTemplate.query(sql, rs -> {
+            members.computeIfAbsent(rs.getLong("trip_id"), id -> new ArrayList<>()).add(rs.getLong("user_id"));
+        }, tripIds.toArray());
+        return members;
+    }
+
+    @Override
+    public boolean isPublicTrip(Long tripId) {
+        String sql = "SELECT COUNT(*) FROM trips WHERE trip_id = ? AND is_public = true";
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, tripId);
+        return count != null && count > 0;
+    }
+
     @Override
     public TripDto update(Long tripId, TripDto trip) {
         String sql = """
@@ -344,6 +782,22 @@ public class TripRepositoryImpl implements TripRepository {
         jdbcTemplate.update(sql, tripId);
     }
 
+    @Override
+    public Optional<Long> findVersionById(Long tripId) {
+        List<Long> versions = jdbcTemplate.queryForList("SELECT version FROM trips WHERE trip_id = ?", Long.class, tripId);
+        return versions.isEmpty() ? Optional.empty() : Optional.of(versions.get(0));
+    }
+
+    @Override
+    public void incrementVersion(Long tripId) {
+        jdbcTemplate.update("UPDATE trips SET version = version + 1 WHERE trip_id = ?", tripId);
+    }
+
+    @Override
+    public void lockById(Long tripId) {
+        jdbcTemplate.queryForList("SELECT trip_id FROM trips WHERE trip_id = ? FOR UPDATE", Long.class, tripId);
+    }
+
     @Override
     public boolean existsById(Long tripId) {
         String sql = "SELECT COUNT(*) FROM trips WHERE trip_id = ?";
@@ -367,28 +821,28 @@ public class TripRepositoryImpl implements TripRepository {
 
     @Override
     public List<TripDto> findPopularTrips(int limit) {
-        String sql = """
-            SELECT t.*, COUNT(tm.user_id) as member_count 
-            FROM trips t 
-            LEFT JOIN trip_members tm ON t.trip_id = tm.trip_id 
-            WHERE t.is_public = true 
-            GROUP BY t.trip_id 
-            ORDER BY member_count DESC, t.created_at DESC 
+        String sql = POPULAR_TRIPS_SQL.formatted("") + """
+            ORDER BY member_count DESC, t.created_at DESC, t.trip_id DESC 
             LIMIT ?
             """;
-        return jdbcTemplate.query(sql, tripRowMapper, limit);
+        return jdbcTemplate.query(sql, popularTripRowMapper, limit);
+    }
+
+    @Override
+    public Optional<TripDto> findPopularTripById(Long tripId) {
+        List<TripDto> trips = jdbcTemplate.query(POPULAR_TRIPS_SQL.formatted("AND t.trip_id = ?"), popularTripRowMapper, tripId);
+        return trips.isEmpty() ? Optional.empty() : Optional.of(trips.get(0));
     }
 
     @Override
     public List<TripDto> findRecentTrips(int limit) {
-        String sql = "SELECT * FROM trips ORDER BY created_at DESC LIMIT ?";
-        return jdbcTemplate.query(sql, tripRowMapper, limit);
+        return findAllPage(null, limit).getItems();
     }
 
     // Additional methods for admin analytics
     @Override
     public long countActiveTrips() {
-        return countByStatus("ACTIVE");
+        return countByStatus("ONGOING");
     }
 
     @Override
@@ -420,36 +874,35 @@ public class TripRepositoryImpl implements TripRepository {
     @Override
     public void addMember(TripMemberDto member) {
         String sql = """
-            INSERT INTO trip_members (trip_id, user_id, member_role, invitation_status, invited_at) 
-            VALUES (?, ?, ?, ?, ?)
+            INSERT INTO trip_members (trip_id, user_id, member_role, invitation_status, invited_at, trip_created_at) 
+            SELECT ?, ?, ?, ?, ?, created_at FROM trips WHERE trip_id = ?
             """;
         jdbcTemplate.update(sql, 
             member.getTripId(),
             member.getUserId(),
             member.getMemberRole(),
             member.getInvitationStatus(),
-            java.sql.Timestamp.valueOf(member.getInvitedAt())
+            java.sql.Timestamp.valueOf(member.getInvitedAt()),
+            member.getTripId()
         );
     }
 
     @Override
     public List<TripMemberDto> findMembersByTripId(Long tripId) {
-        String sql = """
-            SELECT tm.*, 
-                   u.first_name as user_first_name,
-                   u.last_name as user_last_name,
-                   u.email as user_email,
-                   u.profile_picture_url as user_profile_picture,
-                   inv.first_name as inviter_first_name,
-                   inv.last_name as inviter_last_name
-            FROM trip_members tm
-            LEFT JOIN users u ON tm.user_id = u.user_id
-            LEFT JOIN users inv ON tm.invited_by = inv.user_id
-            WHERE tm.trip_id = ? 
-            ORDER BY tm.invited_at
-            """;
         
-        return jdbcTemplate.query(sql, enhancedMemberRowMapper, tripId);
+        return jdbcTemplate.query(TRIP_MEMBERS_SQL, enhancedMemberRowMapper, tripId);
+    }
+
+    @Override
+    public List<TripMemberDto> findRosterByTripId(Long tripId) {
+        // Only the columns needed for authorization checks, no user joins
+        String sql = "SELECT user_id, member_role, invitation_status FROM trip_members WHERE trip_id = ?";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> TripMemberDto.builder()
+            .tripId(tripId)
+            .userId(rs.getLong("user_id"))
+            .memberRole(rs.getString("member_role"))
+            .invitationStatus(rs.getString("invitation_status"))
+            .build(), tripId);
     }
 
     @Override
@@ -482,6 +935,74 @@ public class TripRepositoryImpl implements TripRepository {
         return invitation;
     }
 
+    @Override
+    public List<TripInvitationDto> saveInvitations(List<TripInvitationDto> invitations) {
+        if (invitations.isEmpty()) {
+            return invitations;
+        }
+        String sql = """
+            INSERT INTO trip_invitations (trip_id, inviter_user_id, invitee_user_id, invitation_message, status, invited_at) 
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+        // One rewritten multi-row INSERT; MySQL hands back consecutive keys for every row
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+            connection -> connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS),
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    TripInvitationDto invitation = invitations.get(i);
+                    ps.setLong(1, invitation.getTripId());
+                    ps.setLong(2, invitation.getInviterUserId());
+                    ps.setLong(3, invitation.getInviteeUserId());
+                    ps.setString(4, invitation.getInvitationMessage());
+                    ps.setString(5, invitation.getStatus());
+                    ps.setTimestamp(6, Timestamp.valueOf(invitation.getInvitedAt()));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return invitations.size();
+                }
+            },
+            keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < invitations.size(); i++) {
+            invitations.get(i).setInvitationId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+        return invitations;
+    }
+
+    @Override
+    public Map<Long, String> findInviteeStates(Long tripId, List<Long> userIds) {
+        Map<Long, String> states = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return states;
+        }
+        String placeholders = String.join(",", Collections.nCopies(userIds.size(), "?"));
+        String sql = """
+            SELECT u.user_id,
+                   EXISTS (SELECT 1 FROM trip_members tm WHERE tm.trip_id = ? AND tm.user_id = u.user_id
+                           AND tm.invitation_status = 'ACCEPTED') AS is_member,
+                   EXISTS (SELECT 1 FROM trip_invitations ti WHERE ti.trip_id = ? AND ti.invitee_user_id = u.user_id
+                           AND ti.status = 'PENDING') AS is_invited
+            FROM users u
+            WHERE u.is_deleted = false AND u.user_id IN (%s)
+            """.formatted(placeholders);
+        List<Object> args = new ArrayList<>();
+        args.add(tripId);
+        args.add(tripId);
+        args.addAll(userIds);
+        jdbcTemplate.query(sql, rs -> {
+            String state = rs.getBoolean("is_member") ? "ALREADY_MEMBER"
+                : rs.getBoolean("is_invited") ? "ALREADY_INVITED" : "ELIGIBLE";
+            states.put(rs.getLong("user_id"), state);
+        }, args.toArray());
+        return states;
+    }
+
     @Override
     public Optional<TripInvitationDto> findInvitationById(Long invitationId) {
         String sql = "SELECT * FROM trip_invitations WHERE invitation_id = ?";
@@ -522,222 +1043,48 @@ public class TripRepositoryImpl implements TripRepository {
 
     // Trip features - Real implementations
     @Override
-    public void addSubDestinations(Long tripId, List<Long> subDestinationIds) {
+    public BatchInsertResultDto addSubDestinations(Long tripId, List<Long> subDestinationIds) {
         String sql = "INSERT IGNORE INTO trip_subdestinations (trip_id, sub_destination_id, status, created_at) VALUES (?, ?, 'PLANNED', NOW())";
-        for (Long subDestinationId : subDestinationIds) {
-            jdbcTemplate.update(sql, tripId, subDestinationId);
-        }
+        return BatchInsertSupport.insertMissing(jdbcTemplate, "sub_destinations", "sub_destination_id",
+            "trips", "trip_subdestinations", "trip_id", tripId, subDestinationIds,
+            sql, subDestinationId -> new Object[] { tripId, subDestinationId });
     }
 
     @Override
-    public void addAccommodations(Long tripId, List<Long> accommodationIds) {
+    public BatchInsertResultDto addAccommodations(Long tripId, List<Long> accommodationIds) {
         String sql = "INSERT IGNORE INTO trip_accommodations (trip_id, accommodation_id, booking_status, created_at, updated_at) VALUES (?, ?, 'PLANNED', NOW(), NOW())";
-        for (Long accommodationId : accommodationIds) {
-            jdbcTemplate.update(sql, tripId, accommodationId);
-        }
+        return BatchInsertSupport.insertMissing(jdbcTemplate, "accommodations", "accommodation_id",
+            "trips", "trip_accommodations", "trip_id", tripId, accommodationIds,
+            sql, accommodationId -> new Object[] { tripId, accommodationId });
     }
 
     @Override
-    public void addTransports(Long tripId, List<Long> transportIds) {
+    public BatchInsertResultDto addTransports(Long tripId, List<Long> transportIds) {
         String sql = "INSERT IGNORE INTO trip_transport (trip_id, transport_id, booking_status, created_at, updated_at) VALUES (?, ?, 'PLANNED', NOW(), NOW())";
-        for (Long transportId : transportIds) {
-            jdbcTemplate.update(sql, tripId, transportId);
-        }
+        return BatchInsertSupport.insertMissing(jdbcTemplate, "transport", "transport_id",
+            "trips", "trip_transport", "trip_id", tripId, transportIds,
+            sql, transportId -> new Object[] { tripId, transportId });
     }
 
     // Trip data retrieval implementations
     @Override
     public List<com.porikroma.dto.SubDestinationDto> findSubDestinationsByTripId(Long tripId) {
-        String sql = """
-            SELECT sd.*, ts.estimated_cost, ts.status, ts.notes, d.destination_name
-            FROM trip_subdestinations ts
-            JOIN sub_destinations sd ON ts.sub_destination_id = sd.sub_destination_id
-            JOIN destinations d ON sd.destination_id = d.destination_id
-            WHERE ts.trip_id = ?
-            ORDER BY sd.sub_destination_name
-            """;
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
-            com.porikroma.dto.SubDestinationDto dto = new com.porikroma.dto.SubDestinationDto();
-            dto.setSubDestinationId(rs.getLong("sub_destination_id"));
-            dto.setDestinationId(rs.getLong("destination_id"));
-            dto.setDestinationName(rs.getString("destination_name"));
-            dto.setSubDestinationName(rs.getString("sub_destination_name"));
-            dto.setCategory(rs.getString("category"));
-            dto.setDescription(rs.getString("description"));
-            dto.setFeaturedImage(rs.getString("featured_image"));
-            dto.setAddress(rs.getString("address"));
-            dto.setLatitude(rs.getBigDecimal("latitude"));
-            dto.setLongitude(rs.getBigDecimal("longitude"));
-            dto.setEntryFee(rs.getBigDecimal("entry_fee"));
-            dto.setOpeningHours(rs.getString("opening_hours"));
-            dto.setContactPhone(rs.getString("contact_phone"));
-            dto.setContactEmail(rs.getString("contact_email"));
-            dto.setWebsiteUrl(rs.getString("website_url"));
-            dto.setDurationHours(rs.getBigDecimal("duration_hours"));
-            dto.setDifficultyLevel(rs.getString("difficulty_level"));
-            dto.setAccessibilityInfo(rs.getString("accessibility_info"));
-            dto.setBestVisitTime(rs.getString("best_visit_time"));
-            dto.setFacilities(rs.getString("facilities"));
-            dto.setCreatedAt(rs.getTimestamp("created_at") != null ? rs.getTimestamp("created_at").toLocalDateTime() : null);
-            dto.setUpdatedAt(rs.getTimestamp("updated_at") != null ? rs.getTimestamp("updated_at").toLocalDateTime() : null);
-            
-            // Trip-specific fields from trip_subdestinations table
-            dto.setEstimatedCost(rs.getBigDecimal("estimated_cost"));
-            dto.setStatus(rs.getString("status"));
-            dto.setNotes(rs.getString("notes"));
-            
-            return dto;
-        }, tripId);
+        return jdbcTemplate.query(TRIP_SUB_DESTINATIONS_SQL, tripSubDestinationRowMapper, tripId);
     }
 
     @Override
     public List<com.porikroma.dto.AccommodationDto> findAccommodationsByTripId(Long tripId) {
-        String sql = """
-            SELECT a.*, ta.check_in_date, ta.check_out_date, ta.number_of_rooms, 
-                   ta.room_type, ta.total_cost, ta.booking_status, ta.booking_reference, 
-                   ta.special_requests, d.destination_name
-            FROM trip_accommodations ta
-            JOIN accommodations a ON ta.accommodation_id = a.accommodation_id
-            JOIN destinations d ON a.destination_id = d.destination_id
-            WHERE ta.trip_id = ?
-            ORDER BY a.accommodation_name
-            """;
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
-            com.porikroma.dto.AccommodationDto dto = new com.porikroma.dto.AccommodationDto();
-            dto.setAccommodationId(rs.getLong("accommodation_id"));
-            dto.setDestinationId(rs.getLong("destination_id"));
-            dto.setDestinationName(rs.getString("destination_name"));
-            dto.setAccommodationName(rs.getString("accommodation_name"));
-            dto.setAccommodationType(rs.getString("accommodation_type"));
-            dto.setDescription(rs.getString("description"));
-            dto.setAddress(rs.getString("address"));
-            dto.setLatitude(rs.getBigDecimal("latitude"));
-            dto.setLongitude(rs.getBigDecimal("longitude"));
-            dto.setContactPhone(rs.getString("contact_phone"));
-            dto.setContactEmail(rs.getString("contact_email"));
-            dto.setWebsiteUrl(rs.getString("website_url"));
-            dto.setCheckInTime(rs.getTime("check_in_time") != null ? rs.getTime("check_in_time").toLocalTime() : null);
-            dto.setCheckOutTime(rs.getTime("check_out_time") != null ? rs.getTime("check_out_time").toLocalTime() : null);
-            dto.setPricePerNight(rs.getBigDecimal("price_per_night"));
-            dto.setCurrency(rs.getString("currency"));
-            dto.setAmenities(rs.getString("amenities"));
-            dto.setRoomTypes(rs.getString("room_types"));
-            dto.setCancellationPolicy(rs.getString("cancellation_policy"));
-            // Parse photos JSON array if exists
-            String photosJson = rs.getString("photos");
-            if (photosJson != null && !photosJson.isEmpty()) {
-                // Simple JSON array parsing - can be improved with Jackson if needed
-                dto.setPhotos(java.util.Arrays.asList(photosJson.replaceAll("[\\[\\]\"]", "").split(",")));
-            }
-            dto.setCreatedAt(rs.getTimestamp("created_at") != null ? rs.getTimestamp("created_at").toLocalDateTime() : null);
-            dto.setUpdatedAt(rs.getTimestamp("updated_at") != null ? rs.getTimestamp("updated_at").toLocalDateTime() : null);
-            
-            // Trip-specific fields
-            dto.setCheckInDate(rs.getDate("check_in_date") != null ? rs.getDate("check_in_date").toLocalDate() : null);
-            dto.setCheckOutDate(rs.getDate("check_out_date") != null ? rs.getDate("check_out_date").toLocalDate() : null);
-            dto.setNumberOfRooms(rs.getInt("number_of_rooms"));
-            dto.setRoomType(rs.getString("room_type"));
-            
-            // Calculate total cost if not set
-            java.math.BigDecimal totalCost = rs.getBigDecimal("total_cost");
-            if (totalCost == null && dto.getPricePerNight() != null) {
-                int rooms = dto.getNumberOfRooms() > 0 ? dto.getNumberOfRooms() : 1;
-                // Estimate 7 days if no dates set, otherwise calculate days
-                int nights = 7;
-                if (dto.getCheckInDate() != null && dto.getCheckOutDate() != null) {
-                    nights = (int) java.time.temporal.ChronoUnit.DAYS.between(dto.getCheckInDate(), dto.getCheckOutDate());
-                }
-                totalCost = dto.getPricePerNight().multiply(java.math.BigDecimal.valueOf(rooms * nights));
-            }
-            dto.setTotalCost(totalCost);
-            
-            dto.setBookingStatus(rs.getString("booking_status"));
-            dto.setBookingReference(rs.getString("booking_reference"));
-            dto.setSpecialRequests(rs.getString("special_requests"));
-            
-            return dto;
-        }, tripId);
+        return jdbcTemplate.query(TRIP_ACCOMMODATIONS_SQL, tripAccommodationRowMapper, tripId);
     }
 
     @Override
     public List<com.porikroma.dto.TransportDto> findTransportsByTripId(Long tripId) {
-        String sql = """
-            SELECT t.*, tt.journey_type, tt.travel_date, tt.departure_time as trip_departure_time, 
-                   tt.arrival_time as trip_arrival_time, tt.number_of_passengers, tt.seat_preference, 
-                   tt.total_cost, tt.booking_status, tt.booking_reference, d.destination_name
-            FROM trip_transport tt
-            JOIN transport t ON tt.transport_id = t.transport_id
-            JOIN destinations d ON t.destination_id = d.destination_id
-            WHERE tt.trip_id = ?
-            ORDER BY t.transport_type, t.operator_name
-            """;
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
-            com.porikroma.dto.TransportDto dto = new com.porikroma.dto.TransportDto();
-            dto.setTransportId(rs.getLong("transport_id"));
-            dto.setDestinationId(rs.getLong("destination_id"));
-            dto.setDestinationName(rs.getString("destination_name"));
-            dto.setTransportType(rs.getString("transport_type"));
-            dto.setOperatorName(rs.getString("operator_name"));
-            dto.setRouteFrom(rs.getString("route_from"));
-            dto.setRouteTo(rs.getString("route_to"));
-            dto.setDepartureTime(rs.getTime("departure_time") != null ? rs.getTime("departure_time").toLocalTime() : null);
-            dto.setArrivalTime(rs.getTime("arrival_time") != null ? rs.getTime("arrival_time").toLocalTime() : null);
-            dto.setDurationMinutes(rs.getInt("duration_minutes"));
-            dto.setPrice(rs.getBigDecimal("price"));
-            dto.setCurrency(rs.getString("currency"));
-            dto.setSeatTypes(rs.getString("seat_types"));
-            dto.setAmenities(rs.getString("amenities"));
-            dto.setBookingInfo(rs.getString("booking_info"));
-            dto.setContactPhone(rs.getString("contact_phone"));
-            dto.setContactEmail(rs.getString("contact_email"));
-            dto.setWebsiteUrl(rs.getString("website_url"));
-            dto.setFrequency(rs.getString("frequency"));
-            dto.setSeasonalAvailability(rs.getString("seasonal_availability"));
-            dto.setCreatedAt(rs.getTimestamp("created_at") != null ? rs.getTimestamp("created_at").toLocalDateTime() : null);
-            dto.setUpdatedAt(rs.getTimestamp("updated_at") != null ? rs.getTimestamp("updated_at").toLocalDateTime() : null);
-            
-            // Trip-specific fields
-            dto.setJourneyType(rs.getString("journey_type"));
-            dto.setTravelDate(rs.getDate("travel_date") != null ? rs.getDate("travel_date").toLocalDate() : null);
-            dto.setTripDepartureTime(rs.getTime("trip_departure_time") != null ? rs.getTime("trip_departure_time").toLocalTime() : null);
-            dto.setTripArrivalTime(rs.getTime("trip_arrival_time") != null ? rs.getTime("trip_arrival_time").toLocalTime() : null);
-            dto.setNumberOfPassengers(rs.getInt("number_of_passengers"));
-            dto.setSeatPreference(rs.getString("seat_preference"));
-            
-            // Calculate total cost if not set
-            java.math.BigDecimal totalCost = rs.getBigDecimal("total_cost");
-            if (totalCost == null && dto.getPrice() != null) {
-                int passengers = dto.getNumberOfPassengers() > 0 ? dto.getNumberOfPassengers() : 1;
-                totalCost = dto.getPrice().multiply(java.math.BigDecimal.valueOf(passengers));
-            }
-            dto.setTotalCost(totalCost);
-            
-            dto.setBookingStatus(rs.getString("booking_status"));
-            dto.setBookingReference(rs.getString("booking_reference"));
-            
-            return dto;
-        }, tripId);
+        return jdbcTemplate.query(TRIP_TRANSPORTS_SQL, tripTransportRowMapper, tripId);
     }
 
     @Override
     public List<com.porikroma.dto.ExpenseDto> findExpensesByTripId(Long tripId) {
-        String sql = """
-            SELECT * FROM trip_expenses 
-            WHERE trip_id = ?
-            ORDER BY expense_date DESC, created_at DESC
-            """;
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
-            com.porikroma.dto.ExpenseDto dto = new com.porikroma.dto.ExpenseDto();
-            dto.setExpenseId(rs.getLong("expense_id"));
-            dto.setTripId(rs.getLong("trip_id"));
-            dto.setPaidByUserId(rs.getLong("paid_by_user_id"));
-            dto.setExpenseCategory(rs.getString("expense_category"));
-            dto.setDescription(rs.getString("description"));
-            dto.setAmount(rs.getBigDecimal("amount"));
-            dto.setCurrency(rs.getString("currency"));
-            dto.setExpenseDate(rs.getDate("expense_date").toLocalDate());
-            return dto;
-        }, tripId);
+        return jdbcTemplate.query(TRIP_EXPENSES_SQL, tripExpenseRowMapper, tripId);
     }
 
     @Override
@@ -748,13 +1095,18 @@ public class TripRepositoryImpl implements TripRepository {
 
     @Override
     public java.math.BigDecimal getTotalExpensesByTripId(Long tripId) {
-        // Calculate total from actual expenses + accommodation costs + transport costs + sub-destination costs
+        // Primary key lookup on the maintained ledger; the live aggregation only covers trips not yet in it
+        List<BigDecimal> ledgerTotals = jdbcTemplate.queryForList(TRIP_COST_LEDGER_SQL, BigDecimal.class, tripId);
+        if (!ledgerTotals.isEmpty()) {
+            return ledgerTotals.get(0);
+        }
+
         String sql = """
             SELECT 
                 COALESCE(SUM(te.amount), 0) +
                 COALESCE((SELECT SUM(CASE 
                     WHEN ta.total_cost IS NOT NULL THEN ta.total_cost
-                    ELSE a.price_per_night * GREATEST(ta.number_of_rooms, 1) * 7
+                    ELSE a.price_per_night * GREATEST(ta.number_of_rooms, 1) * COALESCE(DATEDIFF(ta.check_out_date, ta.check_in_date), 7)
                 END) FROM trip_accommodations ta 
                 JOIN accommodations a ON ta.accommodation_id = a.accommodation_id 
                 WHERE ta.trip_id = ?), 0) +
@@ -774,4 +1126,76 @@ public class TripRepositoryImpl implements TripRepository {
         java.math.BigDecimal result = jdbcTemplate.queryForObject(sql, java.math.BigDecimal.class, tripId, tripId, tripId, tripId);
         return result != null ? result : java.math.BigDecimal.ZERO;
     }
-}
\ No newline at end of file
+
+    @Override
+    public Optional<TripDto> findTripAggregateById(Long tripId) {
+        // All seven statements go to MySQL in a single round trip (requires allowMultiQueries=true)
+        String sql = String.join(";\n", TRIP_DETAIL_SQL, TRIP_MEMBERS_SQL, TRIP_SUB_DESTINATIONS_SQL,
+            TRIP_ACCOMMODATIONS_SQL, TRIP_TRANSPORTS_SQL, TRIP_EXPENSES_SQL, TRIP_COST_LEDGER_SQL);
+
+        return jdbcTemplate.execute(sql, (PreparedStatementCallback<Optional<TripDto>>) ps -> {
+            for (int i = 1; i <= 7; i++) {
+                ps.setLong(i, tripId);
+            }
+            ps.execute();
+
+            List<TripDto> trips = mapCurrentResultSet(ps, enhancedTripRowMapper);
+            if (trips.isEmpty()) {
+                return Optional.empty();
+            }
+            TripDto trip = trips.get(0);
+
+            ps.getMoreResults();
+            trip.setMembers(mapCurrentResultSet(ps, enhancedMemberRowMapper));
+            ps.getMoreResults();
+            trip.setSubDestinations(mapCurrentResultSet(ps, tripSubDestinationRowMapper));
+            ps.getMoreResults();
+            trip.setAccommodations(mapCurrentResultSet(ps, tripAccommodationRowMapper));
+            ps.getMoreResults();
+            trip.setTransports(mapCurrentResultSet(ps, tripTransportRowMapper));
+            ps.getMoreResults();
+            trip.setExpenses(mapCurrentResultSet(ps, tripExpenseRowMapper));
+            ps.getMoreResults();
+            List<BigDecimal> ledgerTotals = mapCurrentResultSet(ps, (rs, rowNum) -> rs.getBigDecimal("total_cost"));
+
+            // Derived from the loaded rows instead of separate COUNT/SUM queries
+            trip.setMemberCount(trip.getMembers().size());
+            trip.setTotalExpenses(ledgerTotals.isEmpty() ? sumTripCost(trip) : ledgerTotals.get(0));
+            return Optional.of(trip);
+        });
+    }
+
+    private <T> List<T> mapCurrentResultSet(PreparedStatement ps, RowMapper<T> rowMapper) throws SQLException {
+        try (ResultSet rs = ps.getResultSet()) {
+            return new RowMapperResultSetExtractor<>(rowMapper).extractData(rs);
+        }
+    }
+
+    // Fallback for trips without a ledger row: expenses + accommodations + transport + sub-destinations
+    private BigDecimal sumTripCost(TripDto trip) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (com.porikroma.dto.ExpenseDto expense : trip.getExpenses()) {
+            if (expense.getAmount() != null) {
+                total = total.add(expense.getAmount());
+            }
+        }
+        for (com.porikroma.dto.AccommodationDto accommodation : trip.getAccommodations()) {
+            if (accommodation.getTotalCost() != null) {
+                total = total.add(accommodation.getTotalCost());
+            }
+        }
+        for (com.porikroma.dto.TransportDto transport : trip.getTransports()) {
+            if (transport.getTotalCost() != null) {
+                total = total.add(transport.getTotalCost());
+            }
+        }
+        for (com.porikroma.dto.SubDestinationDto subDestination : trip.getSubDestinations()) {
+            if (subDestination.getEstimatedCost() != null) {
+                total = total.add(subDestination.getEstimatedCost());
+            } else if (subDestination.getEntryFee() != null) {
+                total = total.add(subDestination.getEntryFee());
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,11 @@
+package com.porikroma.repository;
+
+import com.porikroma.dto.UserProfileDto;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface UserProfileRepository {
+    // Includes soft-deleted users, whose old messages still show their name
+    List<UserProfileDto> findByIds(Collection<Long> userIds);
+}
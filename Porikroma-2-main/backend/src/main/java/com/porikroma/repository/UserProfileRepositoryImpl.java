@@ -0,0 +1,32 @@
+package com.porikroma.repository;
+
+import com.porikroma.dto.UserProfileDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+@Repository
+public class UserProfileRepositoryImpl implements UserProfileRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<UserProfileDto> findByIds(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(",", Collections.nCopies(userIds.size(), "?"));
+        String sql = "SELECT user_id, first_name, last_name, profile_picture_url FROM users WHERE user_id IN (" + placeholders + ")";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> UserProfileDto.builder()
+                .userId(rs.getLong("user_id"))
+                .firstName(rs.getString("first_name"))
+                .lastName(rs.getString("last_name"))
+                .profilePictureUrl(rs.getString("profile_picture_url"))
+                .build(), userIds.toArray());
+    }
+}
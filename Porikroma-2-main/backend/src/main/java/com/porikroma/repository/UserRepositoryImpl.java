@@ -1,6 +1,7 @@
 package com.porikroma.repository;
 
 import com.porikroma.dto.UserDto;
+import com.porikroma.service.UserProfileCache;
 import com.porikroma.util.UserRowMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
@@ -21,6 +22,9 @@ public class UserRepositoryImpl implements UserRepository {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private UserProfileCache userProfileCache;
+
     private final UserRowMapper userRowMapper = new UserRowMapper();
 
     @Override
@@ -130,6 +134,7 @@ public class UserRepositoryImpl implements UserRepository {
                 user.getEmergencyContactName(), user.getEmergencyContactPhone(),
                 user.getTravelPreferences(), user.getDietaryRestrictions(),
                 LocalDateTime.now(), user.getUserId());
+        userProfileCache.evict(user.getUserId());
     }
 
     @Override
@@ -148,6 +153,7 @@ public class UserRepositoryImpl implements UserRepository {
     public void softDelete(Long userId) {
         String sql = "UPDATE users SET is_deleted = TRUE, updated_at = ? WHERE user_id = ?";
         jdbcTemplate.update(sql, LocalDateTime.now(), userId);
+        userProfileCache.evict(userId);
     }
 
     @Override
@@ -2,16 +2,21 @@ package com.porikroma.service;
 
 import com.porikroma.dto.UserDto;
 import com.porikroma.dto.DestinationDto;
+import com.porikroma.dto.CursorPageDto;
 import com.porikroma.dto.TripDto;
 import com.porikroma.repository.UserRepository;
 import com.porikroma.repository.DestinationRepository;
+import com.porikroma.repository.TripCostLedgerRepository;
 import com.porikroma.repository.TripRepository;
+import com.porikroma.exception.BadRequestException;
+import com.porikroma.util.TripCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
@@ -30,6 +35,15 @@ public class AdminService {
     @Autowired
     private TripRepository tripRepository;
 
+    @Autowired
+    private TripCostLedgerRepository tripCostLedgerRepository;
+
+    @Autowired
+    private TripDateIndex tripDateIndex;
+
+    @Autowired
+    private TripArchiveService tripArchiveService;
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -136,8 +150,24 @@ public class AdminService {
         destinationRepository.deleteById(destinationId);
     }
 
-    public List<TripDto> getAllTrips() {
-        return tripRepository.findAll();
+    // Newest UNPAGED_LIMIT trips; nextCursor continues through the paged endpoint
+    public CursorPageDto<TripDto> getAllTrips() {
+        return tripRepository.findAllPage(null, TripCursor.UNPAGED_LIMIT);
+    }
+
+    public CursorPageDto<TripDto> getTripsPage(String status, Long destinationId, String cursor, Integer limit) {
+        TripCursor position = TripCursor.decode(cursor);
+        int pageSize = TripCursor.clampPageSize(limit);
+        if (status != null && destinationId != null) {
+            return tripRepository.findByStatusAndDestinationIdPage(status, destinationId, position, pageSize);
+        }
+        if (status != null) {
+            return tripRepository.findByStatusPage(status, position, pageSize);
+        }
+        if (destinationId != null) {
+            return tripRepository.findByDestinationIdPage(destinationId, position, pageSize);
+        }
+        return tripRepository.findAllPage(position, pageSize);
     }
 
     public Map<String, Object> getTripStats() {
@@ -154,6 +184,33 @@ public class AdminService {
         return stats;
     }
 
+    // Trips overlapping [from, to], or only those fully inside it when containedOnly is set
+    public List<TripDto> getTripsInWindow(LocalDate from, LocalDate to, boolean containedOnly) {
+        if (to.isBefore(from)) {
+            throw new BadRequestException("'to' must not be before 'from'");
+        }
+        List<Long> tripIds = containedOnly ? tripDateIndex.findContainedIn(from, to) : tripDateIndex.findOverlapping(from, to);
+        return tripRepository.findByIds(tripIds);
+    }
+
+    public List<TripDto> getTripsActiveOn(LocalDate day) {
+        return tripRepository.findByIds(tripDateIndex.findActiveOn(day));
+    }
+
+    public Map<String, Object> rebuildTripCostLedger() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("driftedTrips", tripCostLedgerRepository.rebuildAll());
+        result.put("rebuiltAt", LocalDateTime.now());
+        return result;
+    }
+
+    public Map<String, Object> archiveCompletedTrips() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("archivedTrips", tripArchiveService.archiveDueTrips());
+        result.put("archivedAt", LocalDateTime.now());
+        return result;
+    }
+
     public Map<String, Object> getContentStats() {
         Map<String, Object> stats = new HashMap<>();
         
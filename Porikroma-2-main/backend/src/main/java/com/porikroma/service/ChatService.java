@@ -1,37 +1,112 @@
 package com.porikroma.service;
 
 import com.porikroma.dto.TripMessageDto;
+import com.porikroma.dto.UnreadCountDto;
+import com.porikroma.exception.BadRequestException;
 import com.porikroma.repository.ChatRepository;
+import com.porikroma.util.TransactionHooks;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 @Service
 @Transactional
 public class ChatService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_UNREAD_TRIPS = 200;
+
     @Autowired
     private ChatRepository chatRepository;
 
     @Autowired
     private SocketIOService socketIOService;
 
+    @Autowired
+    private TripArchiveService tripArchiveService;
+
+    @Autowired
+    private ChatWriteBehindQueue chatWriteBehindQueue;
+
+    @Autowired
+    private MessageIdSequence messageIdSequence;
+
+    @Autowired
+    private RecentMessageCache recentMessageCache;
+
+    @Autowired
+    private PollVoteEngine pollVoteEngine;
+
+    @Autowired
+    private ReadMarkTracker readMarkTracker;
+
+    @Value("${porikroma.chat.write-behind.await-timeout-ms:2000}")
+    private long writeBehindAwaitTimeoutMs;
+
     @Autowired
     @Lazy
     private TripService tripService;
 
-    public List<TripMessageDto> getTripMessages(Long tripId) {
-        return chatRepository.findByTripIdOrderByCreatedAt(tripId);
+    public List<TripMessageDto> getTripMessages(Long tripId, Long beforeMessageId, Long afterMessageId, Integer limit) {
+        if (beforeMessageId != null && afterMessageId != null) {
+            throw new BadRequestException("Use either before or after, not both");
+        }
+        int pageSize = limit == null || limit < 1 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        if (tripArchiveService.isArchived(tripId)) {
+            // Archived trips keep their history in trip_archives
+            return tripArchiveService.findArchive(tripId)
+                .map(archive -> pageOf(archive.getMessages(), beforeMessageId, afterMessageId, pageSize))
+                .orElse(List.of());
+        }
+        // Recent pages and reconnect catch-up come from the in-memory buffer; older history from MySQL
+        List<TripMessageDto> messages = (afterMessageId != null
+            ? recentMessageCache.findAfter(tripId, afterMessageId, pageSize, () -> loadRecentMessages(tripId))
+            : recentMessageCache.findBefore(tripId, beforeMessageId, pageSize, () -> loadRecentMessages(tripId)))
+            .orElseGet(() -> afterMessageId != null
+                ? chatRepository.findPageAfter(tripId, afterMessageId, pageSize)
+                : chatRepository.findPageBefore(tripId, beforeMessageId, pageSize));
+        return pollVoteEngine.attachCounts(messages);
+    }
+
+    private List<TripMessageDto> loadRecentMessages(Long tripId) {
+        List<TripMessageDto> recent = new ArrayList<>(chatRepository.findRecentMessages(tripId, recentMessageCache.getPerTripCapacity()));
+        if (chatWriteBehindQueue.isEnabled()) {
+            // Already broadcast but possibly not written yet
+            recent.addAll(chatWriteBehindQueue.findPendingByTripId(tripId));
+        }
+        return recent;
+    }
+
+    private List<TripMessageDto> pageOf(List<TripMessageDto> messages, Long beforeMessageId, Long afterMessageId, int pageSize) {
+        List<TripMessageDto> window = messages.stream()
+            .filter(m -> beforeMessageId == null || m.getMessageId() < beforeMessageId)
+            .filter(m -> afterMessageId == null || m.getMessageId() > afterMessageId)
+            .sorted(Comparator.comparing(TripMessageDto::getMessageId))
+            .toList();
+        return afterMessageId != null
+            ? window.subList(0, Math.min(pageSize, window.size()))
+            : window.subList(Math.max(0, window.size() - pageSize), window.size());
     }
 
     public TripMessageDto sendMessage(TripMessageDto messageDto) {
         System.out.println("ChatService: Sending message - " + messageDto.getContent());
+        tripArchiveService.ensureNotArchived(messageDto.getTripId());
         messageDto.setCreatedAt(LocalDateTime.now());
+        if (chatWriteBehindQueue.isEnabled()) {
+            return sendWriteBehind(messageDto);
+        }
+        messageDto.setMessageId(messageIdSequence.next());
         TripMessageDto savedMessage = chatRepository.save(messageDto);
+        readMarkTracker.onMessagesStored(List.of(savedMessage));
+        TransactionHooks.afterCommit(() -> recentMessageCache.onMessageSent(savedMessage));
         
         System.out.println("ChatService: Message saved with ID " + savedMessage.getMessageId());
         System.out.println("ChatService: Calling Socket.IO service to broadcast to trip " + savedMessage.getTripId());
@@ -43,9 +118,29 @@ public class ChatService {
         return savedMessage;
     }
 
-    public TripMessageDto updateMessage(Long messageId, String content, Long userId) {
-        TripMessageDto message = chatRepository.findById(messageId)
+    private TripMessageDto sendWriteBehind(TripMessageDto messageDto) {
+        // The id comes from a reserved block, so the message goes out before it is stored
+        messageDto.setMessageId(messageIdSequence.next());
+        chatRepository.populateSender(messageDto);
+        TransactionHooks.afterCommit(() -> {
+            chatWriteBehindQueue.enqueue(messageDto);
+            recentMessageCache.onMessageSent(messageDto);
+            socketIOService.sendMessageToTrip(messageDto.getTripId(), messageDto);
+        });
+        return messageDto;
+    }
+
+    private TripMessageDto findMessage(Long messageId) {
+        // A message sent moments ago may still be queued; wait before the first read fixes this transaction's snapshot
+        if (chatWriteBehindQueue.isEnabled()) {
+            chatWriteBehindQueue.awaitPersisted(messageId, writeBehindAwaitTimeoutMs);
+        }
+        return chatRepository.findById(messageId)
             .orElseThrow(() -> new RuntimeException("Message not found"));
+    }
+
+    public TripMessageDto updateMessage(Long messageId, String content, Long userId) {
+        TripMessageDto message = findMessage(messageId);
         
         if (!message.getSenderUserId().equals(userId)) {
             throw new RuntimeException("Not authorized to edit this message");
@@ -56,6 +151,7 @@ public class ChatService {
         message.setEditedAt(LocalDateTime.now());
         
         TripMessageDto updatedMessage = chatRepository.update(message);
+        TransactionHooks.afterCommit(() -> recentMessageCache.onMessageUpdated(updatedMessage));
         
         // Emit real-time update
         socketIOService.sendMessageUpdateToTrip(updatedMessage.getTripId(), updatedMessage);
@@ -64,34 +160,43 @@ public class ChatService {
     }
 
     public void deleteMessage(Long messageId, Long userId) {
-        TripMessageDto message = chatRepository.findById(messageId)
-            .orElseThrow(() -> new RuntimeException("Message not found"));
+        TripMessageDto message = findMessage(messageId);
         
         if (!message.getSenderUserId().equals(userId)) {
             throw new RuntimeException("Not authorized to delete this message");
         }
         
         chatRepository.deleteById(messageId);
+        TransactionHooks.afterCommit(() -> recentMessageCache.onMessageDeleted(message.getTripId(), messageId));
+        if ("POLL".equals(message.getMessageType())) {
+            pollVoteEngine.evict(messageId);
+        }
         
         // Emit real-time deletion
         socketIOService.sendMessageDeleteToTrip(message.getTripId(), messageId);
     }
 
     public TripMessageDto votePoll(Long messageId, Long userId, String option) {
-        TripMessageDto message = chatRepository.findById(messageId)
-            .orElseThrow(() -> new RuntimeException("Message not found"));
+        TripMessageDto message = findMessage(messageId);
         
         if (!"POLL".equals(message.getMessageType())) {
             throw new RuntimeException("Message is not a poll");
         }
+        if (!isUserTripMember(message.getTripId(), userId)) {
+            throw new RuntimeException("Not authorized to vote on this poll");
+        }
         
-        // Update poll votes (implementation depends on how poll data is stored)
-        TripMessageDto updatedMessage = chatRepository.updatePollVote(messageId, userId, option);
-        
-        // Emit real-time poll update
-        socketIOService.sendMessageUpdateToTrip(updatedMessage.getTripId(), updatedMessage);
-        
-        return updatedMessage;
+        // Other members get the new tallies as batched poll-updated deltas
+        return pollVoteEngine.vote(message, userId, normalizePollOption(option));
+    }
+
+    // The vote endpoint takes the raw request body, which clients may send as a JSON string
+    private String normalizePollOption(String option) {
+        String trimmed = option == null ? "" : option.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            trimmed = trimmed.substring(1, trimmed.length() - 1);
+        }
+        return trimmed;
     }
 
     public TripMessageDto sendSystemMessage(Long tripId, String content) {
@@ -121,8 +226,13 @@ public class ChatService {
     }
 
     public void markMessagesAsRead(Long tripId, Long userId) {
-        // Mark all messages in the trip as read for this user
-        // This would typically update a user_message_status table
-        // For now, this is a placeholder implementation
+        readMarkTracker.markAllRead(userId, tripId);
+    }
+
+    public List<UnreadCountDto> getUnreadCounts(Long userId, List<Long> tripIds) {
+        if (tripIds != null && tripIds.size() > MAX_UNREAD_TRIPS) {
+            throw new BadRequestException("At most " + MAX_UNREAD_TRIPS + " trips per request");
+        }
+        return readMarkTracker.getUnreadCounts(userId, tripIds);
     }
 }
\ No newline at end of file
@@ -0,0 +1,331 @@
+package com.porikroma.service;
+
+import com.porikroma.dto.TripMessageDto;
+import com.porikroma.exception.BadRequestException;
+import com.porikroma.repository.ChatRepository;
+import com.porikroma.repository.TripArchiveRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind persistence for chat messages. Messages arrive with their final id, are queued,
+ * and a single writer thread inserts them in batches (one transaction per batch), so a burst of
+ * sends costs one commit instead of one per message.
+ *
+ * Delivery guarantees: batches are retried with backoff while the database is unavailable,
+ * a batch hitting a constraint violation is retried row by row so only the bad rows are dropped,
+ * and shutdown drains the queue before the datasource closes. A trip archived after a message was
+ * accepted but before it was written refuses the message; the buffered copy is withdrawn. Messages still queued when the
+ * process dies are lost; that window is bounded by the flush interval plus any outage.
+ */
+@Component
+public class ChatWriteBehindQueue implements SmartLifecycle {
+
+    @Autowired
+    private ChatRepository chatRepository;
+
+    @Autowired
+    private TripArchiveRepository tripArchiveRepository;
+
+    @Autowired
+    private ReadMarkTracker readMarkTracker;
+
+    @Autowired
+    private RecentMessageCache recentMessageCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${porikroma.chat.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${porikroma.chat.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${porikroma.chat.write-behind.max-batch:200}")
+    private int maxBatch;
+
+    @Value("${porikroma.chat.write-behind.flush-interval-ms:5}")
+    private long flushIntervalMs;
+
+    @Value("${porikroma.chat.write-behind.max-backoff-ms:5000}")
+    private long maxBackoffMs;
+
+    @Value("${porikroma.chat.write-behind.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMs;
+
+    private BlockingQueue<TripMessageDto> queue;
+
+    private record PendingWrite(TripMessageDto message, CompletableFuture<Void> written) {
+    }
+
+    private final Map<Long, PendingWrite> pending = new ConcurrentHashMap<>();
+    private TransactionTemplate batchTransaction;
+
+    private Timer flushTimer;
+    private DistributionSummary batchSizes;
+    private Counter persistedMessages;
+    private Counter droppedMessages;
+    private Counter callerFlushes;
+    private Counter flushRetries;
+
+    private volatile boolean running;
+    private volatile long stopDeadlineNanos = Long.MAX_VALUE;
+    private Thread writer;
+
+    @PostConstruct
+    public void init() {
+        queue = new LinkedBlockingQueue<>(capacity);
+        batchTransaction = new TransactionTemplate(transactionManager);
+        batchTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Gauge.builder("porikroma.chat.write_behind.queue_depth", queue, BlockingQueue::size)
+            .description("Chat messages waiting to be written")
+            .register(meterRegistry);
+        Gauge.builder("porikroma.chat.write_behind.pending", pending, Map::size)
+            .description("Chat messages accepted but not yet durable")
+            .register(meterRegistry);
+        flushTimer = Timer.builder("porikroma.chat.write_behind.flush")
+            .description("Time to write one batch, including retries")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+        batchSizes = DistributionSummary.builder("porikroma.chat.write_behind.batch_size")
+            .register(meterRegistry);
+        persistedMessages = meterRegistry.counter("porikroma.chat.write_behind.persisted");
+        droppedMessages = meterRegistry.counter("porikroma.chat.write_behind.dropped");
+        callerFlushes = meterRegistry.counter("porikroma.chat.write_behind.caller_flushes");
+        flushRetries = meterRegistry.counter("porikroma.chat.write_behind.retries");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // The message must already carry its id; when the queue is full the caller writes it itself
+    public void enqueue(TripMessageDto message) {
+        pending.put(message.getMessageId(), new PendingWrite(message, new CompletableFuture<>()));
+        if (!running || !queue.offer(message)) {
+            callerFlushes.increment();
+            List<TripMessageDto> refused;
+            try {
+                refused = batchTransaction.execute(tx -> store(List.of(message)));
+            } catch (RuntimeException e) {
+                complete(message.getMessageId(), e);
+                throw e;
+            }
+            if (completeStored(List.of(message), refused) > 0) {
+                throw new BadRequestException("Trip is archived and can no longer be changed");
+            }
+        }
+    }
+
+    // Blocks until a queued message is in the database; false if it wasn't queued here or didn't make it
+    public boolean awaitPersisted(Long messageId, long timeoutMs) {
+        PendingWrite write = pending.get(messageId);
+        if (write == null) {
+            return false;
+        }
+        try {
+            write.written().get(timeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    // Accepted messages of one trip that may not be readable from the database yet
+    public List<TripMessageDto> findPendingByTripId(Long tripId) {
+        return pending.values().stream()
+            .map(PendingWrite::message)
+            .filter(message -> message.getTripId().equals(tripId))
+            .toList();
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::drainLoop, "chat-write-behind");
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        if (writer == null) {
+            return;
+        }
+        stopDeadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMs);
+        running = false;
+        try {
+            writer.join(shutdownTimeoutMs + 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            System.err.println("ChatWriteBehindQueue: " + queue.size() + " messages not written at shutdown");
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void drainLoop() {
+        List<TripMessageDto> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                TripMessageDto first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Give a burst a few milliseconds to fill the batch before committing it
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < maxBatch) {
+                    queue.drainTo(batch, maxBatch - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatch || remaining <= 0 || !running) {
+                        break;
+                    }
+                    TripMessageDto next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("ChatWriteBehindQueue: writer error - " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<TripMessageDto> batch) throws InterruptedException {
+        long started = System.nanoTime();
+        batchSizes.record(batch.size());
+        long backoffMs = 50;
+        while (true) {
+            try {
+                List<TripMessageDto> refused = batchTransaction.execute(tx -> store(batch));
+                completeStored(batch, refused);
+                break;
+            } catch (DataIntegrityViolationException e) {
+                // A deleted trip or sender fails the whole statement; isolate the offending rows
+                flushOneByOne(batch);
+                break;
+            } catch (DataAccessException e) {
+                if (System.nanoTime() > stopDeadlineNanos) {
+                    System.err.println("ChatWriteBehindQueue: giving up on " + batch.size() + " messages at shutdown - " + e.getMessage());
+                    batch.forEach(message -> complete(message.getMessageId(), e));
+                    droppedMessages.increment(batch.size());
+                    break;
+                }
+                flushRetries.increment();
+                System.err.println("ChatWriteBehindQueue: batch write failed, retrying in " + backoffMs + "ms - " + e.getMessage());
+                Thread.sleep(backoffMs);
+                backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+            }
+        }
+        flushTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+
+    private void flushOneByOne(List<TripMessageDto> batch) {
+        for (TripMessageDto message : batch) {
+            try {
+                List<TripMessageDto> refused = batchTransaction.execute(tx -> store(List.of(message)));
+                completeStored(List.of(message), refused);
+            } catch (DataAccessException e) {
+                System.err.println("ChatWriteBehindQueue: dropping message " + message.getMessageId() + " - " + e.getMessage());
+                complete(message.getMessageId(), e);
+                droppedMessages.increment();
+            }
+        }
+    }
+
+    // Returns the messages refused because their trip was archived in the meantime
+    private List<TripMessageDto> store(List<TripMessageDto> messages) {
+        Set<Long> tripIds = new HashSet<>();
+        messages.forEach(message -> tripIds.add(message.getTripId()));
+        // Held until this transaction commits, so an archive run can't purge the trip under these inserts
+        Set<Long> open = new HashSet<>(tripArchiveRepository.lockUnarchived(tripIds));
+        List<TripMessageDto> writable = new ArrayList<>(messages.size());
+        List<TripMessageDto> refused = new ArrayList<>();
+        for (TripMessageDto message : messages) {
+            // A trip that no longer exists is left to the foreign key, which drops just that row
+            if (open.contains(message.getTripId()) || !tripArchiveRepository.isArchived(message.getTripId())) {
+                writable.add(message);
+            } else {
+                refused.add(message);
+            }
+        }
+        // Only rows written now count towards message_seq, so a retried batch doesn't bump it twice
+        List<TripMessageDto> inserted = chatRepository.saveAllWithIds(writable);
+        readMarkTracker.onMessagesStored(inserted);
+        return refused;
+    }
+
+    private int completeStored(List<TripMessageDto> batch, List<TripMessageDto> refused) {
+        for (TripMessageDto message : refused) {
+            System.err.println("ChatWriteBehindQueue: dropping message " + message.getMessageId()
+                + " - trip " + message.getTripId() + " was archived before it was written");
+            recentMessageCache.onMessageDeleted(message.getTripId(), message.getMessageId());
+            complete(message.getMessageId(), new BadRequestException("Trip is archived and can no longer be changed"));
+        }
+        for (TripMessageDto message : batch) {
+            complete(message.getMessageId(), null);
+        }
+        persistedMessages.increment(batch.size() - refused.size());
+        droppedMessages.increment(refused.size());
+        return refused.size();
+    }
+
+    private void complete(Long messageId, Exception failure) {
+        PendingWrite write = pending.remove(messageId);
+        if (write == null) {
+            return;
+        }
+        if (failure == null) {
+            write.written().complete(null);
+        } else {
+            write.written().completeExceptionally(failure);
+        }
+    }
+}
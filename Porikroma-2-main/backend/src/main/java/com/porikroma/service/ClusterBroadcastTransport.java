@@ -0,0 +1,22 @@
+package com.porikroma.service;
+
+import com.porikroma.dto.ClusterEnvelopeDto;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries room events between backend nodes. Implementations must deliver every envelope, the
+ * node's own included, to every node in one shared order, since that is the order clients see;
+ * duplicates are fine, ClusterFanout drops them.
+ */
+public interface ClusterBroadcastTransport {
+
+    // Matched against porikroma.socket.cluster.transport
+    String getName();
+
+    void start(String nodeId, Consumer<ClusterEnvelopeDto> receiver);
+
+    void publish(ClusterEnvelopeDto envelope);
+
+    void stop();
+}
@@ -0,0 +1,214 @@
+package com.porikroma.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.porikroma.dto.ClusterEnvelopeDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Delivers room events to local clients and relays them to the other backend nodes through the
+ * configured ClusterBroadcastTransport. While clustered a node doesn't deliver its own events
+ * directly: they go out through the transport and come back in its shared order like everyone
+ * else's, so every node hands a room's events to its clients in the same order even when several
+ * nodes publish to that room at once. The price is one transport round trip on local delivery.
+ *
+ * Each node stamps its envelopes with its id and a sequence number; a receiver drops anything at
+ * or below the last sequence it delivered for that node, which removes duplicates.
+ *
+ * The same channel carries cache invalidations: per-node caches of shared rows (rosters, trip
+ * versions, recent messages) relay their evictions so other nodes drop their copies too. Caches
+ * can also watch other nodes' room events, which is how recent-message buffers pick up sends. Relayed
+ * invalidations can arrive late or, with the jdbc transport, be lost to a settled gap, so those
+ * caches must also expire entries on their own while clustered.
+ */
+@Component
+public class ClusterFanout implements SmartLifecycle {
+
+    private static final int MAX_TRACKED_NODES = 1000;
+    private static final String INVALIDATE_EVENT = "cache-invalidate";
+
+    @Autowired
+    private RoomEventCoalescer roomEventCoalescer;
+
+    @Autowired
+    private List<ClusterBroadcastTransport> transports;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // none, loopback or jdbc; must be the same on every node
+    @Value("${porikroma.socket.cluster.transport:none}")
+    private String transportName;
+
+    private final Map<String, Consumer<Long>> invalidationHandlers = new ConcurrentHashMap<>();
+    private final Map<String, Consumer<JsonNode>> relayedEventHandlers = new ConcurrentHashMap<>();
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Guarded by itself; oldest node first, so restarted nodes' old ids age out
+    private final Map<String, Long> lastSeqByNode = new LinkedHashMap<>(16, 0.75f, true);
+
+    private ClusterBroadcastTransport transport;
+    private volatile boolean running;
+
+    private Counter publishedCounter;
+    private Counter receivedCounter;
+    private Counter duplicatesCounter;
+
+    @PostConstruct
+    public void init() {
+        if (!"none".equals(transportName)) {
+            transport = transports.stream()
+                .filter(candidate -> candidate.getName().equals(transportName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown socket cluster transport: " + transportName));
+        }
+        publishedCounter = meterRegistry.counter("porikroma.socket.cluster.published");
+        receivedCounter = meterRegistry.counter("porikroma.socket.cluster.received");
+        duplicatesCounter = meterRegistry.counter("porikroma.socket.cluster.duplicates");
+    }
+
+    public boolean isClustered() {
+        return transport != null;
+    }
+
+    public void publish(String room, String event, Object data) {
+        if (transport == null || !running) {
+            roomEventCoalescer.emit(room, event, data);
+            return;
+        }
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            // Can't be relayed, so at least this node's clients get it
+            System.err.println("ClusterFanout: cannot serialize " + event + " for " + room + " - " + e.getMessage());
+            roomEventCoalescer.emit(room, event, data);
+            return;
+        }
+        relay(room, event, payload);
+    }
+
+    // The handler drops the key locally; it must not publish the invalidation again
+    public void onInvalidation(String cache, Consumer<Long> handler) {
+        invalidationHandlers.put(cache, handler);
+    }
+
+    // Sees each room event of this name published on another node, before its local delivery
+    public void onRelayedEvent(String event, Consumer<JsonNode> handler) {
+        relayedEventHandlers.put(event, handler);
+    }
+
+    // Tells the other nodes to drop their copy of key; call once the change is committed
+    public void publishInvalidation(String cache, Long key) {
+        if (transport == null || !running) {
+            return;
+        }
+        relay(cache, INVALIDATE_EVENT, String.valueOf(key));
+    }
+
+    private void relay(String room, String event, String payload) {
+        // Numbering and handing over together, or a receiver could see seq n+1 first and drop n
+        synchronized (sequence) {
+            transport.publish(ClusterEnvelopeDto.builder()
+                .originNode(nodeId)
+                .originSeq(sequence.incrementAndGet())
+                .room(room)
+                .event(event)
+                .payload(payload)
+                .build());
+        }
+        publishedCounter.increment();
+    }
+
+    private void receive(ClusterEnvelopeDto envelope) {
+        if (!markDelivered(envelope)) {
+            return;
+        }
+        boolean own = nodeId.equals(envelope.getOriginNode());
+        if (INVALIDATE_EVENT.equals(envelope.getEvent())) {
+            // The publishing node already dropped its own copy
+            Consumer<Long> handler = own ? null : invalidationHandlers.get(envelope.getRoom());
+            if (handler != null) {
+                handler.accept(Long.valueOf(envelope.getPayload()));
+            }
+            receivedCounter.increment();
+            return;
+        }
+        JsonNode data;
+        try {
+            data = objectMapper.readTree(envelope.getPayload());
+        } catch (JsonProcessingException e) {
+            System.err.println("ClusterFanout: dropping unreadable " + envelope.getEvent() + " - " + e.getMessage());
+            return;
+        }
+        Consumer<JsonNode> handler = own ? null : relayedEventHandlers.get(envelope.getEvent());
+        if (handler != null) {
+            try {
+                handler.accept(data);
+            } catch (RuntimeException e) {
+                System.err.println("ClusterFanout: " + envelope.getEvent() + " handler failed - " + e.getMessage());
+            }
+        }
+        // Local delivery only; relaying again would loop
+        roomEventCoalescer.emit(envelope.getRoom(), envelope.getEvent(), data);
+        if (!own) {
+            receivedCounter.increment();
+        }
+    }
+
+    private boolean markDelivered(ClusterEnvelopeDto envelope) {
+        synchronized (lastSeqByNode) {
+            Long last = lastSeqByNode.get(envelope.getOriginNode());
+            if (last != null && envelope.getOriginSeq() <= last) {
+                duplicatesCounter.increment();
+                return false;
+            }
+            lastSeqByNode.put(envelope.getOriginNode(), envelope.getOriginSeq());
+            if (lastSeqByNode.size() > MAX_TRACKED_NODES) {
+                lastSeqByNode.remove(lastSeqByNode.keySet().iterator().next());
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public void start() {
+        if (transport != null && !running) {
+            transport.start(nodeId, this::receive);
+            running = true;
+            System.out.println("ClusterFanout: node " + nodeId + " relaying room events over " + transportName);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (running) {
+            running = false;
+            transport.stop();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
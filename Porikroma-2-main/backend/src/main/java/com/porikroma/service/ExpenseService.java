@@ -3,10 +3,12 @@ package com.porikroma.service;
 import com.porikroma.dto.ExpenseDto;
 import com.porikroma.dto.ExpenseSettlementDto;
 import com.porikroma.repository.ExpenseRepository;
+import com.porikroma.repository.TripCostLedgerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -21,11 +23,24 @@ public class ExpenseService {
     @Autowired
     private TripService tripService;
 
+    @Autowired
+    private TripCostLedgerRepository tripCostLedgerRepository;
+
+    @Autowired
+    private TripVersionCache tripVersionCache;
+
+    @Autowired
+    private TripArchiveService tripArchiveService;
+
     public List<ExpenseDto> getUserExpenses(Long userId) {
         return expenseRepository.findByUserId(userId);
     }
 
     public List<ExpenseDto> getTripExpenses(Long tripId) {
+        if (tripArchiveService.isArchived(tripId)) {
+            // Archived trips keep their expenses in trip_archives
+            return tripArchiveService.findArchive(tripId).map(archive -> archive.getExpenses()).orElse(List.of());
+        }
         return expenseRepository.findByTripId(tripId);
     }
 
@@ -35,10 +50,13 @@ public class ExpenseService {
     }
 
     public ExpenseDto createExpense(ExpenseDto expenseDto) {
+        tripArchiveService.ensureNotArchived(expenseDto.getTripId());
         expenseDto.setCreatedAt(LocalDateTime.now());
         expenseDto.setUpdatedAt(LocalDateTime.now());
         
         ExpenseDto savedExpense = expenseRepository.save(expenseDto);
+        tripCostLedgerRepository.applyExpenseDelta(savedExpense.getTripId(), amountOf(savedExpense));
+        tripVersionCache.bump(savedExpense.getTripId());
         
         // Create settlements for trip members if expense is shared
         if (expenseDto.isShared()) {
@@ -55,11 +73,26 @@ public class ExpenseService {
         if (!existingExpense.getPaidByUserId().equals(userId)) {
             throw new RuntimeException("Not authorized to update this expense");
         }
+        tripArchiveService.ensureNotArchived(existingExpense.getTripId());
+        if (expenseDto.getTripId() != null && !expenseDto.getTripId().equals(existingExpense.getTripId())) {
+            tripArchiveService.ensureNotArchived(expenseDto.getTripId());
+        }
         
         expenseDto.setExpenseId(expenseId);
+        if (expenseDto.getTripId() == null) {
+            expenseDto.setTripId(existingExpense.getTripId());
+        }
         expenseDto.setUpdatedAt(LocalDateTime.now());
         
-        return expenseRepository.update(expenseDto);
+        ExpenseDto updatedExpense = expenseRepository.update(expenseDto);
+        // Move the old amount out and the new one in; covers the expense moving between trips too
+        tripCostLedgerRepository.applyExpenseDelta(existingExpense.getTripId(), amountOf(existingExpense).negate());
+        tripCostLedgerRepository.applyExpenseDelta(updatedExpense.getTripId(), amountOf(updatedExpense));
+        tripVersionCache.bump(existingExpense.getTripId());
+        if (!existingExpense.getTripId().equals(updatedExpense.getTripId())) {
+            tripVersionCache.bump(updatedExpense.getTripId());
+        }
+        return updatedExpense;
     }
 
     public void deleteExpense(Long expenseId, Long userId) {
@@ -68,8 +101,15 @@ public class ExpenseService {
         if (!expense.getPaidByUserId().equals(userId)) {
             throw new RuntimeException("Not authorized to delete this expense");
         }
+        tripArchiveService.ensureNotArchived(expense.getTripId());
         
         expenseRepository.deleteById(expenseId);
+        tripCostLedgerRepository.applyExpenseDelta(expense.getTripId(), amountOf(expense).negate());
+        tripVersionCache.bump(expense.getTripId());
+    }
+
+    private BigDecimal amountOf(ExpenseDto expense) {
+        return expense.getAmount() != null ? expense.getAmount() : BigDecimal.ZERO;
     }
 
     public ExpenseSettlementDto updateSettlement(Long expenseId, Long userId, 
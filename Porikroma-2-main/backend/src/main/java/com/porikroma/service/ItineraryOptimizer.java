@@ -0,0 +1,108 @@
+package com.porikroma.service;
+
+import com.porikroma.dto.ItineraryDto;
+import com.porikroma.dto.SubDestinationDto;
+import com.porikroma.util.RouteOptimizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orders a trip's sub-destinations into a short visiting route. Great-circle distance matrices
+ * are cached per stop set, so re-optimizing an unchanged itinerary skips the O(n^2) trig work.
+ */
+@Component
+public class ItineraryOptimizer {
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final int MATRIX_CACHE_SIZE = 256;
+
+    @Value("${porikroma.itinerary.time-budget-ms:50}")
+    private long timeBudgetMs;
+
+    private final Map<String, double[][]> matrixCache = Collections.synchronizedMap(
+        new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, double[][]> eldest) {
+                return size() > MATRIX_CACHE_SIZE;
+            }
+        });
+
+    public ItineraryDto optimize(List<SubDestinationDto> subDestinations, Long startSubDestinationId) {
+        List<SubDestinationDto> located = new ArrayList<>();
+        List<SubDestinationDto> unlocated = new ArrayList<>();
+        for (SubDestinationDto stop : subDestinations) {
+            (stop.getLatitude() != null && stop.getLongitude() != null ? located : unlocated).add(stop);
+        }
+        // Canonical order so the same stop set always maps to the same cached matrix
+        located.sort(Comparator.comparing(SubDestinationDto::getSubDestinationId));
+
+        int fixedStart = -1;
+        for (int i = 0; i < located.size(); i++) {
+            if (located.get(i).getSubDestinationId().equals(startSubDestinationId)) {
+                fixedStart = i;
+            }
+        }
+
+        String key = cacheKey(located);
+        double[][] distances = matrixCache.get(key);
+        if (distances == null) {
+            // Built outside the map's lock so a large stop set doesn't hold up every other lookup
+            distances = buildMatrix(located);
+            matrixCache.put(key, distances);
+        }
+        RouteOptimizer.Route route = RouteOptimizer.optimize(distances, fixedStart,
+            TimeUnit.MILLISECONDS.toNanos(timeBudgetMs));
+
+        List<SubDestinationDto> ordered = new ArrayList<>(subDestinations.size());
+        for (int index : route.getOrder()) {
+            ordered.add(located.get(index));
+        }
+        ordered.addAll(unlocated);
+        return ItineraryDto.builder()
+            .stops(ordered)
+            .totalDistanceKm(route.getDistance())
+            .optimizationComplete(route.isComplete())
+            .build();
+    }
+
+    private String cacheKey(List<SubDestinationDto> stops) {
+        StringBuilder key = new StringBuilder();
+        for (SubDestinationDto stop : stops) {
+            key.append(stop.getSubDestinationId()).append('@')
+                .append(stop.getLatitude().toPlainString()).append(',')
+                .append(stop.getLongitude().toPlainString()).append(';');
+        }
+        return key.toString();
+    }
+
+    private double[][] buildMatrix(List<SubDestinationDto> stops) {
+        int n = stops.size();
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = Math.toRadians(stops.get(i).getLatitude().doubleValue());
+            lon[i] = Math.toRadians(stops.get(i).getLongitude().doubleValue());
+        }
+        double[][] distances = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double dLat = lat[j] - lat[i];
+                double dLon = lon[j] - lon[i];
+                double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                    + Math.cos(lat[i]) * Math.cos(lat[j]) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+                double km = 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(h)));
+                distances[i][j] = km;
+                distances[j][i] = km;
+            }
+        }
+        return distances;
+    }
+}
@@ -0,0 +1,183 @@
+package com.porikroma.service;
+
+import com.porikroma.dto.ClusterEnvelopeDto;
+import com.porikroma.repository.SocketBroadcastRepository;
+import com.porikroma.repository.SocketBroadcastRepository.StoredBroadcast;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Uses the shared MySQL database as the broker: envelopes are appended to socket_broadcasts in
+ * batches and every node tails the table by event id. One relay thread does both, so nothing
+ * runs on request threads or inside a caller's transaction.
+ *
+ * Every node delivers rows in event id order, its own included, which is the shared order the
+ * transport contract asks for. Ids are assigned at insert but rows become visible at commit, so
+ * a gap in the ids may be an insert still in flight. The tail stops at such a gap until the row
+ * after it is older than the settle window, and only then treats the gap as final; a row that
+ * commits later than that is skipped on every node rather than delivered out of order.
+ *
+ * The outbound queue is bounded: while the database is unreachable, envelopes past the capacity
+ * are dropped and counted instead of piling up on the heap.
+ */
+@Component
+public class JdbcBroadcastTransport implements ClusterBroadcastTransport {
+
+    @Autowired
+    private SocketBroadcastRepository socketBroadcastRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${porikroma.socket.cluster.jdbc.poll-interval-ms:25}")
+    private long pollIntervalMs;
+
+    @Value("${porikroma.socket.cluster.jdbc.settle-ms:1000}")
+    private long settleMs;
+
+    @Value("${porikroma.socket.cluster.jdbc.max-batch:500}")
+    private int maxBatch;
+
+    @Value("${porikroma.socket.cluster.jdbc.retention-seconds:300}")
+    private int retentionSeconds;
+
+    @Value("${porikroma.socket.cluster.jdbc.outbound-capacity:10000}")
+    private int outboundCapacity;
+
+    private BlockingQueue<ClusterEnvelopeDto> outbound;
+    private Counter droppedCounter;
+    private volatile boolean overflowing;
+    private volatile boolean running;
+    private Thread relay;
+
+    private Consumer<ClusterEnvelopeDto> receiver;
+    private long cursor;
+    private long lastCleanupMillis;
+
+    @PostConstruct
+    public void init() {
+        outbound = new LinkedBlockingQueue<>(outboundCapacity);
+        Gauge.builder("porikroma.socket.cluster.jdbc.outbound_depth", outbound, BlockingQueue::size)
+            .description("Envelopes waiting to be written to socket_broadcasts")
+            .register(meterRegistry);
+        droppedCounter = meterRegistry.counter("porikroma.socket.cluster.jdbc.dropped");
+    }
+
+    @Override
+    public String getName() {
+        return "jdbc";
+    }
+
+    @Override
+    public void start(String nodeId, Consumer<ClusterEnvelopeDto> receiver) {
+        this.receiver = receiver;
+        // Only events published from now on; a fresh node has no clients waiting for older ones
+        cursor = socketBroadcastRepository.findMaxEventId();
+        running = true;
+        relay = new Thread(this::relayLoop, "socket-cluster-relay");
+        relay.setDaemon(true);
+        relay.start();
+    }
+
+    @Override
+    public void publish(ClusterEnvelopeDto envelope) {
+        if (!outbound.offer(envelope)) {
+            droppedCounter.increment();
+            if (!overflowing) {
+                overflowing = true;
+                System.err.println("JdbcBroadcastTransport: outbound queue full, dropping room events until the relay catches up");
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (relay != null) {
+            try {
+                relay.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void relayLoop() {
+        List<ClusterEnvelopeDto> batch = new ArrayList<>(maxBatch);
+        while (running || !outbound.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    // Wake early when there is something to publish
+                    ClusterEnvelopeDto first = outbound.poll(pollIntervalMs, TimeUnit.MILLISECONDS);
+                    if (first != null) {
+                        batch.add(first);
+                        outbound.drainTo(batch, maxBatch - 1);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    socketBroadcastRepository.saveAll(batch);
+                    batch.clear();
+                    overflowing = false;
+                }
+                if (running) {
+                    tail();
+                    cleanup();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (DataAccessException e) {
+                // A failed batch is kept and retried ahead of anything newer; the tail resumes from its cursor
+                System.err.println("JdbcBroadcastTransport: relay error - " + e.getMessage());
+                if (!running) {
+                    return;
+                }
+                sleepQuietly(1000);
+            } catch (RuntimeException e) {
+                System.err.println("JdbcBroadcastTransport: relay error - " + e.getMessage());
+            }
+        }
+    }
+
+    private void tail() {
+        List<StoredBroadcast> rows = socketBroadcastRepository.findAfter(cursor, settleMs, maxBatch);
+        for (StoredBroadcast row : rows) {
+            if (row.eventId() != cursor + 1 && !row.settled()) {
+                break;
+            }
+            cursor = row.eventId();
+            receiver.accept(row.envelope());
+        }
+    }
+
+    private void cleanup() {
+        long now = System.currentTimeMillis();
+        if (now - lastCleanupMillis < 60000) {
+            return;
+        }
+        lastCleanupMillis = now;
+        // Every node runs this; deleting already-deleted rows is harmless
+        socketBroadcastRepository.deleteOlderThan(retentionSeconds, 10000);
+    }
+
+    private void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.porikroma.service;
+
+import com.porikroma.dto.ClusterEnvelopeDto;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-JVM transport: every application context in this JVM that selected "loopback" receives
+ * what any of them publishes, its own envelopes included, synchronously and in publish order. Meant for tests and local runs
+ * of several contexts side by side.
+ */
+@Component
+public class LoopbackBroadcastTransport implements ClusterBroadcastTransport {
+
+    // Shared across contexts on purpose
+    private static final List<Consumer<ClusterEnvelopeDto>> RECEIVERS = new CopyOnWriteArrayList<>();
+
+    private Consumer<ClusterEnvelopeDto> receiver;
+
+    @Override
+    public String getName() {
+        return "loopback";
+    }
+
+    @Override
+    public void start(String nodeId, Consumer<ClusterEnvelopeDto> receiver) {
+        this.receiver = receiver;
+        RECEIVERS.add(receiver);
+    }
+
+    @Override
+    public void publish(ClusterEnvelopeDto envelope) {
+        // One lock for all contexts, so every receiver, the publisher's own included, sees one order
+        synchronized (RECEIVERS) {
+            for (Consumer<ClusterEnvelopeDto> target : RECEIVERS) {
+                target.accept(envelope);
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (receiver != null) {
+            RECEIVERS.remove(receiver);
+            receiver = null;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.porikroma.service;
+
+import com.porikroma.repository.ChatRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Hands out trip message ids from blocks reserved in id_sequences, so a message has its final
+ * id before it is written. Every message insert takes its id from here, never from AUTO_INCREMENT,
+ * so ids are unique across nodes and write modes; a block left unused on shutdown is a gap.
+ *
+ * Chat paging, reconnect catch-up and the recent-message buffer all treat message_id as send
+ * order. Blocks keep that on a single node, but two nodes holding blocks would interleave out of
+ * order, so with a cluster transport every id is reserved on its own from the shared row.
+ */
+@Component
+public class MessageIdSequence {
+
+    @Autowired
+    private ChatRepository chatRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ClusterFanout clusterFanout;
+
+    @Value("${porikroma.chat.write-behind.id-block-size:100}")
+    private int blockSize;
+
+    private TransactionTemplate allocationTransaction;
+
+    // Guarded by this
+    private long nextId;
+    private long blockEnd;
+
+    @PostConstruct
+    public void init() {
+        // Own short transaction so the id_sequences row lock is never held for a caller's whole request
+        allocationTransaction = new TransactionTemplate(transactionManager);
+        allocationTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public synchronized long next() {
+        if (nextId >= blockEnd) {
+            int size = clusterFanout.isClustered() ? 1 : blockSize;
+            Long first = allocationTransaction.execute(tx -> chatRepository.allocateMessageIds(size));
+            nextId = first;
+            blockEnd = first + size;
+        }
+        return nextId++;
+    }
+}
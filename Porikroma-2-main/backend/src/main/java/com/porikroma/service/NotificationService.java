@@ -1,13 +1,17 @@
 package com.porikroma.service;
 
 import com.porikroma.dto.NotificationDto;
+import com.porikroma.dto.TripDto;
+import com.porikroma.dto.TripInvitationDto;
 import com.porikroma.repository.NotificationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @Transactional
@@ -66,7 +70,56 @@ public class NotificationService {
     }
 
     public void createTripInvitationNotification(Long inviteeUserId, String tripName, String inviterName, Long invitationId) {
-        NotificationDto notification = NotificationDto.builder()
+        createNotification(buildTripInvitationNotification(inviteeUserId, tripName, inviterName, invitationId));
+    }
+
+    // One batched insert for all invitees, then a socket push to each
+    public void createTripInvitationNotifications(List<TripInvitationDto> invitations, String tripName, String inviterName) {
+        List<NotificationDto> notifications = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (TripInvitationDto invitation : invitations) {
+            NotificationDto notification = buildTripInvitationNotification(
+                invitation.getInviteeUserId(), tripName, inviterName, invitation.getInvitationId());
+            notification.setCreatedAt(now);
+            notifications.add(notification);
+        }
+
+        for (NotificationDto savedNotification : notificationRepository.saveAll(notifications)) {
+            socketIOService.sendNotificationToUser(savedNotification.getUserId(), savedNotification);
+        }
+    }
+
+    // One batched insert covering every accepted member of every trip, then a socket push to each
+    public void createTripStatusNotifications(List<TripDto> trips, Map<Long, List<Long>> memberIdsByTrip) {
+        List<NotificationDto> notifications = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (TripDto trip : trips) {
+            String message = "ONGOING".equals(trip.getStatus())
+                ? "'" + trip.getTripName() + "' has started. Have a great trip!"
+                : "'" + trip.getTripName() + "' is now complete. Don't forget to settle up expenses.";
+            for (Long userId : memberIdsByTrip.getOrDefault(trip.getTripId(), List.of())) {
+                notifications.add(NotificationDto.builder()
+                    .userId(userId)
+                    .notificationType("TRIP_UPDATE")
+                    .title("Trip " + ("ONGOING".equals(trip.getStatus()) ? "Started" : "Completed"))
+                    .message(message)
+                    .relatedEntityType("TRIP")
+                    .relatedEntityId(trip.getTripId())
+                    .priority("MEDIUM")
+                    .actionUrl("/trips/" + trip.getTripId())
+                    .isRead(false)
+                    .createdAt(now)
+                    .build());
+            }
+        }
+
+        for (NotificationDto savedNotification : notificationRepository.saveAll(notifications)) {
+            socketIOService.sendNotificationToUser(savedNotification.getUserId(), savedNotification);
+        }
+    }
+
+    private NotificationDto buildTripInvitationNotification(Long inviteeUserId, String tripName, String inviterName, Long invitationId) {
+        return NotificationDto.builder()
             .userId(inviteeUserId)
             .notificationType("TRIP_INVITATION")
             .title("Trip Invitation")
@@ -77,8 +130,6 @@ public class NotificationService {
             .actionUrl("/trips/invitations/" + invitationId + "/respond")
             .isRead(false)
             .build();
-        
-        createNotification(notification);
     }
 
     public void createPaymentReminderNotification(Long userId, String description, String amount) {
@@ -0,0 +1,213 @@
+package com.porikroma.service;
+
+import com.porikroma.dto.PollDeltaDto;
+import com.porikroma.dto.TripMessageDto;
+import com.porikroma.exception.BadRequestException;
+import com.porikroma.repository.PollVoteRepository;
+import com.porikroma.util.TransactionHooks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live poll tallies. Each vote is one row in poll_votes keyed by (poll, user), so voters never
+ * share a row lock; the in-memory counts are striped LongAdders updated after commit, and a
+ * scheduled tick broadcasts what changed since the last tick as one compact delta per poll.
+ * Tallies are reloaded from poll_votes once they are older than the TTL, which bounds any
+ * drift from votes that raced a load.
+ */
+@Component
+public class PollVoteEngine {
+
+    @Autowired
+    private PollVoteRepository pollVoteRepository;
+
+    @Autowired
+    private SocketIOService socketIOService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${porikroma.polls.tally-ttl-ms:60000}")
+    private long tallyTtlMs;
+
+    private static final class PollTally {
+        final Long tripId;
+        final LongAdder[] counts;
+        final long[] broadcastCounts;  // Only touched by the broadcast tick
+        final long loadedAt = System.currentTimeMillis();
+        final AtomicBoolean dirty = new AtomicBoolean();
+        final AtomicLong seq = new AtomicLong();
+
+        PollTally(Long tripId, int optionCount, Map<Integer, Long> loaded) {
+            this.tripId = tripId;
+            this.counts = new LongAdder[optionCount];
+            this.broadcastCounts = new long[optionCount];
+            for (int i = 0; i < optionCount; i++) {
+                counts[i] = new LongAdder();
+                long votes = loaded.getOrDefault(i, 0L);
+                counts[i].add(votes);
+                broadcastCounts[i] = votes;
+            }
+        }
+
+        long[] snapshot() {
+            long[] values = new long[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                values[i] = counts[i].sum();
+            }
+            return values;
+        }
+    }
+
+    private final Map<Long, PollTally> tallies = new ConcurrentHashMap<>();
+
+    private Counter votesCounter;
+    private Counter updatesCounter;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("porikroma.polls.tallies", tallies, Map::size)
+            .description("Polls with live tallies in memory")
+            .register(meterRegistry);
+        votesCounter = meterRegistry.counter("porikroma.polls.votes");
+        updatesCounter = meterRegistry.counter("porikroma.polls.updates_sent");
+    }
+
+    // Records the vote and returns the poll with counts that already include it
+    public TripMessageDto vote(TripMessageDto poll, Long userId, String option) {
+        List<String> options = poll.getPollOptions();
+        int optionIndex = options == null ? -1 : options.indexOf(option);
+        if (optionIndex < 0) {
+            throw new BadRequestException("Unknown poll option: " + option);
+        }
+        Long messageId = poll.getMessageId();
+        // Load before writing the vote so the delta applied after commit isn't counted twice
+        PollTally tally = tallyFor(List.of(poll)).get(messageId);
+        Integer previous = pollVoteRepository.saveVote(messageId, userId, optionIndex);
+        long[] counts = tally.snapshot();
+        if (previous != null && previous == optionIndex) {
+            return withCounts(poll, counts);
+        }
+
+        TransactionHooks.afterCommit(() -> tallies.computeIfPresent(messageId, (id, current) -> {
+            apply(current, optionIndex, previous);
+            return current;
+        }));
+        votesCounter.increment();
+        counts[optionIndex]++;
+        if (previous != null && previous < counts.length) {
+            counts[previous]--;
+        }
+        return withCounts(poll, counts);
+    }
+
+    // Copies of the given messages with vote counts filled in on polls; other messages pass through
+    public List<TripMessageDto> attachCounts(List<TripMessageDto> messages) {
+        List<TripMessageDto> polls = messages.stream()
+            .filter(message -> "POLL".equals(message.getMessageType()) && message.getPollOptions() != null)
+            .toList();
+        if (polls.isEmpty()) {
+            return messages;
+        }
+        Map<Long, PollTally> loaded = tallyFor(polls);
+        List<TripMessageDto> result = new ArrayList<>(messages.size());
+        for (TripMessageDto message : messages) {
+            PollTally tally = loaded.get(message.getMessageId());
+            result.add(tally == null ? message : withCounts(message, tally.snapshot()));
+        }
+        return result;
+    }
+
+    public void evict(Long messageId) {
+        TransactionHooks.afterCommit(() -> tallies.remove(messageId));
+    }
+
+    @Scheduled(fixedDelayString = "${porikroma.polls.broadcast-interval-ms:200}")
+    public void broadcastDeltas() {
+        long now = System.currentTimeMillis();
+        tallies.forEach((messageId, tally) -> {
+            if (tally.dirty.getAndSet(false)) {
+                Map<Integer, Long> deltas = new LinkedHashMap<>();
+                for (int i = 0; i < tally.counts.length; i++) {
+                    long current = tally.counts[i].sum();
+                    long change = current - tally.broadcastCounts[i];
+                    if (change != 0) {
+                        deltas.put(i, change);
+                        tally.broadcastCounts[i] = current;
+                    }
+                }
+                // A vote that was changed back within the tick nets out to nothing
+                if (!deltas.isEmpty()) {
+                    socketIOService.sendPollUpdateToTrip(tally.tripId, PollDeltaDto.builder()
+                        .messageId(messageId)
+                        .tripId(tally.tripId)
+                        .seq(tally.seq.incrementAndGet())
+                        .deltas(deltas)
+                        .build());
+                    updatesCounter.increment();
+                }
+            }
+            if (now - tally.loadedAt > tallyTtlMs) {
+                tallies.remove(messageId, tally);
+            }
+        });
+    }
+
+    private Map<Long, PollTally> tallyFor(List<TripMessageDto> polls) {
+        Map<Long, PollTally> result = new LinkedHashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (TripMessageDto poll : polls) {
+            PollTally tally = tallies.get(poll.getMessageId());
+            if (tally == null) {
+                missing.add(poll.getMessageId());
+            } else {
+                result.put(poll.getMessageId(), tally);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+        Map<Long, Map<Integer, Long>> counts = pollVoteRepository.countByMessageIds(missing);
+        for (TripMessageDto poll : polls) {
+            if (missing.contains(poll.getMessageId())) {
+                PollTally loaded = new PollTally(poll.getTripId(), poll.getPollOptions().size(),
+                    counts.getOrDefault(poll.getMessageId(), Map.of()));
+                // A concurrent load may have won; keep its tally so deltas land in one place
+                PollTally existing = tallies.putIfAbsent(poll.getMessageId(), loaded);
+                result.put(poll.getMessageId(), existing != null ? existing : loaded);
+            }
+        }
+        return result;
+    }
+
+    private void apply(PollTally tally, int optionIndex, Integer previous) {
+        tally.counts[optionIndex].increment();
+        if (previous != null && previous < tally.counts.length) {
+            tally.counts[previous].decrement();
+        }
+        tally.dirty.set(true);
+    }
+
+    private TripMessageDto withCounts(TripMessageDto message, long[] counts) {
+        List<Long> values = new ArrayList<>(counts.length);
+        for (long count : counts) {
+            values.add(count);
+        }
+        return message.toBuilder().pollVoteCounts(values).build();
+    }
+}
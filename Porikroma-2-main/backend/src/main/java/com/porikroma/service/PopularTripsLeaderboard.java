@@ -0,0 +1,143 @@
+package com.porikroma.service;
+
+import com.porikroma.dto.TripDto;
+import com.porikroma.repository.TripRepository;
+import com.porikroma.util.TransactionHooks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory top-K of public trips ranked by accepted member count, then recency.
+ * Membership changes and trip edits patch the ranking incrementally; a scheduled reconcile rebuilds it
+ * from the database so drift is bounded by the refresh interval.
+ */
+@Component
+public class PopularTripsLeaderboard {
+
+    private static final Comparator<TripDto> RANKING = Comparator
+            .comparingInt(TripDto::getMemberCount).reversed()
+            .thenComparing(TripDto::getCreatedAt, Comparator.reverseOrder())
+            .thenComparing(TripDto::getTripId, Comparator.reverseOrder());
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Value("${porikroma.popular-trips.capacity:100}")
+    private int capacity;
+
+    @Value("${porikroma.popular-trips.max-staleness-ms:600000}")
+    private long maxStalenessMs;
+
+    // Guarded by writeLock; readers only ever see the published snapshot
+    private final TreeSet<TripDto> ranked = new TreeSet<>(RANKING);
+    private final Map<Long, TripDto> rankedById = new HashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile List<TripDto> snapshot = List.of();
+    private volatile long refreshedAtMillis;
+
+    public List<TripDto> getTopTrips(int limit) {
+        if (System.currentTimeMillis() - refreshedAtMillis > maxStalenessMs && writeLock.tryLock()) {
+            // Only one caller reloads; everyone else keeps serving the previous snapshot
+            try {
+                reload();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        List<TripDto> current = snapshot;
+        return current.subList(0, Math.min(Math.max(limit, 0), current.size()));
+    }
+
+    @Scheduled(fixedDelayString = "${porikroma.popular-trips.refresh-interval-ms:300000}")
+    public void reconcile() {
+        writeLock.lock();
+        try {
+            reload();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Re-reads and re-ranks one trip once the change that triggered it has committed; a trip
+    // that is no longer public drops out, and the cached name, dates and counts are refreshed
+    public void onTripChanged(Long tripId) {
+        TransactionHooks.afterCommit(() -> {
+            Optional<TripDto> trip;
+            try {
+                trip = tripRepository.findPopularTripById(tripId);
+            } catch (DataAccessException e) {
+                // The scheduled reconcile will pick the change up
+                return;
+            }
+            writeLock.lock();
+            try {
+                remove(tripId);
+                trip.ifPresent(this::offer);
+                publish();
+            } finally {
+                writeLock.unlock();
+            }
+        });
+    }
+
+    public void onTripDeleted(Long tripId) {
+        TransactionHooks.afterCommit(() -> {
+            writeLock.lock();
+            try {
+                if (remove(tripId)) {
+                    publish();
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        });
+    }
+
+    private void reload() {
+        try {
+            List<TripDto> trips = tripRepository.findPopularTrips(capacity);
+            ranked.clear();
+            rankedById.clear();
+            trips.forEach(this::offer);
+            publish();
+        } catch (DataAccessException e) {
+            System.err.println("PopularTripsLeaderboard: reload failed, keeping previous ranking - " + e.getMessage());
+        }
+        // Also set on failure so a broken query is retried on the schedule rather than on every request
+        refreshedAtMillis = System.currentTimeMillis();
+    }
+
+    private void offer(TripDto trip) {
+        if (ranked.size() >= capacity) {
+            TripDto lowest = ranked.last();
+            if (RANKING.compare(trip, lowest) >= 0) {
+                return;
+            }
+            ranked.pollLast();
+            rankedById.remove(lowest.getTripId());
+        }
+        ranked.add(trip);
+        rankedById.put(trip.getTripId(), trip);
+    }
+
+    private boolean remove(Long tripId) {
+        TripDto existing = rankedById.remove(tripId);
+        return existing != null && ranked.remove(existing);
+    }
+
+    private void publish() {
+        snapshot = List.copyOf(ranked);
+    }
+}
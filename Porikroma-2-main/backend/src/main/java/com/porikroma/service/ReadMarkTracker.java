@@ -0,0 +1,173 @@
+package com.porikroma.service;
+
+import com.porikroma.dto.ReadMarkDto;
+import com.porikroma.dto.TripChatStateDto;
+import com.porikroma.dto.TripMessageDto;
+import com.porikroma.dto.UnreadCountDto;
+import com.porikroma.repository.ReadMarkRepository;
+import com.porikroma.util.TransactionHooks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Read receipts as one high-water mark per (user, trip). Every trip keeps a message counter in
+ * trip_chat_state and a mark records the counter value the user has read up to, so unread
+ * counts are a subtraction rather than a COUNT over trip_messages. Marks are held in memory
+ * and written in coalesced batches, so marking read on every message costs one row per user
+ * per flush interval at most.
+ */
+@Component
+public class ReadMarkTracker {
+
+    @Autowired
+    private ReadMarkRepository readMarkRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private record MarkKey(Long userId, Long tripId) {
+    }
+
+    // Marks not yet written; a newer mark for the same user and trip replaces the older one
+    private final Map<MarkKey, ReadMarkDto> pending = new ConcurrentHashMap<>();
+
+    private Counter marksCounter;
+    private Counter writtenCounter;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("porikroma.chat.read_marks.pending", pending, Map::size)
+            .description("Read marks waiting to be written")
+            .register(meterRegistry);
+        marksCounter = meterRegistry.counter("porikroma.chat.read_marks.marked");
+        writtenCounter = meterRegistry.counter("porikroma.chat.read_marks.written");
+    }
+
+    // Call in the transaction that stored the messages; senders have read up to their own message
+    public void onMessagesStored(List<TripMessageDto> messages) {
+        Map<Long, List<TripMessageDto>> byTrip = messages.stream()
+            .collect(Collectors.groupingBy(TripMessageDto::getTripId, LinkedHashMap::new, Collectors.toList()));
+        byTrip.forEach((tripId, tripMessages) -> {
+            Long lastMessageId = tripMessages.stream().map(TripMessageDto::getMessageId).max(Long::compare).orElse(null);
+            long seq = readMarkRepository.incrementMessageSeq(tripId, tripMessages.size(), lastMessageId);
+            long firstSeq = seq - tripMessages.size() + 1;
+            List<ReadMarkDto> senderMarks = new ArrayList<>();
+            for (int i = 0; i < tripMessages.size(); i++) {
+                TripMessageDto message = tripMessages.get(i);
+                if (!"SYSTEM".equals(message.getMessageType())) {
+                    senderMarks.add(ReadMarkDto.builder()
+                        .userId(message.getSenderUserId())
+                        .tripId(tripId)
+                        .readSeq(firstSeq + i)
+                        .lastReadMessageId(message.getMessageId())
+                        .build());
+                }
+            }
+            TransactionHooks.afterCommit(() -> senderMarks.forEach(this::advance));
+        });
+    }
+
+    public void markAllRead(Long userId, Long tripId) {
+        readMarkRepository.findChatState(tripId).ifPresent(state -> advance(ReadMarkDto.builder()
+            .userId(userId)
+            .tripId(tripId)
+            .readSeq(state.getMessageSeq())
+            .lastReadMessageId(state.getLastMessageId())
+            .build()));
+    }
+
+    // Null tripIds means every trip the user has joined
+    public List<UnreadCountDto> getUnreadCounts(Long userId, Collection<Long> tripIds) {
+        List<TripChatStateDto> states = readMarkRepository.findChatStatesForMember(userId, tripIds);
+        List<Long> memberTripIds = states.stream().map(TripChatStateDto::getTripId).toList();
+        Map<Long, ReadMarkDto> stored = readMarkRepository.findMarks(userId, memberTripIds).stream()
+            .collect(Collectors.toMap(ReadMarkDto::getTripId, Function.identity()));
+
+        List<UnreadCountDto> counts = new ArrayList<>(states.size());
+        for (TripChatStateDto state : states) {
+            ReadMarkDto mark = newer(stored.get(state.getTripId()), pending.get(new MarkKey(userId, state.getTripId())));
+            long readSeq = mark != null ? mark.getReadSeq() : 0;
+            counts.add(UnreadCountDto.builder()
+                .tripId(state.getTripId())
+                .unreadCount(Math.max(0, state.getMessageSeq() - readSeq))
+                .lastMessageId(state.getLastMessageId())
+                .lastReadMessageId(mark != null ? mark.getLastReadMessageId() : null)
+                .build());
+        }
+        return counts;
+    }
+
+    @Scheduled(fixedDelayString = "${porikroma.chat.read-marks.flush-interval-ms:2000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<MarkKey, ReadMarkDto> batch = new HashMap<>(pending);
+        try {
+            readMarkRepository.saveMarks(new ArrayList<>(batch.values()));
+        } catch (DataIntegrityViolationException e) {
+            // A user or trip deleted since the mark was taken fails the whole batch
+            flushOneByOne(batch);
+            return;
+        } catch (DataAccessException e) {
+            System.err.println("ReadMarkTracker: flush failed, will retry - " + e.getMessage());
+            return;
+        }
+        // Keeps any mark that moved on while the batch was being written
+        batch.forEach(pending::remove);
+        writtenCounter.increment(batch.size());
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void flushOneByOne(Map<MarkKey, ReadMarkDto> batch) {
+        batch.forEach((key, mark) -> {
+            try {
+                readMarkRepository.saveMarks(List.of(mark));
+                writtenCounter.increment();
+            } catch (DataIntegrityViolationException e) {
+                System.err.println("ReadMarkTracker: dropping mark for user " + key.userId() + " trip " + key.tripId() + " - " + e.getMessage());
+            } catch (DataAccessException e) {
+                System.err.println("ReadMarkTracker: flush failed, will retry - " + e.getMessage());
+                return;
+            }
+            pending.remove(key, mark);
+        });
+    }
+
+    private void advance(ReadMarkDto mark) {
+        pending.merge(new MarkKey(mark.getUserId(), mark.getTripId()), mark, this::newer);
+        marksCounter.increment();
+    }
+
+    private ReadMarkDto newer(ReadMarkDto a, ReadMarkDto b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return b.getReadSeq() >= a.getReadSeq() ? b : a;
+    }
+}
@@ -0,0 +1,295 @@
+package com.porikroma.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.porikroma.dto.TripMessageDto;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Ring buffer of each active trip's latest messages, so opening a chat or catching up after a
+ * reconnect doesn't touch MySQL. A buffer always holds an unbroken run of the newest messages;
+ * pages that reach past its oldest entry return empty so the caller falls back to the database.
+ * Trips are evicted least-recently-used once the total message count passes the global cap.
+ *
+ * With a cluster transport, other nodes' sends arrive as relayed new-message events and are
+ * appended like local ones; edits and deletes are relayed as invalidations that drop the trip's
+ * buffer. A relayed event can be lost, so buffers also expire after the TTL there.
+ */
+@Component
+public class RecentMessageCache {
+
+    @Value("${porikroma.chat.recent-cache.per-trip:100}")
+    private int perTrip;
+
+    @Value("${porikroma.chat.recent-cache.max-messages:50000}")
+    private int maxMessages;
+
+    // Only applies while clustered
+    @Value("${porikroma.chat.recent-cache.cluster-ttl-ms:60000}")
+    private long clusterTtlMs;
+
+    @Autowired
+    private ClusterFanout clusterFanout;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static final class TripBuffer {
+        final List<TripMessageDto> messages = new ArrayList<>();  // Ascending message id
+        boolean wholeHistory;  // True when nothing older exists in the database
+        boolean loading;
+        boolean changedWhileLoading;  // An edit or delete the in-flight load may not reflect
+        long loadedAtMillis;
+    }
+
+    // Guarded by lock; access order makes the first entry the least recently used trip
+    private final LinkedHashMap<Long, TripBuffer> buffers = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private int totalMessages;
+
+    @PostConstruct
+    public void init() {
+        clusterFanout.onInvalidation("recent-messages", this::drop);
+        clusterFanout.onRelayedEvent("new-message", this::appendRelayed);
+    }
+
+    public int getPerTripCapacity() {
+        return perTrip;
+    }
+
+    // Newest page before beforeMessageId (or the latest page when null), oldest first
+    public Optional<List<TripMessageDto>> findBefore(Long tripId, Long beforeMessageId, int limit, Supplier<List<TripMessageDto>> loader) {
+        return read(tripId, loader, buffer -> {
+            int end = beforeMessageId == null ? buffer.messages.size() : indexAfter(buffer.messages, beforeMessageId - 1);
+            int start = end - limit;
+            if (start < 0 && !buffer.wholeHistory) {
+                return Optional.empty();
+            }
+            return Optional.of(List.copyOf(buffer.messages.subList(Math.max(start, 0), end)));
+        });
+    }
+
+    // Messages after afterMessageId, oldest first; this is what a reconnecting client replays
+    public Optional<List<TripMessageDto>> findAfter(Long tripId, Long afterMessageId, int limit, Supplier<List<TripMessageDto>> loader) {
+        return read(tripId, loader, buffer -> {
+            boolean covered = buffer.wholeHistory
+                || (!buffer.messages.isEmpty() && buffer.messages.get(0).getMessageId() <= afterMessageId);
+            if (!covered) {
+                return Optional.empty();
+            }
+            int start = indexAfter(buffer.messages, afterMessageId);
+            return Optional.of(List.copyOf(buffer.messages.subList(start, Math.min(start + limit, buffer.messages.size()))));
+        });
+    }
+
+    // Adds a newly sent message to a trip that is already buffered; other nodes get it from the relayed event
+    public void onMessageSent(TripMessageDto message) {
+        lock.lock();
+        try {
+            TripBuffer buffer = buffers.get(message.getTripId());
+            if (buffer != null && insert(buffer, message)) {
+                totalMessages++;
+                trim(buffer);
+                evictOverCap(message.getTripId());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void appendRelayed(JsonNode data) {
+        TripMessageDto message;
+        try {
+            message = objectMapper.treeToValue(data, TripMessageDto.class);
+        } catch (JsonProcessingException e) {
+            System.err.println("RecentMessageCache: unreadable relayed message - " + e.getMessage());
+            return;
+        }
+        if (message.getTripId() != null && message.getMessageId() != null) {
+            onMessageSent(message);
+        }
+    }
+
+    public void onMessageUpdated(TripMessageDto message) {
+        lock.lock();
+        try {
+            TripBuffer buffer = buffers.get(message.getTripId());
+            if (buffer != null) {
+                buffer.changedWhileLoading |= buffer.loading;
+                int index = indexOf(buffer.messages, message.getMessageId());
+                if (index >= 0) {
+                    buffer.messages.set(index, message);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        clusterFanout.publishInvalidation("recent-messages", message.getTripId());
+    }
+
+    public void onMessageDeleted(Long tripId, Long messageId) {
+        lock.lock();
+        try {
+            TripBuffer buffer = buffers.get(tripId);
+            if (buffer != null) {
+                buffer.changedWhileLoading |= buffer.loading;
+                int index = indexOf(buffer.messages, messageId);
+                if (index >= 0) {
+                    buffer.messages.remove(index);
+                    totalMessages--;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        clusterFanout.publishInvalidation("recent-messages", tripId);
+    }
+
+    public void evict(Long tripId) {
+        drop(tripId);
+        clusterFanout.publishInvalidation("recent-messages", tripId);
+    }
+
+    private void drop(Long tripId) {
+        lock.lock();
+        try {
+            TripBuffer buffer = buffers.remove(tripId);
+            if (buffer != null) {
+                totalMessages -= buffer.messages.size();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Optional<List<TripMessageDto>> read(Long tripId, Supplier<List<TripMessageDto>> loader,
+                                                Function<TripBuffer, Optional<List<TripMessageDto>>> query) {
+        lock.lock();
+        try {
+            TripBuffer buffer = buffers.get(tripId);
+            if (buffer != null && !buffer.loading && isExpired(buffer)) {
+                totalMessages -= buffer.messages.size();
+                buffers.remove(tripId);
+                buffer = null;
+            }
+            if (buffer != null) {
+                // Another request is still loading this trip
+                return buffer.loading ? Optional.empty() : query.apply(buffer);
+            }
+            // Reserve the slot first so sends that commit while the database read runs land in it
+            TripBuffer reserved = new TripBuffer();
+            reserved.loading = true;
+            reserved.loadedAtMillis = System.currentTimeMillis();
+            buffers.put(tripId, reserved);
+        } finally {
+            lock.unlock();
+        }
+
+        List<TripMessageDto> loaded;
+        try {
+            loaded = loader.get();
+        } catch (RuntimeException e) {
+            drop(tripId);
+            throw e;
+        }
+
+        lock.lock();
+        try {
+            TripBuffer buffer = buffers.get(tripId);
+            if (buffer == null) {
+                // Evicted while loading; serve nothing and let the caller go to the database
+                return Optional.empty();
+            }
+            buffer.loading = false;
+            if (buffer.changedWhileLoading) {
+                // The loaded rows may predate that change, so start over on the next read
+                totalMessages -= buffer.messages.size();
+                buffers.remove(tripId);
+                return Optional.empty();
+            }
+            buffer.wholeHistory = loaded.size() < perTrip;
+            for (TripMessageDto message : loaded) {
+                if (insert(buffer, message)) {
+                    totalMessages++;
+                }
+            }
+            trim(buffer);
+            evictOverCap(tripId);
+            return query.apply(buffer);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isExpired(TripBuffer buffer) {
+        return clusterFanout.isClustered() && System.currentTimeMillis() - buffer.loadedAtMillis >= clusterTtlMs;
+    }
+
+    // Keeps ids ascending and ignores duplicates; sends usually arrive in order, so scan from the end
+    private boolean insert(TripBuffer buffer, TripMessageDto message) {
+        List<TripMessageDto> messages = buffer.messages;
+        int index = messages.size();
+        while (index > 0 && messages.get(index - 1).getMessageId() > message.getMessageId()) {
+            index--;
+        }
+        if (index > 0 && messages.get(index - 1).getMessageId().equals(message.getMessageId())) {
+            return false;
+        }
+        messages.add(index, message);
+        return true;
+    }
+
+    private void trim(TripBuffer buffer) {
+        int excess = buffer.messages.size() - perTrip;
+        if (excess > 0) {
+            buffer.messages.subList(0, excess).clear();
+            buffer.wholeHistory = false;
+            totalMessages -= excess;
+        }
+    }
+
+    private void evictOverCap(Long keepTripId) {
+        Iterator<Map.Entry<Long, TripBuffer>> oldest = buffers.entrySet().iterator();
+        while (totalMessages > maxMessages && oldest.hasNext()) {
+            Map.Entry<Long, TripBuffer> entry = oldest.next();
+            if (!entry.getKey().equals(keepTripId)) {
+                totalMessages -= entry.getValue().messages.size();
+                oldest.remove();
+            }
+        }
+    }
+
+    // Position of the first message with an id greater than messageId
+    private int indexAfter(List<TripMessageDto> messages, long messageId) {
+        int low = 0;
+        int high = messages.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (messages.get(mid).getMessageId() <= messageId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int indexOf(List<TripMessageDto> messages, Long messageId) {
+        int index = indexAfter(messages, messageId - 1);
+        return index < messages.size() && messages.get(index).getMessageId().equals(messageId) ? index : -1;
+    }
+}
@@ -0,0 +1,135 @@
+package com.porikroma.service;
+
+import com.porikroma.dto.SocketEventDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optionally buffers room events for a few milliseconds and sends them as one "events-batch"
+ * frame per room, so a burst of messages costs one frame per client instead of one per event.
+ * Events keep their order within a room. A tick with a single event sends it unwrapped.
+ */
+@Component
+public class RoomEventCoalescer {
+
+    static final String BATCH_EVENT = "events-batch";
+
+    @Autowired
+    private SocketOutbox socketOutbox;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${porikroma.socket.coalescing.enabled:false}")
+    private boolean enabled;
+
+    @Value("${porikroma.socket.coalescing.max-delay-ms:10}")
+    private long maxDelayMs;
+
+    @Value("${porikroma.socket.coalescing.max-batch:50}")
+    private int maxBatch;
+
+    private static final class RoomBuffer {
+        // Guarded by this buffer
+        List<SocketEventDto> events = new ArrayList<>();
+    }
+
+    private final Map<String, RoomBuffer> buffers = new ConcurrentHashMap<>();
+    private ScheduledExecutorService ticker;
+
+    private Counter eventsCounter;
+    private Counter framesCounter;
+    private Counter framesSavedCounter;
+    private DistributionSummary batchSizes;
+
+    @PostConstruct
+    public void init() {
+        eventsCounter = meterRegistry.counter("porikroma.socket.coalescing.events");
+        framesCounter = meterRegistry.counter("porikroma.socket.coalescing.frames");
+        framesSavedCounter = meterRegistry.counter("porikroma.socket.coalescing.frames_saved");
+        batchSizes = DistributionSummary.builder("porikroma.socket.coalescing.batch_size").register(meterRegistry);
+        if (enabled) {
+            ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "socket-coalescer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (ticker != null) {
+            ticker.shutdown();
+            buffers.keySet().forEach(this::flush);
+        }
+    }
+
+    public void emit(String room, String event, Object data) {
+        if (!enabled) {
+            socketOutbox.sendToRoom(room, event, data);
+            return;
+        }
+        boolean[] full = new boolean[1];
+        // Appending inside compute() means an idle buffer can't be dropped between lookup and append
+        buffers.compute(room, (key, existing) -> {
+            RoomBuffer buffer = existing != null ? existing : new RoomBuffer();
+            synchronized (buffer) {
+                buffer.events.add(SocketEventDto.builder().event(event).data(data).build());
+                if (buffer.events.size() == 1) {
+                    // First event of this tick starts the clock
+                    ticker.schedule(() -> flush(room), maxDelayMs, TimeUnit.MILLISECONDS);
+                }
+                full[0] = buffer.events.size() >= maxBatch;
+            }
+            return buffer;
+        });
+        if (full[0]) {
+            flush(room);
+        }
+    }
+
+    private void flush(String room) {
+        RoomBuffer buffer = buffers.get(room);
+        if (buffer == null) {
+            return;
+        }
+        // Sending under the buffer lock keeps an early full-batch flush and the timer flush in order
+        synchronized (buffer) {
+            List<SocketEventDto> events = buffer.events;
+            if (events.isEmpty()) {
+                return;
+            }
+            buffer.events = new ArrayList<>();
+            if (events.size() == 1) {
+                socketOutbox.sendToRoom(room, events.get(0).getEvent(), events.get(0).getData());
+            } else {
+                socketOutbox.sendToRoom(room, BATCH_EVENT, events);
+            }
+            eventsCounter.increment(events.size());
+            framesCounter.increment();
+            framesSavedCounter.increment(events.size() - 1);
+            batchSizes.record(events.size());
+        }
+        // Idle rooms don't keep a buffer around
+        buffers.computeIfPresent(room, (key, current) -> {
+            synchronized (current) {
+                return current.events.isEmpty() ? null : current;
+            }
+        });
+    }
+}
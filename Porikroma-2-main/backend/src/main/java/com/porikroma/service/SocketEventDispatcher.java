@@ -0,0 +1,132 @@
+package com.porikroma.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs Socket.IO listener logic off the netty event loop, so a slow database or auth call only
+ * delays the event that made it rather than every connection sharing the loop. Tasks with the
+ * same key (a room) run one at a time in submission order; different keys run in parallel on
+ * virtual threads, or on a fixed pool when pool-size is set.
+ */
+@Component
+public class SocketEventDispatcher {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 0 means one virtual thread per busy key
+    @Value("${porikroma.socket.dispatch.pool-size:0}")
+    private int poolSize;
+
+    @Value("${porikroma.socket.dispatch.max-pending-per-key:1000}")
+    private int maxPendingPerKey;
+
+    private static final class Lane {
+        // Guarded by this lane
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        boolean active;
+    }
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    private Timer taskTimer;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() {
+        executor = poolSize > 0
+            ? Executors.newFixedThreadPool(poolSize, runnable -> {
+                Thread thread = new Thread(runnable, "socket-dispatch");
+                thread.setDaemon(true);
+                return thread;
+            })
+            : Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("socket-dispatch-", 0).factory());
+        Gauge.builder("porikroma.socket.dispatch.busy_keys", lanes, Map::size)
+            .description("Rooms with socket events queued or running")
+            .register(meterRegistry);
+        taskTimer = Timer.builder("porikroma.socket.dispatch.task")
+            .description("Time spent running one socket listener task")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+        rejectedCounter = meterRegistry.counter("porikroma.socket.dispatch.rejected");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // False when the key already has too much queued; the caller should tell the client
+    public boolean dispatch(String key, Runnable task) {
+        boolean[] start = new boolean[1];
+        boolean[] accepted = new boolean[1];
+        Lane target = lanes.compute(key, (k, existing) -> {
+            Lane lane = existing != null ? existing : new Lane();
+            synchronized (lane) {
+                if (lane.tasks.size() < maxPendingPerKey) {
+                    lane.tasks.add(task);
+                    accepted[0] = true;
+                    start[0] = !lane.active;
+                    lane.active = true;
+                }
+                return lane.active ? lane : null;
+            }
+        });
+        if (!accepted[0]) {
+            rejectedCounter.increment();
+            return false;
+        }
+        if (start[0]) {
+            executor.execute(() -> drain(key, target));
+        }
+        return true;
+    }
+
+    private void drain(String key, Lane lane) {
+        while (true) {
+            Runnable next;
+            synchronized (lane) {
+                next = lane.tasks.poll();
+                if (next == null) {
+                    lane.active = false;
+                    break;
+                }
+            }
+            long started = System.nanoTime();
+            try {
+                next.run();
+            } catch (RuntimeException e) {
+                System.err.println("SocketEventDispatcher: task for " + key + " failed - " + e.getMessage());
+            } finally {
+                taskTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        }
+        // Idle keys don't keep a lane; a dispatch that reactivated it in the meantime keeps it
+        lanes.computeIfPresent(key, (k, current) -> {
+            synchronized (current) {
+                return current.active || !current.tasks.isEmpty() ? current : null;
+            }
+        });
+    }
+}
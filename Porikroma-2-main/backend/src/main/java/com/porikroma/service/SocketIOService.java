@@ -1,39 +1,98 @@
 package com.porikroma.service;
 
+import com.corundumstudio.socketio.SocketIOClient;
 import com.corundumstudio.socketio.SocketIOServer;
+import com.porikroma.security.SocketAuthorizationListener;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 
+import java.util.Map;
+
 @Service
 public class SocketIOService {
 
     @Autowired
     private SocketIOServer server;
 
+    @Autowired
+    private ClusterFanout clusterFanout;
+
+    @Autowired
+    private SocketAuthorizationListener socketAuthorizationListener;
+
+    @Autowired
+    private SocketSessionRegistry socketSessionRegistry;
+
+    @Autowired
+    private TripRosterCache tripRosterCache;
+
+    @Autowired
+    private SocketOutbox socketOutbox;
+
+    @Autowired
+    private SocketEventDispatcher socketEventDispatcher;
+
     @PostConstruct
     public void startServer() {
         // Set up event listeners
         server.addConnectListener(client -> {
-            System.out.println("Client connected: " + client.getSessionId());
+            Long userId = resolveUserId(client);
+            if (userId == null) {
+                System.out.println("Client rejected without a valid token: " + client.getSessionId());
+                client.disconnect();
+                return;
+            }
+            client.set(SocketAuthorizationListener.USER_ID_KEY, userId);
+            socketSessionRegistry.register(userId, client.getSessionId());
+            socketOutbox.register(client);
+            client.joinRoom("user_" + userId);
+            System.out.println("Client connected: " + client.getSessionId() + " (user " + userId + ")");
         });
 
         server.addDisconnectListener(client -> {
+            socketOutbox.unregister(client.getSessionId());
+            Long userId = client.get(SocketAuthorizationListener.USER_ID_KEY);
+            if (userId != null) {
+                socketSessionRegistry.unregister(userId, client.getSessionId());
+            }
             System.out.println("Client disconnected: " + client.getSessionId());
         });
 
-        // Handle join trip room
-        server.addEventListener("join-trip", String.class, (client, tripId, ackSender) -> {
-            System.out.println("Client " + client.getSessionId() + " joining trip: " + tripId);
-            client.joinRoom("trip_" + tripId);
-        });
+        // Handle join trip room; only accepted members of the trip may listen in.
+        // The roster lookup can hit the database, so it runs on the dispatcher, not the netty loop
+        server.addEventListener("join-trip", String.class, (client, tripId, ackSender) ->
+            dispatch(client, tripId, () -> {
+                Long userId = client.get(SocketAuthorizationListener.USER_ID_KEY);
+                Long parsedTripId = parseTripId(tripId);
+                if (userId == null || parsedTripId == null || !tripRosterCache.isAcceptedMember(parsedTripId, userId)) {
+                    System.out.println("Client " + client.getSessionId() + " denied trip: " + tripId);
+                    client.sendEvent("join-trip-denied", tripId);
+                    return;
+                }
+                System.out.println("Client " + client.getSessionId() + " joining trip: " + tripId);
+                client.joinRoom("trip_" + parsedTripId);
+                client.sendEvent("joined-trip", tripId);
+            }));
 
-        // Handle leave trip room
-        server.addEventListener("leave-trip", String.class, (client, tripId, ackSender) -> {
-            System.out.println("Client " + client.getSessionId() + " leaving trip: " + tripId);
-            client.leaveRoom("trip_" + tripId);
+        // Handle leave trip room; same lane as joins so a quick join/leave keeps its order
+        server.addEventListener("leave-trip", String.class, (client, tripId, ackSender) ->
+            dispatch(client, tripId, () -> {
+                Long parsedTripId = parseTripId(tripId);
+                if (parsedTripId == null) {
+                    return;
+                }
+                System.out.println("Client " + client.getSessionId() + " leaving trip: " + tripId);
+                client.leaveRoom("trip_" + parsedTripId);
+            }));
+
+        // Membership changed; sessions of users no longer accepted stop receiving the trip's events
+        tripRosterCache.onChange(tripId -> {
+            if (!socketEventDispatcher.dispatch("trip_" + tripId, () -> removeRevokedMembers(tripId))) {
+                System.err.println("SocketIOService: could not recheck trip room " + tripId + ", dispatcher full");
+            }
         });
 
         server.start();
@@ -48,18 +107,68 @@ public class SocketIOService {
     }
 
     public void sendMessageToTrip(Long tripId, Object message) {
-        server.getRoomOperations("trip_" + tripId).sendEvent("new-message", message);
+        clusterFanout.publish("trip_" + tripId, "new-message", message);
     }
 
     public void sendMessageUpdateToTrip(Long tripId, Object message) {
-        server.getRoomOperations("trip_" + tripId).sendEvent("message-updated", message);
+        clusterFanout.publish("trip_" + tripId, "message-updated", message);
     }
 
     public void sendMessageDeleteToTrip(Long tripId, Long messageId) {
-        server.getRoomOperations("trip_" + tripId).sendEvent("message-deleted", messageId);
+        clusterFanout.publish("trip_" + tripId, "message-deleted", messageId);
+    }
+
+    public void sendPollUpdateToTrip(Long tripId, Object pollDelta) {
+        clusterFanout.publish("trip_" + tripId, "poll-updated", pollDelta);
     }
 
     public void sendNotificationToUser(Long userId, Object notification) {
-        server.getRoomOperations("user_" + userId).sendEvent("new-notification", notification);
+        if (!clusterFanout.isClustered() && !socketSessionRegistry.isOnline(userId)) {
+            // Offline users pick it up from /notifications on their next visit
+            return;
+        }
+        clusterFanout.publish("user_" + userId, "new-notification", notification);
+    }
+
+    private void removeRevokedMembers(Long tripId) {
+        String room = "trip_" + tripId;
+        for (SocketIOClient client : server.getRoomOperations(room).getClients()) {
+            Long userId = client.get(SocketAuthorizationListener.USER_ID_KEY);
+            if (userId == null || !tripRosterCache.isAcceptedMember(tripId, userId)) {
+                System.out.println("Client " + client.getSessionId() + " removed from trip: " + tripId);
+                client.leaveRoom(room);
+                client.sendEvent("trip-access-revoked", tripId);
+            }
+        }
+    }
+
+    // Set at handshake from an Authorization header, otherwise taken from the Socket.IO auth payload
+    private Long resolveUserId(SocketIOClient client) {
+        Long userId = client.get(SocketAuthorizationListener.USER_ID_KEY);
+        if (userId != null) {
+            return userId;
+        }
+        Object auth = client.getHandshakeData().getAuthToken();
+        if (auth instanceof Map<?, ?> payload && payload.get("token") instanceof String token) {
+            return socketAuthorizationListener.authenticate(token);
+        }
+        return null;
+    }
+
+    // Serialized per trip room; unparseable ids get their own per-session lane
+    private void dispatch(SocketIOClient client, String tripId, Runnable task) {
+        Long parsedTripId = parseTripId(tripId);
+        String key = parsedTripId != null ? "trip_" + parsedTripId : "session_" + client.getSessionId();
+        if (!socketEventDispatcher.dispatch(key, task)) {
+            client.sendEvent("server-busy", tripId);
+        }
+    }
+
+    private Long parseTripId(String tripId) {
+        try {
+            return tripId == null ? null : Long.valueOf(tripId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 }
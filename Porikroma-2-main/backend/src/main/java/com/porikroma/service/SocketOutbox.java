@@ -0,0 +1,211 @@
+package com.porikroma.service;
+
+import com.corundumstudio.socketio.SocketIOClient;
+import com.corundumstudio.socketio.SocketIOServer;
+import com.porikroma.dto.SocketEventDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded send queue per socket session. Events go straight to the client while its channel is
+ * writable; once netty reports it isn't, they wait here instead of piling up in netty's buffers,
+ * and a drain tick sends them as the channel recovers. A full queue applies the overflow policy:
+ * drop_oldest discards the oldest queued event, coalesce replaces the backlog with one "resync"
+ * event telling the client to refetch, disconnect closes the session.
+ */
+@Component
+public class SocketOutbox {
+
+    static final String RESYNC_EVENT = "resync";
+
+    @Autowired
+    private SocketIOServer server;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${porikroma.socket.outbox.capacity:256}")
+    private int capacity;
+
+    // drop_oldest, coalesce or disconnect
+    @Value("${porikroma.socket.outbox.overflow-policy:coalesce}")
+    private String overflowPolicy;
+
+    @Value("${porikroma.socket.outbox.drain-interval-ms:50}")
+    private long drainIntervalMs;
+
+    private static final class SessionQueue {
+        final SocketIOClient client;
+        // Guarded by this queue
+        final ArrayDeque<SocketEventDto> events = new ArrayDeque<>();
+        int droppedSinceResync;
+        boolean closed;
+
+        SessionQueue(SocketIOClient client) {
+            this.client = client;
+        }
+    }
+
+    private final Map<UUID, SessionQueue> sessions = new ConcurrentHashMap<>();
+    private final Set<SessionQueue> backlogged = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService drainer;
+
+    private Counter droppedCounter;
+    private Counter resyncCounter;
+    private Counter disconnectCounter;
+
+    @PostConstruct
+    public void init() {
+        if (!Set.of("drop_oldest", "coalesce", "disconnect").contains(overflowPolicy)) {
+            throw new IllegalStateException("Unknown socket outbox overflow policy: " + overflowPolicy);
+        }
+        Gauge.builder("porikroma.socket.outbox.queued", backlogged, queues -> queues.stream().mapToInt(this::depth).sum())
+            .description("Events waiting for slow socket sessions")
+            .register(meterRegistry);
+        Gauge.builder("porikroma.socket.outbox.backlogged_sessions", backlogged, Set::size)
+            .description("Sessions whose channel is not keeping up")
+            .register(meterRegistry);
+        droppedCounter = meterRegistry.counter("porikroma.socket.outbox.dropped");
+        resyncCounter = meterRegistry.counter("porikroma.socket.outbox.resyncs");
+        disconnectCounter = meterRegistry.counter("porikroma.socket.outbox.disconnects");
+
+        drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "socket-outbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+        drainer.scheduleWithFixedDelay(this::drainBacklogged, drainIntervalMs, drainIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        drainer.shutdownNow();
+    }
+
+    public void register(SocketIOClient client) {
+        sessions.putIfAbsent(client.getSessionId(), new SessionQueue(client));
+    }
+
+    public void unregister(UUID sessionId) {
+        SessionQueue queue = sessions.remove(sessionId);
+        if (queue != null) {
+            synchronized (queue) {
+                queue.closed = true;
+                queue.events.clear();
+            }
+            backlogged.remove(queue);
+        }
+    }
+
+    public void sendToRoom(String room, String event, Object data) {
+        for (SocketIOClient client : server.getRoomOperations(room).getClients()) {
+            send(client, event, data);
+        }
+    }
+
+    public void send(SocketIOClient client, String event, Object data) {
+        SessionQueue queue = sessions.get(client.getSessionId());
+        if (queue == null) {
+            // Not registered (yet, or any more); nothing queued for it to overtake
+            client.sendEvent(event, data);
+            return;
+        }
+        boolean disconnect = false;
+        synchronized (queue) {
+            if (queue.closed) {
+                return;
+            }
+            // Queued events go first so the client sees everything in order
+            if (queue.events.isEmpty() && client.isWritable()) {
+                client.sendEvent(event, data);
+                return;
+            }
+            if (queue.events.size() >= capacity) {
+                disconnect = overflow(queue);
+            }
+            if (!disconnect) {
+                queue.events.add(SocketEventDto.builder().event(event).data(data).build());
+                backlogged.add(queue);
+            }
+        }
+        if (disconnect) {
+            disconnectCounter.increment();
+            unregister(client.getSessionId());
+            client.disconnect();
+        }
+    }
+
+    // Makes room in a full queue; true when the session should be dropped instead
+    private boolean overflow(SessionQueue queue) {
+        switch (overflowPolicy) {
+            case "drop_oldest" -> {
+                queue.events.poll();
+                droppedCounter.increment();
+                return false;
+            }
+            case "coalesce" -> {
+                int dropped = queue.events.size();
+                boolean resyncQueued = RESYNC_EVENT.equals(queue.events.peek().getEvent());
+                queue.events.clear();
+                queue.droppedSinceResync += resyncQueued ? dropped - 1 : dropped;
+                // Data is filled in when the resync is actually sent
+                queue.events.add(SocketEventDto.builder().event(RESYNC_EVENT).build());
+                droppedCounter.increment(resyncQueued ? dropped - 1 : dropped);
+                if (!resyncQueued) {
+                    resyncCounter.increment();
+                }
+                return false;
+            }
+            default -> {
+                return true;
+            }
+        }
+    }
+
+    private void drainBacklogged() {
+        for (SessionQueue queue : backlogged) {
+            try {
+                synchronized (queue) {
+                    if (queue.closed || !queue.client.isChannelOpen()) {
+                        queue.events.clear();
+                    }
+                    while (!queue.events.isEmpty() && queue.client.isWritable()) {
+                        SocketEventDto next = queue.events.poll();
+                        if (RESYNC_EVENT.equals(next.getEvent())) {
+                            queue.client.sendEvent(RESYNC_EVENT, Map.of("droppedEvents", queue.droppedSinceResync));
+                            queue.droppedSinceResync = 0;
+                        } else {
+                            queue.client.sendEvent(next.getEvent(), next.getData());
+                        }
+                    }
+                    if (queue.events.isEmpty()) {
+                        backlogged.remove(queue);
+                    }
+                }
+            } catch (RuntimeException e) {
+                System.err.println("SocketOutbox: drain failed for " + queue.client.getSessionId() + " - " + e.getMessage());
+            }
+        }
+    }
+
+    private int depth(SessionQueue queue) {
+        synchronized (queue) {
+            return queue.events.size();
+        }
+    }
+}
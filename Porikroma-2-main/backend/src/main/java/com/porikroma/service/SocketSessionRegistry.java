@@ -0,0 +1,53 @@
+package com.porikroma.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Authenticated Socket.IO sessions per user on this node. A user with several tabs or devices
+ * has several sessions; the user counts as online while any of them is connected.
+ */
+@Component
+public class SocketSessionRegistry {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Long, Set<UUID>> sessionsByUser = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("porikroma.socket.online_users", sessionsByUser, Map::size)
+            .description("Users with at least one connected socket on this node")
+            .register(meterRegistry);
+    }
+
+    public void register(Long userId, UUID sessionId) {
+        sessionsByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(sessionId);
+    }
+
+    public void unregister(Long userId, UUID sessionId) {
+        // Drop the user entry atomically with its last session so a concurrent register isn't lost
+        sessionsByUser.computeIfPresent(userId, (id, sessions) -> {
+            sessions.remove(sessionId);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    public boolean isOnline(Long userId) {
+        return sessionsByUser.containsKey(userId);
+    }
+
+    public Set<UUID> getSessionIds(Long userId) {
+        Set<UUID> sessions = sessionsByUser.get(userId);
+        return sessions != null ? Set.copyOf(sessions) : Set.of();
+    }
+}
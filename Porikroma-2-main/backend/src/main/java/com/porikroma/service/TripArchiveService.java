@@ -0,0 +1,187 @@
+package com.porikroma.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.porikroma.dto.ExpenseDto;
+import com.porikroma.dto.ExpenseSettlementDto;
+import com.porikroma.dto.TripArchiveDto;
+import com.porikroma.dto.TripMessageDto;
+import com.porikroma.exception.BadRequestException;
+import com.porikroma.repository.ChatRepository;
+import com.porikroma.repository.ExpenseRepository;
+import com.porikroma.repository.SchedulerLockRepository;
+import com.porikroma.repository.TripArchiveRepository;
+import com.porikroma.repository.TripCostLedgerRepository;
+import com.porikroma.util.TransactionHooks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves the messages, expenses and settlements of trips completed more than N days ago out of
+ * the hot tables into one gzipped JSON document per trip. Archived trips stay readable through
+ * the usual endpoints but reject further writes.
+ */
+@Service
+public class TripArchiveService {
+
+    private static final String LOCK_NAME = "trip-archive";
+
+    @Autowired
+    private TripArchiveRepository tripArchiveRepository;
+
+    @Autowired
+    private ChatRepository chatRepository;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private TripCostLedgerRepository tripCostLedgerRepository;
+
+    @Autowired
+    private SchedulerLockRepository schedulerLockRepository;
+
+    @Autowired
+    private TripVersionCache tripVersionCache;
+
+    @Autowired
+    private RecentMessageCache recentMessageCache;
+
+    @Autowired
+    private PollVoteEngine pollVoteEngine;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${porikroma.trip-archive.after-days:90}")
+    private int afterDays;
+
+    @Value("${porikroma.trip-archive.chunk-size:50}")
+    private int chunkSize;
+
+    @Value("${porikroma.trip-archive.lease-seconds:1800}")
+    private int leaseSeconds;
+
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID();
+
+    @Scheduled(cron = "${porikroma.trip-archive.cron:0 30 3 * * *}")
+    public void run() {
+        if (!schedulerLockRepository.tryAcquire(LOCK_NAME, owner, leaseSeconds)) {
+            return;
+        }
+        try {
+            int archived = archiveDueTrips();
+            if (archived > 0) {
+                System.out.println("TripArchiveService: archived " + archived + " trips");
+            }
+        } catch (Exception e) {
+            System.err.println("TripArchiveService: run failed - " + e.getMessage());
+        } finally {
+            schedulerLockRepository.release(LOCK_NAME, owner);
+        }
+    }
+
+    public int archiveDueTrips() {
+        LocalDate endedBefore = LocalDate.now().minusDays(afterDays);
+        int total = 0;
+        while (true) {
+            List<Long> tripIds = tripArchiveRepository.findTripIdsDueForArchive(endedBefore, chunkSize);
+            int archived = 0;
+            for (Long tripId : tripIds) {
+                // One transaction per trip keeps each payload's locks short
+                if (Boolean.TRUE.equals(transactionTemplate.execute(tx -> archiveTrip(tripId)))) {
+                    archived++;
+                }
+            }
+            total += archived;
+            if (tripIds.size() < chunkSize || archived == 0) {
+                return total;
+            }
+        }
+    }
+
+    private boolean archiveTrip(Long tripId) {
+        if (!tripArchiveRepository.lockForArchive(tripId)) {
+            return false;
+        }
+        // Votes go with the purged messages, so freeze the final tallies into the archive
+        List<TripMessageDto> messages = pollVoteEngine.attachCounts(chatRepository.findByTripIdOrderByCreatedAt(tripId));
+        List<ExpenseDto> expenses = expenseRepository.findByTripId(tripId);
+        List<ExpenseSettlementDto> settlements = expenseRepository.findSettlementsByTripId(tripId);
+        Map<Long, List<ExpenseSettlementDto>> settlementsByExpense = settlements.stream()
+            .collect(Collectors.groupingBy(ExpenseSettlementDto::getExpenseId));
+        expenses.forEach(expense -> expense.setSettlements(settlementsByExpense.getOrDefault(expense.getExpenseId(), List.of())));
+
+        TripArchiveDto archive = TripArchiveDto.builder()
+            .tripId(tripId)
+            .archivedAt(LocalDateTime.now())
+            .messages(messages)
+            .expenses(expenses)
+            .build();
+        tripArchiveRepository.save(tripId, compress(archive), messages.size(), expenses.size(), settlements.size());
+        // The ledger can't be recomputed once the expenses are gone, so settle any drift now
+        tripCostLedgerRepository.rebuild(tripId);
+        tripArchiveRepository.purgeHotRows(tripId);
+        tripVersionCache.evict(tripId);
+        TransactionHooks.afterCommit(() -> recentMessageCache.evict(tripId));
+        return true;
+    }
+
+    public Optional<TripArchiveDto> findArchive(Long tripId) {
+        return tripArchiveRepository.findPayloadByTripId(tripId).map(this::decompress);
+    }
+
+    // Plain read for choosing between hot rows and the archive; writes go through ensureNotArchived
+    public boolean isArchived(Long tripId) {
+        return tripArchiveRepository.isArchived(tripId);
+    }
+
+    // Call inside the writing transaction: the share lock sees an archive that committed meanwhile
+    // and makes a later archive run wait until this write is committed
+    public void ensureNotArchived(Long tripId) {
+        if (tripId != null && tripArchiveRepository.lockUnarchived(List.of(tripId)).isEmpty()
+                && tripArchiveRepository.isArchived(tripId)) {
+            throw new BadRequestException("Trip is archived and can no longer be changed");
+        }
+    }
+
+    private byte[] compress(TripArchiveDto archive) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, archive);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write archive for trip " + archive.getTripId(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private TripArchiveDto decompress(byte[] payload) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            return objectMapper.readValue(in, TripArchiveDto.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read trip archive", e);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.porikroma.service;
+
+import com.porikroma.dto.TripDto;
+import com.porikroma.repository.TripRepository;
+import com.porikroma.util.IntervalTree;
+import com.porikroma.util.TransactionHooks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * In-memory interval index over trip start/end dates, answering overlap, containment and
+ * "active on day X" queries without scanning the trips table. Loaded once at startup and
+ * kept current from trip create/update/delete after each commit.
+ */
+@Component
+public class TripDateIndex {
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    private final IntervalTree tree = new IntervalTree();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            reload();
+        } catch (DataAccessException e) {
+            // Retried on the first query
+            System.err.println("TripDateIndex: initial load failed - " + e.getMessage());
+        }
+    }
+
+    public int reload() {
+        List<TripDto> ranges = tripRepository.findDateRanges();
+        lock.writeLock().lock();
+        try {
+            tree.clear();
+            for (TripDto range : ranges) {
+                putRange(range.getTripId(), range.getStartDate(), range.getEndDate());
+            }
+            loaded = true;
+            return tree.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Long> findOverlapping(LocalDate from, LocalDate to) {
+        return read(() -> tree.findOverlapping(from, to));
+    }
+
+    public List<Long> findContainedIn(LocalDate from, LocalDate to) {
+        return read(() -> tree.findContainedIn(from, to));
+    }
+
+    public List<Long> findActiveOn(LocalDate day) {
+        return read(() -> tree.findActiveOn(day));
+    }
+
+    public void onTripSaved(Long tripId, LocalDate startDate, LocalDate endDate) {
+        TransactionHooks.afterCommit(() -> write(() -> putRange(tripId, startDate, endDate)));
+    }
+
+    public void onTripDeleted(Long tripId) {
+        TransactionHooks.afterCommit(() -> write(() -> tree.remove(tripId)));
+    }
+
+    private void putRange(Long tripId, LocalDate startDate, LocalDate endDate) {
+        // Trips without both dates (or with inverted ones) can't match any date query
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            tree.remove(tripId);
+        } else {
+            tree.put(tripId, startDate, endDate);
+        }
+    }
+
+    private List<Long> read(Supplier<List<Long>> query) {
+        if (!loaded) {
+            reload();
+        }
+        lock.readLock().lock();
+        try {
+            return query.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
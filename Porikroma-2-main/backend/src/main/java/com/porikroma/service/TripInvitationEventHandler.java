@@ -0,0 +1,86 @@
+package com.porikroma.service;
+
+import com.porikroma.event.TripInvitationBatchCreatedEvent;
+import com.porikroma.event.TripInvitationCreatedEvent;
+import com.porikroma.repository.TripRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Fans a committed invitation out to the trip chat, the invitee's notifications and their socket.
+ * Runs on the bounded invitation executor, so the inviting request only pays for the insert.
+ * When that executor stays saturated the fan-out is dropped (the invitation itself is already
+ * committed and listed for the invitee), so it never runs on the committing request's thread.
+ */
+@Component
+public class TripInvitationEventHandler {
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private UserProfileCache userProfileCache;
+
+    @Async("invitationExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onInvitationCreated(TripInvitationCreatedEvent event) {
+        try {
+            String tripName = tripRepository.findById(event.getTripId())
+                .map(trip -> trip.getTripName())
+                .orElse(null);
+            if (tripName == null) {
+                // Trip was deleted before the event was processed
+                return;
+            }
+
+            // The stored profile wins over whatever name the client sent
+            String inviterName = userProfileCache.getDisplayName(event.getInviterUserId(), event.getInviterName());
+            chatService.sendSystemMessage(event.getTripId(),
+                inviterName + " invited a new member to join " + tripName);
+
+            notificationService.createTripInvitationNotification(
+                event.getInviteeUserId(),
+                tripName,
+                inviterName,
+                event.getInvitationId()
+            );
+        } catch (Exception e) {
+            System.err.println("Failed to process invitation " + event.getInvitationId() + ": " + e.getMessage());
+        }
+    }
+
+    @Async("invitationExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onInvitationBatchCreated(TripInvitationBatchCreatedEvent event) {
+        try {
+            String tripName = tripRepository.findById(event.getTripId())
+                .map(trip -> trip.getTripName())
+                .orElse(null);
+            if (tripName == null) {
+                return;
+            }
+
+            int count = event.getInvitations().size();
+            String inviterName = userProfileCache.getDisplayName(event.getInviterUserId(), event.getInviterName());
+            chatService.sendSystemMessage(event.getTripId(), inviterName + " invited " + count
+                + (count == 1 ? " new member" : " new members") + " to join " + tripName);
+
+            notificationService.createTripInvitationNotifications(event.getInvitations(), tripName, inviterName);
+        } catch (Exception e) {
+            System.err.println("Failed to process bulk invitation for trip " + event.getTripId() + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.porikroma.service;
+
+import com.porikroma.event.TripStatusChangedEvent;
+import com.porikroma.repository.SchedulerLockRepository;
+import com.porikroma.repository.TripRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Moves trips to ONGOING once they start and to COMPLETED once they end. Runs in chunks, each its
+ * own short transaction, and only on the node holding the scheduler_locks lease.
+ */
+@Component
+public class TripLifecycleScheduler {
+
+    private static final String LOCK_NAME = "trip-lifecycle";
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private SchedulerLockRepository schedulerLockRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${porikroma.trip-lifecycle.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${porikroma.trip-lifecycle.lease-seconds:240}")
+    private int leaseSeconds;
+
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID();
+
+    @Scheduled(fixedDelayString = "${porikroma.trip-lifecycle.interval-ms:300000}",
+               initialDelayString = "${porikroma.trip-lifecycle.initial-delay-ms:60000}")
+    public void run() {
+        if (!schedulerLockRepository.tryAcquire(LOCK_NAME, owner, leaseSeconds)) {
+            return;
+        }
+        try {
+            LocalDate today = LocalDate.now();
+            // Finished trips first, so a trip that is already over never passes through ONGOING
+            int completed = transition("COMPLETED", today);
+            int started = transition("ONGOING", today);
+            if (completed > 0 || started > 0) {
+                System.out.println("TripLifecycleScheduler: " + started + " trips started, " + completed + " completed");
+            }
+        } catch (Exception e) {
+            System.err.println("TripLifecycleScheduler: run failed - " + e.getMessage());
+        } finally {
+            schedulerLockRepository.release(LOCK_NAME, owner);
+        }
+    }
+
+    private int transition(String status, LocalDate today) {
+        int total = 0;
+        while (true) {
+            int[] chunk = transactionTemplate.execute(tx -> {
+                List<Long> tripIds = tripRepository.findTripIdsDueForStatus(status, today, chunkSize);
+                int updated = tripRepository.updateStatusIfDue(tripIds, status, today);
+                if (updated > 0) {
+                    // Delivered after this chunk commits
+                    eventPublisher.publishEvent(TripStatusChangedEvent.builder().tripIds(tripIds).status(status).build());
+                }
+                return new int[] { tripIds.size(), updated };
+            });
+            total += chunk[1];
+            if (chunk[0] < chunkSize || chunk[1] == 0) {
+                return total;
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.porikroma.service;
+
+import com.porikroma.dto.TripMemberDto;
+import com.porikroma.repository.TripRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-memory roster per trip (userId -> role and invitation status) used for authorization checks.
+ * Loaded on first access, evicted whenever the trip's membership changes and reloaded after the TTL.
+ * Bounded LRU; expired rosters of trips nobody is looking at are swept out periodically.
+ */
+@Component
+public class TripRosterCache {
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private ClusterFanout clusterFanout;
+
+    @Value("${porikroma.trip-roster-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${porikroma.trip-roster-cache.ttl-ms:30000}")
+    private long ttlMs;
+
+    // Compared by identity; roster is null while a load holds the slot
+    private static final class Entry {
+        final Map<Long, TripMemberDto> roster;
+        final long loadedAtMillis;
+
+        Entry(Map<Long, TripMemberDto> roster, long loadedAtMillis) {
+            this.roster = roster;
+            this.loadedAtMillis = loadedAtMillis;
+        }
+    }
+
+    // Guarded by itself
+    private final LinkedHashMap<Long, Entry> rosters = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > maxSize;
+        }
+    };
+    private final List<Consumer<Long>> changeListeners = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    public void init() {
+        // Another node changed the trip; the next read here reloads it
+        clusterFanout.onInvalidation("trip-roster", tripId -> {
+            remove(tripId);
+            notifyChanged(tripId);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${porikroma.trip-roster-cache.sweep-interval-ms:60000}")
+    public void removeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (rosters) {
+            // Slots held by a load in progress are released by that load
+            rosters.values().removeIf(entry -> entry.roster != null && now - entry.loadedAtMillis >= ttlMs);
+        }
+    }
+
+    // Called with the trip id once a membership change has completed, here or on another node
+    public void onChange(Consumer<Long> listener) {
+        changeListeners.add(listener);
+    }
+
+    public boolean isAcceptedMember(Long tripId, Long userId) {
+        TripMemberDto member = getRoster(tripId).get(userId);
+        return member != null && "ACCEPTED".equals(member.getInvitationStatus());
+    }
+
+    public boolean canEdit(Long tripId, Long userId) {
+        TripMemberDto member = getRoster(tripId).get(userId);
+        return member != null &&
+            ("CREATOR".equals(member.getMemberRole()) || "ADMIN".equals(member.getMemberRole()));
+    }
+
+    public void evict(Long tripId) {
+        remove(tripId);
+
+        // Evict again when the surrounding transaction finishes, so a reload that raced
+        // with the uncommitted change (or a rolled back one) is not kept
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    remove(tripId);
+                    clusterFanout.publishInvalidation("trip-roster", tripId);
+                    notifyChanged(tripId);
+                }
+            });
+        } else {
+            clusterFanout.publishInvalidation("trip-roster", tripId);
+            notifyChanged(tripId);
+        }
+    }
+
+    private void remove(Long tripId) {
+        synchronized (rosters) {
+            rosters.remove(tripId);
+        }
+    }
+
+    private void notifyChanged(Long tripId) {
+        for (Consumer<Long> listener : changeListeners) {
+            listener.accept(tripId);
+        }
+    }
+
+    private Map<Long, TripMemberDto> getRoster(Long tripId) {
+        long now = System.currentTimeMillis();
+        // Stamp the slot before the query; an evict in between removes the stamp, so a roster
+        // read before a concurrent membership change committed is never stored
+        Entry stamp = new Entry(null, now);
+        synchronized (rosters) {
+            Entry cached = rosters.get(tripId);
+            if (cached != null && cached.roster != null && now - cached.loadedAtMillis < ttlMs) {
+                return cached.roster;
+            }
+            rosters.put(tripId, stamp);
+        }
+        try {
+            Map<Long, TripMemberDto> roster = new HashMap<>();
+            for (TripMemberDto member : tripRepository.findRosterByTripId(tripId)) {
+                roster.put(member.getUserId(), member);
+            }
+            synchronized (rosters) {
+                rosters.replace(tripId, stamp, new Entry(roster, now));
+            }
+            return roster;
+        } finally {
+            synchronized (rosters) {
+                rosters.remove(tripId, stamp);
+            }
+        }
+    }
+}
@@ -1,17 +1,36 @@
 package com.porikroma.service;
 
+import com.porikroma.dto.BatchInsertResultDto;
+import com.porikroma.dto.BulkInviteOutcomeDto;
+import com.porikroma.dto.BulkInviteRequest;
+import com.porikroma.dto.BulkInviteResultDto;
+import com.porikroma.dto.CloneTripRequest;
+import com.porikroma.dto.ItineraryDto;
+import com.porikroma.dto.CursorPageDto;
 import com.porikroma.dto.TripDto;
 import com.porikroma.dto.TripMemberDto;
 import com.porikroma.dto.TripInvitationDto;
+import com.porikroma.event.TripInvitationBatchCreatedEvent;
+import com.porikroma.event.TripInvitationCreatedEvent;
+import com.porikroma.exception.BadRequestException;
+import com.porikroma.repository.TripCostLedgerRepository;
 import com.porikroma.repository.TripRepository;
+import com.porikroma.util.TripCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.Optional;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @Transactional
@@ -21,32 +40,60 @@ public class TripService {
     private TripRepository tripRepository;
 
     @Autowired
-    @Lazy
-    private ChatService chatService;
+    private TripRosterCache tripRosterCache;
+
+    @Autowired
+    private TripCostLedgerRepository tripCostLedgerRepository;
+
+    @Autowired
+    private PopularTripsLeaderboard popularTripsLeaderboard;
+
+    @Autowired
+    private TripDateIndex tripDateIndex;
+
+    @Autowired
+    private TripVersionCache tripVersionCache;
+
+    @Autowired
+    private ItineraryOptimizer itineraryOptimizer;
+
+    @Autowired
+    private TripArchiveService tripArchiveService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     @Autowired
     @Lazy
-    private NotificationService notificationService;
+    private ChatService chatService;
+
+    private static final int MAX_BULK_INVITEES = 100;
+
+    // Newest UNPAGED_LIMIT trips; nextCursor continues through the paged endpoint
+    public CursorPageDto<TripDto> getUserTrips(Long userId) {
+        return tripRepository.findByUserIdPage(userId, null, TripCursor.UNPAGED_LIMIT);
+    }
 
-    public List<TripDto> getUserTrips(Long userId) {
-        return tripRepository.findByUserId(userId);
+    public CursorPageDto<TripDto> getUserTripsPage(Long userId, String cursor, Integer limit) {
+        return tripRepository.findByUserIdPage(userId, TripCursor.decode(cursor), TripCursor.clampPageSize(limit));
+    }
+
+    public List<TripDto> getPopularTrips(int limit) {
+        return popularTripsLeaderboard.getTopTrips(limit);
+    }
+
+    public Optional<Long> getTripVersion(Long tripId) {
+        return tripVersionCache.getVersion(tripId);
     }
 
     public TripDto getTripById(Long tripId) {
-        TripDto trip = tripRepository.findById(tripId)
+        // Members, items, expenses, member count and total cost come back in one round trip
+        TripDto trip = tripRepository.findTripAggregateById(tripId)
             .orElseThrow(() -> new RuntimeException("Trip not found"));
-        
-        // Populate all nested collections
-        trip.setMembers(tripRepository.findMembersByTripId(tripId));
-        trip.setSubDestinations(tripRepository.findSubDestinationsByTripId(tripId));
-        trip.setAccommodations(tripRepository.findAccommodationsByTripId(tripId));
-        trip.setTransports(tripRepository.findTransportsByTripId(tripId));
-        trip.setExpenses(tripRepository.findExpensesByTripId(tripId));
-        
-        // Set calculated values
-        trip.setMemberCount((int) tripRepository.countMembersByTripId(tripId));
-        trip.setTotalExpenses(tripRepository.getTotalExpensesByTripId(tripId));
-        
+        if (trip.getArchivedAt() != null) {
+            // Expenses left the hot tables; the ledger still holds the trip's totals
+            tripArchiveService.findArchive(tripId).ifPresent(archive -> trip.setExpenses(archive.getExpenses()));
+        }
         return trip;
     }
 
@@ -55,11 +102,45 @@ public class TripService {
         tripDto.setUpdatedAt(LocalDateTime.now());
         
         TripDto savedTrip = tripRepository.save(tripDto);
+        tripCostLedgerRepository.createEmpty(savedTrip.getTripId());
+        tripDateIndex.onTripSaved(savedTrip.getTripId(), savedTrip.getStartDate(), savedTrip.getEndDate());
         
-        // Add creator as a member
+        addCreatorMember(savedTrip.getTripId(), savedTrip.getCreatorUserId());
+        
+        // Send welcome message
+        chatService.sendSystemMessage(savedTrip.getTripId(), 
+            "Welcome to " + savedTrip.getTripName() + "! Start planning your adventure together.");
+        
+        return savedTrip;
+    }
+
+    // Members can clone their own trips; public trips act as templates anyone can clone
+    public TripDto cloneTrip(Long sourceTripId, Long userId, CloneTripRequest request) {
+        TripDto source = tripRepository.findById(sourceTripId)
+            .orElseThrow(() -> new RuntimeException("Trip not found"));
+        if (!isUserTripMember(sourceTripId, userId) && !tripRepository.isPublicTrip(sourceTripId)) {
+            throw new RuntimeException("Not authorized to clone this trip");
+        }
+
+        int shiftDays = request.getStartDate() != null && source.getStartDate() != null
+            ? (int) ChronoUnit.DAYS.between(source.getStartDate(), request.getStartDate())
+            : 0;
+        Long tripId = tripRepository.cloneTrip(sourceTripId, userId, request.getTripName(), shiftDays);
+
+        addCreatorMember(tripId, userId);
+        tripCostLedgerRepository.rebuild(tripId);
+
+        TripDto clonedTrip = getTripById(tripId);
+        tripDateIndex.onTripSaved(tripId, clonedTrip.getStartDate(), clonedTrip.getEndDate());
+        chatService.sendSystemMessage(tripId,
+            "Welcome to " + clonedTrip.getTripName() + "! This plan was copied from " + source.getTripName() + ".");
+        return clonedTrip;
+    }
+
+    private void addCreatorMember(Long tripId, Long creatorUserId) {
         TripMemberDto creatorMember = TripMemberDto.builder()
-            .tripId(savedTrip.getTripId())
-            .userId(savedTrip.getCreatorUserId())
+            .tripId(tripId)
+            .userId(creatorUserId)
             .memberRole("CREATOR")
             .invitationStatus("ACCEPTED")
             .invitedAt(LocalDateTime.now())
@@ -67,26 +148,29 @@ public class TripService {
             .build();
         
         tripRepository.addMember(creatorMember);
-        
-        // Send welcome message
-        chatService.sendSystemMessage(savedTrip.getTripId(), 
-            "Welcome to " + savedTrip.getTripName() + "! Start planning your adventure together.");
-        
-        return savedTrip;
+        tripRosterCache.evict(tripId);
+        popularTripsLeaderboard.onTripChanged(tripId);
     }
 
     public TripDto updateTrip(Long tripId, TripDto tripDto, Long userId) {
         // Validate trip exists (throws exception if not found)
-        getTripById(tripId);
+        TripDto existingTrip = getTripById(tripId);
         
         if (!canEditTrip(tripId, userId)) {
             throw new RuntimeException("Not authorized to update this trip");
         }
+        if (existingTrip.getArchivedAt() != null) {
+            throw new BadRequestException("Trip is archived and can no longer be changed");
+        }
         
         tripDto.setTripId(tripId);
         tripDto.setUpdatedAt(LocalDateTime.now());
         
-        return tripRepository.update(tripId, tripDto);
+        TripDto updatedTrip = tripRepository.update(tripId, tripDto);
+        tripVersionCache.bump(tripId);
+        tripDateIndex.onTripSaved(tripId, updatedTrip.getStartDate(), updatedTrip.getEndDate());
+        popularTripsLeaderboard.onTripChanged(tripId);
+        return updatedTrip;
     }
 
     public void deleteTrip(Long tripId, Long userId) {
@@ -97,6 +181,10 @@ public class TripService {
         }
         
         tripRepository.deleteById(tripId);
+        tripRosterCache.evict(tripId);
+        popularTripsLeaderboard.onTripDeleted(tripId);
+        tripDateIndex.onTripDeleted(tripId);
+        tripVersionCache.evict(tripId);
     }
 
     public List<TripMemberDto> getTripMembers(Long tripId) {
@@ -107,24 +195,21 @@ public class TripService {
         if (!canEditTrip(invitationDto.getTripId(), invitationDto.getInviterUserId())) {
             throw new RuntimeException("Not authorized to invite users to this trip");
         }
+        tripArchiveService.ensureNotArchived(invitationDto.getTripId());
         
         invitationDto.setInvitedAt(LocalDateTime.now());
         invitationDto.setStatus("PENDING");
         
         TripInvitationDto savedInvitation = tripRepository.saveInvitation(invitationDto);
         
-        // Send system message about invitation
-        TripDto trip = getTripById(invitationDto.getTripId());
-        chatService.sendSystemMessage(invitationDto.getTripId(), 
-            invitationDto.getInviterName() + " invited a new member to join " + trip.getTripName());
-        
-        // Create notification for the invited user
-        notificationService.createTripInvitationNotification(
-            invitationDto.getInviteeUserId(),
-            trip.getTripName(),
-            invitationDto.getInviterName(),
-            savedInvitation.getInvitationId()
-        );
+        // System message, notification and socket push run asynchronously after commit
+        eventPublisher.publishEvent(TripInvitationCreatedEvent.builder()
+            .invitationId(savedInvitation.getInvitationId())
+            .tripId(savedInvitation.getTripId())
+            .inviterUserId(savedInvitation.getInviterUserId())
+            .inviterName(savedInvitation.getInviterName())
+            .inviteeUserId(savedInvitation.getInviteeUserId())
+            .build());
         
         return savedInvitation;
     }
@@ -171,6 +256,9 @@ public class TripService {
                     .build();
                 
                 tripRepository.addMember(member);
+                tripRosterCache.evict(invitation.getTripId());
+                popularTripsLeaderboard.onTripChanged(invitation.getTripId());
+                tripVersionCache.bump(invitation.getTripId());
                 
                 // Send system message
                 TripDto trip = getTripById(invitation.getTripId());
@@ -186,45 +274,143 @@ public class TripService {
         return tripRepository.hasUserInvitation(tripId, userId);
     }
 
+    public BulkInviteResultDto bulkInviteToTrip(Long tripId, Long inviterUserId, BulkInviteRequest request) {
+        List<Long> inviteeUserIds = request.getInviteeUserIds();
+        if (inviteeUserIds == null || inviteeUserIds.isEmpty()) {
+            throw new BadRequestException("No invitees given");
+        }
+        if (inviteeUserIds.size() > MAX_BULK_INVITEES) {
+            throw new BadRequestException("At most " + MAX_BULK_INVITEES + " invitees per request");
+        }
+        if (!canEditTrip(tripId, inviterUserId)) {
+            throw new RuntimeException("Not authorized to invite users to this trip");
+        }
+        // Concurrent bulk invites to the same trip queue here, so each sees the other's pending
+        // invitations and no invitee gets two; taken before the archive check's share lock
+        tripRepository.lockById(tripId);
+        tripArchiveService.ensureNotArchived(tripId);
+
+        // Membership and pending invitations for every invitee in one query
+        Map<Long, String> states = tripRepository.findInviteeStates(tripId, inviteeUserIds);
+
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> seen = new HashSet<>();
+        List<BulkInviteOutcomeDto> outcomes = new ArrayList<>();
+        List<TripInvitationDto> invitations = new ArrayList<>();
+        for (Long inviteeUserId : inviteeUserIds) {
+            String status;
+            if (inviteeUserId == null || !seen.add(inviteeUserId)) {
+                status = "DUPLICATE";
+            } else if (inviteeUserId.equals(inviterUserId)) {
+                status = "SELF";
+            } else {
+                status = states.getOrDefault(inviteeUserId, "USER_NOT_FOUND");
+            }
+
+            BulkInviteOutcomeDto outcome = BulkInviteOutcomeDto.builder()
+                .inviteeUserId(inviteeUserId)
+                .status("ELIGIBLE".equals(status) ? "INVITED" : status)
+                .build();
+            outcomes.add(outcome);
+            if ("ELIGIBLE".equals(status)) {
+                invitations.add(TripInvitationDto.builder()
+                    .tripId(tripId)
+                    .inviterUserId(inviterUserId)
+                    .inviterName(request.getInviterName())
+                    .inviteeUserId(inviteeUserId)
+                    .invitationMessage(request.getInvitationMessage())
+                    .status("PENDING")
+                    .invitedAt(now)
+                    .build());
+            }
+        }
+
+        tripRepository.saveInvitations(invitations);
+
+        Map<Long, Long> invitationIds = new HashMap<>();
+        for (TripInvitationDto invitation : invitations) {
+            invitationIds.put(invitation.getInviteeUserId(), invitation.getInvitationId());
+        }
+        for (BulkInviteOutcomeDto outcome : outcomes) {
+            if ("INVITED".equals(outcome.getStatus())) {
+                outcome.setInvitationId(invitationIds.get(outcome.getInviteeUserId()));
+            }
+        }
+
+        if (!invitations.isEmpty()) {
+            // One summarized system message and one batched notification insert, after commit
+            eventPublisher.publishEvent(TripInvitationBatchCreatedEvent.builder()
+                .tripId(tripId)
+                .inviterUserId(inviterUserId)
+                .inviterName(request.getInviterName())
+                .invitations(invitations)
+                .build());
+        }
+
+        return BulkInviteResultDto.builder()
+            .invitedCount(invitations.size())
+            .outcomes(outcomes)
+            .build();
+    }
+
     public Optional<TripInvitationDto> findInvitationById(Long invitationId) {
         return tripRepository.findInvitationById(invitationId);
     }
 
-    public void addSubDestinationsToTrip(Long tripId, List<Long> subDestinationIds, Long userId) {
+    public BatchInsertResultDto addSubDestinationsToTrip(Long tripId, List<Long> subDestinationIds, Long userId) {
         if (!canEditTrip(tripId, userId)) {
             throw new RuntimeException("Not authorized to modify this trip");
         }
+        tripArchiveService.ensureNotArchived(tripId);
         
-        tripRepository.addSubDestinations(tripId, subDestinationIds);
+        BatchInsertResultDto result = tripRepository.addSubDestinations(tripId, subDestinationIds);
+        if (!result.getInsertedIds().isEmpty()) {
+            tripCostLedgerRepository.refreshSubDestinations(tripId);
+            tripVersionCache.bump(tripId);
+        }
+        return result;
     }
 
-    public void addAccommodationsToTrip(Long tripId, List<Long> accommodationIds, Long userId) {
+    public BatchInsertResultDto addAccommodationsToTrip(Long tripId, List<Long> accommodationIds, Long userId) {
         if (!canEditTrip(tripId, userId)) {
             throw new RuntimeException("Not authorized to modify this trip");
         }
+        tripArchiveService.ensureNotArchived(tripId);
         
-        tripRepository.addAccommodations(tripId, accommodationIds);
+        BatchInsertResultDto result = tripRepository.addAccommodations(tripId, accommodationIds);
+        if (!result.getInsertedIds().isEmpty()) {
+            tripCostLedgerRepository.refreshAccommodations(tripId);
+            tripVersionCache.bump(tripId);
+        }
+        return result;
     }
 
-    public void addTransportsToTrip(Long tripId, List<Long> transportIds, Long userId) {
+    public BatchInsertResultDto addTransportsToTrip(Long tripId, List<Long> transportIds, Long userId) {
         if (!canEditTrip(tripId, userId)) {
             throw new RuntimeException("Not authorized to modify this trip");
         }
+        tripArchiveService.ensureNotArchived(tripId);
         
-        tripRepository.addTransports(tripId, transportIds);
+        BatchInsertResultDto result = tripRepository.addTransports(tripId, transportIds);
+        if (!result.getInsertedIds().isEmpty()) {
+            tripCostLedgerRepository.refreshTransport(tripId);
+            tripVersionCache.bump(tripId);
+        }
+        return result;
+    }
+
+    public ItineraryDto getOptimizedItinerary(Long tripId, Long startSubDestinationId) {
+        ItineraryDto itinerary = itineraryOptimizer.optimize(
+            tripRepository.findSubDestinationsByTripId(tripId), startSubDestinationId);
+        itinerary.setTripId(tripId);
+        return itinerary;
     }
 
     public boolean isUserTripMember(Long tripId, Long userId) {
-        List<TripMemberDto> members = getTripMembers(tripId);
-        return members.stream()
-            .anyMatch(member -> member.getUserId().equals(userId) && 
-                     "ACCEPTED".equals(member.getInvitationStatus()));
+        return tripRosterCache.isAcceptedMember(tripId, userId);
     }
 
     private boolean canEditTrip(Long tripId, Long userId) {
-        List<TripMemberDto> members = getTripMembers(tripId);
-        return members.stream()
-            .anyMatch(member -> member.getUserId().equals(userId) && 
-                     ("CREATOR".equals(member.getMemberRole()) || "ADMIN".equals(member.getMemberRole())));
+        return tripRosterCache.canEdit(tripId, userId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.porikroma.service;
+
+import com.porikroma.dto.TripDto;
+import com.porikroma.event.TripStatusChangedEvent;
+import com.porikroma.repository.TripRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Refreshes caches and tells members when the lifecycle scheduler changes a trip's status.
+ */
+@Component
+public class TripStatusChangeHandler {
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private TripVersionCache tripVersionCache;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    // Runs after the chunk commits, so the notification writes need a transaction of their own
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onStatusChanged(TripStatusChangedEvent event) {
+        for (Long tripId : event.getTripIds()) {
+            tripVersionCache.evict(tripId);
+        }
+
+        try {
+            // Only trips that actually carry the new status; the chunk may include skipped ones
+            List<TripDto> trips = tripRepository.findByIds(event.getTripIds()).stream()
+                .filter(trip -> event.getStatus().equals(trip.getStatus()))
+                .toList();
+            Map<Long, List<Long>> members = tripRepository.findAcceptedMemberIdsByTripIds(
+                trips.stream().map(TripDto::getTripId).toList());
+            notificationService.createTripStatusNotifications(trips, members);
+        } catch (Exception e) {
+            System.err.println("Failed to notify members of trip status change: " + e.getMessage());
+        }
+    }
+}
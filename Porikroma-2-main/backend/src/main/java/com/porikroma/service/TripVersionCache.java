@@ -0,0 +1,95 @@
+package com.porikroma.service;
+
+import com.porikroma.repository.TripRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-trip change counter backing the trip detail ETag. Any change to a trip, its members,
+ * items or expenses bumps trips.version; reads are served from memory once loaded, for at most
+ * the TTL.
+ */
+@Component
+public class TripVersionCache {
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private ClusterFanout clusterFanout;
+
+    @Value("${porikroma.trip-version-cache.ttl-ms:30000}")
+    private long ttlMs;
+
+    // Compared by identity; version is null while a load holds the slot
+    private static final class Entry {
+        final Long version;
+        final long loadedAtMillis;
+
+        Entry(Long version, long loadedAtMillis) {
+            this.version = version;
+            this.loadedAtMillis = loadedAtMillis;
+        }
+    }
+
+    private final Map<Long, Entry> versions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        // Another node changed the trip; the next read here reloads it
+        clusterFanout.onInvalidation("trip-version", versions::remove);
+    }
+
+    public Optional<Long> getVersion(Long tripId) {
+        long now = System.currentTimeMillis();
+        Entry cached = versions.get(tripId);
+        if (cached != null && cached.version != null && now - cached.loadedAtMillis < ttlMs) {
+            return Optional.of(cached.version);
+        }
+        // Stamp the slot before the query; an evict in between removes the stamp, so a value
+        // read before a concurrent bump committed is never stored
+        Entry stamp = new Entry(null, now);
+        boolean stamped = cached == null
+            ? versions.putIfAbsent(tripId, stamp) == null
+            : versions.replace(tripId, cached, stamp);
+        try {
+            Optional<Long> loaded = tripRepository.findVersionById(tripId);
+            if (stamped && loaded.isPresent()) {
+                versions.replace(tripId, stamp, new Entry(loaded.get(), now));
+            }
+            return loaded;
+        } finally {
+            versions.remove(tripId, stamp);
+        }
+    }
+
+    public void bump(Long tripId) {
+        tripRepository.incrementVersion(tripId);
+        evict(tripId);
+    }
+
+    public void evict(Long tripId) {
+        versions.remove(tripId);
+
+        // Also drop whatever a concurrent reader cached before this transaction committed
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    versions.remove(tripId);
+                    clusterFanout.publishInvalidation("trip-version", tripId);
+                }
+            });
+        } else {
+            clusterFanout.publishInvalidation("trip-version", tripId);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.porikroma.service;
+
+import com.porikroma.dto.UserProfileDto;
+import com.porikroma.repository.UserProfileRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Bounded LRU of user display profiles (name and picture) for enriching chat messages and
+ * notifications without joining or querying users. Entries are dropped when the user is updated
+ * or deleted on this node, and expire after a while to pick up changes made on other nodes.
+ */
+@Component
+public class UserProfileCache {
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Value("${porikroma.user-profile-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${porikroma.user-profile-cache.ttl-ms:600000}")
+    private long ttlMs;
+
+    private record Entry(UserProfileDto profile, long loadedAtMillis) {
+    }
+
+    // Guarded by itself
+    private final LinkedHashMap<Long, Entry> profiles = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    public UserProfileDto get(Long userId) {
+        return userId == null ? null : getAll(Set.of(userId)).get(userId);
+    }
+
+    // Cached profiles plus one query for all the misses; unknown ids are simply absent
+    public Map<Long, UserProfileDto> getAll(Collection<Long> userIds) {
+        Map<Long, UserProfileDto> found = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        long now = System.currentTimeMillis();
+        synchronized (profiles) {
+            for (Long userId : userIds) {
+                if (userId == null) {
+                    continue;
+                }
+                Entry entry = profiles.get(userId);
+                if (entry != null && now - entry.loadedAtMillis() < ttlMs) {
+                    found.put(userId, entry.profile());
+                } else {
+                    missing.add(userId);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<UserProfileDto> loaded = userProfileRepository.findByIds(missing);
+            synchronized (profiles) {
+                for (UserProfileDto profile : loaded) {
+                    profiles.put(profile.getUserId(), new Entry(profile, now));
+                    found.put(profile.getUserId(), profile);
+                }
+            }
+        }
+        return found;
+    }
+
+    public String getDisplayName(Long userId, String fallback) {
+        UserProfileDto profile = get(userId);
+        return profile != null ? profile.getDisplayName() : fallback;
+    }
+
+    public void evict(Long userId) {
+        remove(userId);
+
+        // Also drop whatever a concurrent reader cached before the change committed
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    remove(userId);
+                }
+            });
+        }
+    }
+
+    private void remove(Long userId) {
+        synchronized (profiles) {
+            profiles.remove(Objects.requireNonNull(userId));
+        }
+    }
+}
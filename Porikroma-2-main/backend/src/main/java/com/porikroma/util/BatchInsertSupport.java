@@ -0,0 +1,78 @@
+package com.porikroma.util;
+
+import com.porikroma.dto.BatchInsertResultDto;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Links a list of catalog rows (sub-destinations, accommodations, users, ...) to a parent row
+ * with one lookup and one JDBC batch, reporting which ids were inserted and which were ignored.
+ * With rewriteBatchedStatements=true the batch is sent as a single multi-row INSERT.
+ *
+ * The link table needs a unique key on (parent, id) and the insert must be INSERT IGNORE, so a
+ * concurrent duplicate can never land. The parent row is locked first (the caller must be in a
+ * transaction) so concurrent calls for one parent run one after another and the report is exact.
+ */
+public final class BatchInsertSupport {
+
+    private BatchInsertSupport() {
+    }
+
+    public static BatchInsertResultDto insertMissing(JdbcTemplate jdbcTemplate,
+                                                     String catalogTable, String idColumn,
+                                                     String parentTable, String linkTable, String parentColumn, Long parentId,
+                                                     List<Long> ids,
+                                                     String insertSql, Function<Long, Object[]> insertArgs) {
+        List<Long> requestedIds = new ArrayList<>();
+        List<Long> ignoredIds = new ArrayList<>();
+        Set<Long> seen = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (id != null && seen.add(id)) {
+                requestedIds.add(id);
+            } else {
+                ignoredIds.add(id);
+            }
+        }
+        if (requestedIds.isEmpty()) {
+            return BatchInsertResultDto.builder().insertedIds(new ArrayList<>()).ignoredIds(ignoredIds).build();
+        }
+
+        jdbcTemplate.queryForList("SELECT " + parentColumn + " FROM " + parentTable +
+            " WHERE " + parentColumn + " = ? FOR UPDATE", Long.class, parentId);
+
+        // Batch results don't say which rows were ignored, so resolve that up front:
+        // ids that exist in the catalog and are not yet linked to the parent
+        String placeholders = String.join(",", Collections.nCopies(requestedIds.size(), "?"));
+        String sql = "SELECT c." + idColumn + " FROM " + catalogTable + " c " +
+            "WHERE c." + idColumn + " IN (" + placeholders + ") " +
+            "AND NOT EXISTS (SELECT 1 FROM " + linkTable + " l " +
+            "WHERE l." + parentColumn + " = ? AND l." + idColumn + " = c." + idColumn + ")";
+        List<Object> args = new ArrayList<>(requestedIds);
+        args.add(parentId);
+        Set<Long> insertable = new HashSet<>(jdbcTemplate.queryForList(sql, Long.class, args.toArray()));
+
+        List<Long> insertedIds = new ArrayList<>();
+        List<Object[]> batchArgs = new ArrayList<>();
+        for (Long id : requestedIds) {
+            if (insertable.contains(id)) {
+                insertedIds.add(id);
+                batchArgs.add(insertArgs.apply(id));
+            } else {
+                ignoredIds.add(id);
+            }
+        }
+
+        if (!batchArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate(insertSql, batchArgs);
+        }
+
+        return BatchInsertResultDto.builder().insertedIds(insertedIds).ignoredIds(ignoredIds).build();
+    }
+}
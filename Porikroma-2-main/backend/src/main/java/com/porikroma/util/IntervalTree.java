@@ -0,0 +1,164 @@
+package com.porikroma.util;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed date intervals keyed by id, stored in a treap ordered by (start, id) where every node
+ * also tracks the latest end date in its subtree. That lets overlap and containment searches
+ * skip whole subtrees, giving O(log n + k) expected time. Not thread-safe.
+ */
+public class IntervalTree {
+
+    private static final class Node {
+        final long id;
+        final LocalDate start;
+        final LocalDate end;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        LocalDate maxEnd;
+        Node left;
+        Node right;
+
+        Node(long id, LocalDate start, LocalDate end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+    }
+
+    private Node root;
+    private final Map<Long, Node> nodesById = new HashMap<>();
+
+    public int size() {
+        return nodesById.size();
+    }
+
+    public void clear() {
+        root = null;
+        nodesById.clear();
+    }
+
+    // Inserts or replaces the interval stored under id
+    public void put(long id, LocalDate start, LocalDate end) {
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("Interval end " + end + " is before start " + start);
+        }
+        remove(id);
+        Node node = new Node(id, start, end);
+        Node[] parts = split(root, start, id);
+        root = merge(merge(parts[0], node), parts[1]);
+        nodesById.put(id, node);
+    }
+
+    public boolean remove(long id) {
+        Node node = nodesById.remove(id);
+        if (node == null) {
+            return false;
+        }
+        Node[] lower = split(root, node.start, node.id);
+        Node[] upper = split(lower[1], node.start, node.id + 1);
+        root = merge(lower[0], upper[1]);
+        return true;
+    }
+
+    // Ids whose interval shares at least one day with [from, to]
+    public List<Long> findOverlapping(LocalDate from, LocalDate to) {
+        List<Long> ids = new ArrayList<>();
+        collectOverlapping(root, from, to, ids);
+        return ids;
+    }
+
+    // Ids whose interval lies entirely within [from, to]
+    public List<Long> findContainedIn(LocalDate from, LocalDate to) {
+        List<Long> ids = new ArrayList<>();
+        collectContained(root, from, to, ids);
+        return ids;
+    }
+
+    public List<Long> findActiveOn(LocalDate day) {
+        return findOverlapping(day, day);
+    }
+
+    private void collectOverlapping(Node node, LocalDate from, LocalDate to, List<Long> ids) {
+        if (node == null || node.maxEnd.isBefore(from)) {
+            return;
+        }
+        collectOverlapping(node.left, from, to, ids);
+        if (node.start.isAfter(to)) {
+            // Everything to the right starts even later
+            return;
+        }
+        if (!node.end.isBefore(from)) {
+            ids.add(node.id);
+        }
+        collectOverlapping(node.right, from, to, ids);
+    }
+
+    private void collectContained(Node node, LocalDate from, LocalDate to, List<Long> ids) {
+        if (node == null || node.maxEnd.isBefore(from)) {
+            return;
+        }
+        boolean startsInRange = !node.start.isBefore(from);
+        if (startsInRange) {
+            collectContained(node.left, from, to, ids);
+        }
+        if (node.start.isAfter(to)) {
+            return;
+        }
+        if (startsInRange && !node.end.isAfter(to)) {
+            ids.add(node.id);
+        }
+        collectContained(node.right, from, to, ids);
+    }
+
+    // Splits into nodes ordered before (start, id) and nodes at or after it
+    private Node[] split(Node node, LocalDate start, long id) {
+        if (node == null) {
+            return new Node[] { null, null };
+        }
+        int cmp = node.start.compareTo(start);
+        if (cmp < 0 || (cmp == 0 && node.id < id)) {
+            Node[] parts = split(node.right, start, id);
+            node.right = parts[0];
+            update(node);
+            return new Node[] { node, parts[1] };
+        }
+        Node[] parts = split(node.left, start, id);
+        node.left = parts[1];
+        update(node);
+        return new Node[] { parts[0], node };
+    }
+
+    private Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private void update(Node node) {
+        LocalDate maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+}
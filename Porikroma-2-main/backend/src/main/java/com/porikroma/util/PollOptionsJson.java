@@ -0,0 +1,45 @@
+package com.porikroma.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Arrays;
+import java.util.List;
+
+// trip_messages.poll_options holds a JSON array of option labels; votes live in poll_votes
+public final class PollOptionsJson {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<List<String>> OPTIONS_TYPE = new TypeReference<>() {
+    };
+
+    private PollOptionsJson() {
+    }
+
+    public static String write(List<String> options) {
+        if (options == null) {
+            return null;
+        }
+        try {
+            return MAPPER.writeValueAsString(options);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid poll options", e);
+        }
+    }
+
+    public static List<String> read(String json) {
+        if (json == null || json.isEmpty()) {
+            return null;
+        }
+        if (!json.startsWith("[")) {
+            // Rows written before options were stored as JSON
+            return Arrays.asList(json.split(","));
+        }
+        try {
+            return MAPPER.readValue(json, OPTIONS_TYPE);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+}
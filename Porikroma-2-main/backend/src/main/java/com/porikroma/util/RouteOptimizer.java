@@ -0,0 +1,129 @@
+package com.porikroma.util;
+
+import java.util.stream.IntStream;
+
+/**
+ * Open-path TSP heuristic: nearest-neighbour construction followed by 2-opt improvement.
+ * Larger inputs try several starting stops in parallel. Every run stops at the deadline and
+ * keeps its best route so far, so a result is always returned within the time budget.
+ */
+public final class RouteOptimizer {
+
+    private static final int PARALLEL_THRESHOLD = 40;
+    private static final int MAX_PARALLEL_STARTS = 8;
+
+    private RouteOptimizer() {
+    }
+
+    public static final class Route {
+        private final int[] order;
+        private final double distance;
+        private final boolean complete;
+
+        Route(int[] order, double distance, boolean complete) {
+            this.order = order;
+            this.distance = distance;
+            this.complete = complete;
+        }
+
+        public int[] getOrder() {
+            return order;
+        }
+
+        public double getDistance() {
+            return distance;
+        }
+
+        // False when the deadline cut 2-opt short
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+
+    // Uses the given fixed start when fixedStart >= 0, otherwise picks the best start it can find
+    public static Route optimize(double[][] distances, int fixedStart, long timeBudgetNanos) {
+        int n = distances.length;
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        if (n <= 2) {
+            int[] order = n == 2 && fixedStart == 1 ? new int[] { 1, 0 } : IntStream.range(0, n).toArray();
+            return new Route(order, pathLength(distances, order), true);
+        }
+        if (fixedStart >= 0) {
+            return improve(distances, nearestNeighbour(distances, fixedStart), true, deadline);
+        }
+
+        int starts = n < PARALLEL_THRESHOLD ? 1 : Math.min(n, MAX_PARALLEL_STARTS);
+        IntStream startIndexes = IntStream.range(0, starts).map(i -> (int) ((long) i * n / starts));
+        if (starts > 1) {
+            startIndexes = startIndexes.parallel();
+        }
+        return startIndexes
+            .mapToObj(start -> improve(distances, nearestNeighbour(distances, start), false, deadline))
+            .reduce((a, b) -> a.getDistance() <= b.getDistance() ? a : b)
+            .orElseThrow();
+    }
+
+    private static int[] nearestNeighbour(double[][] distances, int start) {
+        int n = distances.length;
+        int[] order = new int[n];
+        boolean[] visited = new boolean[n];
+        order[0] = start;
+        visited[start] = true;
+        for (int i = 1; i < n; i++) {
+            int from = order[i - 1];
+            int next = -1;
+            for (int candidate = 0; candidate < n; candidate++) {
+                if (!visited[candidate] && (next < 0 || distances[from][candidate] < distances[from][next])) {
+                    next = candidate;
+                }
+            }
+            order[i] = next;
+            visited[next] = true;
+        }
+        return order;
+    }
+
+    // Reverses segments while that shortens the path; the first stop only moves when it isn't fixed
+    private static Route improve(double[][] d, int[] order, boolean startFixed, long deadline) {
+        int n = order.length;
+        boolean improved = true;
+        boolean complete = true;
+        while (improved) {
+            improved = false;
+            for (int i = startFixed ? 0 : -1; i < n - 2; i++) {
+                if (System.nanoTime() > deadline) {
+                    complete = false;
+                    improved = false;
+                    break;
+                }
+                for (int j = i + 2; j < n; j++) {
+                    int b = order[i + 1];
+                    int c = order[j];
+                    double before = (i >= 0 ? d[order[i]][b] : 0) + (j + 1 < n ? d[c][order[j + 1]] : 0);
+                    double after = (i >= 0 ? d[order[i]][c] : 0) + (j + 1 < n ? d[b][order[j + 1]] : 0);
+                    if (after < before - 1e-9) {
+                        reverse(order, i + 1, j);
+                        improved = true;
+                    }
+                }
+            }
+        }
+        return new Route(order, pathLength(d, order), complete);
+    }
+
+    private static void reverse(int[] order, int from, int to) {
+        while (from < to) {
+            int tmp = order[from];
+            order[from++] = order[to];
+            order[to--] = tmp;
+        }
+    }
+
+    private static double pathLength(double[][] distances, int[] order) {
+        double total = 0;
+        for (int i = 1; i < order.length; i++) {
+            total += distances[order[i - 1]][order[i]];
+        }
+        return total;
+    }
+}
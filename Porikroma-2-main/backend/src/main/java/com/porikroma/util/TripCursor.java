@@ -0,0 +1,64 @@
+package com.porikroma.util;
+
+import com.porikroma.dto.TripDto;
+import com.porikroma.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Keyset position in a trip listing ordered by (created_at DESC, trip_id DESC).
+ * Clients only ever see the encoded token.
+ */
+public final class TripCursor {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    // First page served by the list endpoints that predate paging
+    public static final int UNPAGED_LIMIT = 500;
+
+    private final LocalDateTime createdAt;
+    private final Long tripId;
+
+    private TripCursor(LocalDateTime createdAt, Long tripId) {
+        this.createdAt = createdAt;
+        this.tripId = tripId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getTripId() {
+        return tripId;
+    }
+
+    // Keeps every page bounded no matter what the client asks for
+    public static int clampPageSize(Integer limit) {
+        if (limit == null || limit < 1) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    public static String encode(TripDto lastTrip) {
+        String raw = lastTrip.getCreatedAt() + "|" + lastTrip.getTripId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Returns null for a missing token so callers start from the first page
+    public static TripCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new TripCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor", e);
+        }
+    }
+}
@@ -5,8 +5,6 @@ import org.springframework.jdbc.core.RowMapper;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Arrays;
-import java.util.List;
 
 public class TripMessageRowMapper implements RowMapper<TripMessageDto> {
     @Override
@@ -25,24 +23,12 @@ public class TripMessageRowMapper implements RowMapper<TripMessageDto> {
                 .editedAt(rs.getTimestamp("edited_at") != null ? 
                          rs.getTimestamp("edited_at").toLocalDateTime() : null);
 
-        // Handle sender info
-        String firstName = rs.getString("first_name");
-        String lastName = rs.getString("last_name");
-        if (firstName != null && lastName != null) {
-            builder.senderName(firstName + " " + lastName);
-        }
-        builder.senderProfilePicture(rs.getString("profile_picture_url"));
-
-        // Handle reply info
+        // Sender and reply-sender names are filled in from UserProfileCache by the repository
         builder.replyToContent(rs.getString("reply_content"));
-        builder.replyToSenderName(rs.getString("reply_sender_name"));
+        builder.replyToSenderUserId(rs.getObject("reply_sender_user_id", Long.class));
 
         // Handle poll options
-        String pollOptionsString = rs.getString("poll_options");
-        if (pollOptionsString != null && !pollOptionsString.isEmpty()) {
-            List<String> pollOptions = Arrays.asList(pollOptionsString.split(","));
-            builder.pollOptions(pollOptions);
-        }
+        builder.pollOptions(PollOptionsJson.read(rs.getString("poll_options")));
 
         return builder.build();
     }
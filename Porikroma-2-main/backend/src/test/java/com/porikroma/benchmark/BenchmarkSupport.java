@@ -0,0 +1,75 @@
+package com.porikroma.benchmark;
+
+import com.corundumstudio.socketio.Configuration;
+import com.corundumstudio.socketio.SocketIOServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.ServerSocket;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    // A netty-socketio server configured like SocketIOConfig, on a free local port
+    static SocketIOServer socketServer() {
+        Configuration config = new Configuration();
+        config.setHostname("localhost");
+        config.setPort(freePort());
+        config.setMaxFramePayloadLength(1024 * 1024);
+        config.setMaxHttpContentLength(1024 * 1024);
+        config.setPingTimeout(60000);
+        config.setPingInterval(25000);
+        return new SocketIOServer(config);
+    }
+
+    static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // CPU time per live thread; diff two snapshots to charge a run to the threads that did the work
+    static Map<Long, Long> threadCpuNanos() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Map<Long, Long> cpu = new HashMap<>();
+        for (long id : threads.getAllThreadIds()) {
+            long nanos = threads.getThreadCpuTime(id);
+            if (nanos >= 0) {
+                cpu.put(id, nanos);
+            }
+        }
+        return cpu;
+    }
+
+    // CPU used since the snapshot by threads whose name does not start with one of the prefixes
+    static long cpuNanosSince(Map<Long, Long> before, List<String> excludedPrefixes) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (long id : threads.getAllThreadIds()) {
+            var info = threads.getThreadInfo(id);
+            long nanos = threads.getThreadCpuTime(id);
+            if (info == null || nanos < 0 || excludedPrefixes.stream().anyMatch(info.getThreadName()::startsWith)) {
+                continue;
+            }
+            total += nanos - before.getOrDefault(id, 0L);
+        }
+        return total;
+    }
+
+    static long percentile(List<Long> sortedValues, double percentile) {
+        if (sortedValues.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sortedValues.size()) - 1;
+        return sortedValues.get(Math.max(0, Math.min(index, sortedValues.size() - 1)));
+    }
+}
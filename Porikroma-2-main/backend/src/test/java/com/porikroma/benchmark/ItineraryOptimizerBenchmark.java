@@ -0,0 +1,107 @@
+package com.porikroma.benchmark;
+
+import com.porikroma.dto.ItineraryDto;
+import com.porikroma.dto.SubDestinationDto;
+import com.porikroma.service.ItineraryOptimizer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JMH benchmark for ItineraryOptimizer with 100 to 200 stops spread over Bangladesh, under the
+ * default 50ms time budget. "cached" re-optimizes a stop set whose distance matrix is already
+ * cached, as repeat views of a trip do; "uncached" builds the matrix first, as the first view
+ * after the stops change does. Sample mode, so JMH reports p50/p99 per case. Run with
+ * mvn test -Pbenchmark -Dtest=ItineraryOptimizerBenchmark.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItineraryOptimizerBenchmark {
+
+    @Param({"100", "150", "200"})
+    public int stops;
+
+    private List<SubDestinationDto> subDestinations;
+    private ItineraryOptimizer warmOptimizer;
+    private ItineraryOptimizer coldOptimizer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        subDestinations = randomStops(stops, new Random(42));
+        warmOptimizer = optimizer();
+        warmOptimizer.optimize(subDestinations, null);
+    }
+
+    @Setup(Level.Invocation)
+    public void freshOptimizer() {
+        coldOptimizer = optimizer();
+    }
+
+    @Benchmark
+    public ItineraryDto cached() {
+        return warmOptimizer.optimize(subDestinations, null);
+    }
+
+    @Benchmark
+    public ItineraryDto uncached() {
+        return coldOptimizer.optimize(subDestinations, null);
+    }
+
+    @Test
+    void optimizeHundredsOfStops() throws RunnerException {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+            .include(ItineraryOptimizerBenchmark.class.getName() + "\\.")
+            .build()).run();
+
+        assertThat(results).hasSize(6);
+    }
+
+    private static ItineraryOptimizer optimizer() {
+        ItineraryOptimizer optimizer = new ItineraryOptimizer();
+        ReflectionTestUtils.setField(optimizer, "timeBudgetMs", 50L);
+        return optimizer;
+    }
+
+    private static List<SubDestinationDto> randomStops(int count, Random random) {
+        List<SubDestinationDto> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(SubDestinationDto.builder()
+                .subDestinationId((long) i + 1)
+                .subDestinationName("Stop " + i)
+                .latitude(BigDecimal.valueOf(20.7 + random.nextDouble() * 5.9))
+                .longitude(BigDecimal.valueOf(88.0 + random.nextDouble() * 4.6))
+                .build());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,186 @@
+package com.porikroma.benchmark;
+
+import com.corundumstudio.socketio.SocketIOServer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.porikroma.service.RoomEventCoalescer;
+import com.porikroma.service.SocketOutbox;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load test for room event coalescing: a real netty-socketio server and WebSocket clients, chat
+ * events emitted at a fixed rate, once straight through and once coalesced. Reports frames and
+ * bytes the clients received, raw and as deflated per message, and the CPU the server side spent
+ * (client threads excluded). Run with mvn test -Pbenchmark -Dtest=RoomEventCoalescingBenchmark.
+ */
+@Tag("benchmark")
+class RoomEventCoalescingBenchmark {
+
+    private static final int ROOMS = 10;
+    private static final int CLIENTS_PER_ROOM = 20;
+    private static final int EVENTS_PER_MILLI = 2;
+    private static final int SECONDS = 5;
+    // The wire name clients see for a coalesced frame
+    private static final String BATCH_EVENT = "events-batch";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private record Result(String mode, long frames, long wireBytes, long deflatedBytes, long serverCpuNanos, long delivered) {
+    }
+
+    @Test
+    void coalescingAtAFixedEventRate() throws Exception {
+        // Warm-up run so JIT and netty buffer pools don't count against the first mode
+        run(false, 1);
+        Result direct = run(false, SECONDS);
+        Result coalesced = run(true, SECONDS);
+
+        long expected = (long) EVENTS_PER_MILLI * 1000 * SECONDS * CLIENTS_PER_ROOM;
+        System.out.printf("%nRoom event coalescing: %d events/s for %ds into %d rooms x %d clients%n",
+            EVENTS_PER_MILLI * 1000, SECONDS, ROOMS, CLIENTS_PER_ROOM);
+        System.out.printf("%-10s %10s %12s %14s %14s %12s%n", "mode", "frames", "wire KiB", "deflated KiB", "server CPU ms", "delivered");
+        for (Result result : List.of(direct, coalesced)) {
+            System.out.printf("%-10s %10d %12d %14d %14d %12d%n", result.mode(), result.frames(), result.wireBytes() / 1024,
+                result.deflatedBytes() / 1024, TimeUnit.NANOSECONDS.toMillis(result.serverCpuNanos()), result.delivered());
+        }
+        assertThat(direct.delivered()).isEqualTo(expected);
+        assertThat(coalesced.delivered()).isEqualTo(expected);
+    }
+
+    private Result run(boolean coalescing, int seconds) throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SocketIOServer server = BenchmarkSupport.socketServer();
+        SocketOutbox outbox = new SocketOutbox();
+        ReflectionTestUtils.setField(outbox, "server", server);
+        ReflectionTestUtils.setField(outbox, "meterRegistry", meterRegistry);
+        // Large enough that neither mode hits the overflow policy, so both deliver every event
+        ReflectionTestUtils.setField(outbox, "capacity", 65536);
+        ReflectionTestUtils.setField(outbox, "overflowPolicy", "coalesce");
+        ReflectionTestUtils.setField(outbox, "drainIntervalMs", 50L);
+        outbox.init();
+        RoomEventCoalescer coalescer = new RoomEventCoalescer();
+        ReflectionTestUtils.setField(coalescer, "socketOutbox", outbox);
+        ReflectionTestUtils.setField(coalescer, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(coalescer, "enabled", coalescing);
+        ReflectionTestUtils.setField(coalescer, "maxDelayMs", 10L);
+        ReflectionTestUtils.setField(coalescer, "maxBatch", 50);
+        coalescer.init();
+
+        server.addConnectListener(client -> {
+            outbox.register(client);
+            if (client.getHandshakeData().getAuthToken() instanceof Map<?, ?> auth) {
+                client.joinRoom(String.valueOf(auth.get("room")));
+            }
+        });
+        server.addDisconnectListener(client -> outbox.unregister(client.getSessionId()));
+        server.start();
+
+        HttpClient http = HttpClient.newHttpClient();
+        AtomicLong delivered = new AtomicLong();
+        List<SocketIoBenchClient> clients = new ArrayList<>();
+        ScheduledExecutorService emitter = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "bench-emitter"));
+        try {
+            List<CompletableFuture<SocketIoBenchClient>> connecting = new ArrayList<>();
+            for (int room = 0; room < ROOMS; room++) {
+                for (int i = 0; i < CLIENTS_PER_ROOM; i++) {
+                    connecting.add(SocketIoBenchClient.connect(http, server.getConfiguration().getPort(),
+                        "{\"room\":\"trip_" + room + "\"}", packet -> delivered.addAndGet(eventsIn(packet))));
+                }
+            }
+            for (CompletableFuture<SocketIoBenchClient> future : connecting) {
+                clients.add(future.get(10, TimeUnit.SECONDS));
+            }
+            awaitRoomsJoined(server);
+
+            long framesBefore = clients.stream().mapToLong(SocketIoBenchClient::frames).sum();
+            long bytesBefore = clients.stream().mapToLong(SocketIoBenchClient::wireBytes).sum();
+            long deflatedBefore = clients.stream().mapToLong(SocketIoBenchClient::deflatedBytes).sum();
+            Map<Long, Long> cpuBefore = BenchmarkSupport.threadCpuNanos();
+
+            long totalEvents = (long) EVENTS_PER_MILLI * 1000 * seconds;
+            AtomicLong emitted = new AtomicLong();
+            CompletableFuture<Void> emittedAll = new CompletableFuture<>();
+            emitter.scheduleAtFixedRate(() -> {
+                for (int i = 0; i < EVENTS_PER_MILLI && emitted.get() < totalEvents; i++) {
+                    long n = emitted.incrementAndGet();
+                    coalescer.emit("trip_" + (n % ROOMS), "new-message", message(n));
+                }
+                if (emitted.get() >= totalEvents) {
+                    emittedAll.complete(null);
+                }
+            }, 0, 1, TimeUnit.MILLISECONDS);
+            emittedAll.get(seconds * 10L, TimeUnit.SECONDS);
+
+            long expected = totalEvents * CLIENTS_PER_ROOM;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (delivered.get() < expected && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            long serverCpu = BenchmarkSupport.cpuNanosSince(cpuBefore, List.of("HttpClient"));
+            return new Result(coalescing ? "coalesced" : "direct",
+                clients.stream().mapToLong(SocketIoBenchClient::frames).sum() - framesBefore,
+                clients.stream().mapToLong(SocketIoBenchClient::wireBytes).sum() - bytesBefore,
+                clients.stream().mapToLong(SocketIoBenchClient::deflatedBytes).sum() - deflatedBefore,
+                serverCpu, delivered.get());
+        } finally {
+            emitter.shutdownNow();
+            clients.forEach(SocketIoBenchClient::close);
+            coalescer.shutdown();
+            outbox.shutdown();
+            server.stop();
+        }
+    }
+
+    private void awaitRoomsJoined(SocketIOServer server) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        for (int room = 0; room < ROOMS; room++) {
+            while (server.getRoomOperations("trip_" + room).getClients().size() < CLIENTS_PER_ROOM) {
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("Clients did not join trip_" + room);
+                }
+                Thread.sleep(5);
+            }
+        }
+    }
+
+    // A single event counts once, a coalesced frame counts each event it carries
+    private long eventsIn(String packet) {
+        try {
+            JsonNode array = objectMapper.readTree(packet);
+            return BATCH_EVENT.equals(array.get(0).asText()) ? array.get(1).size() : 1;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Shaped like a serialized TripMessageDto
+    private static Map<String, Object> message(long messageId) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("messageId", messageId);
+        message.put("tripId", messageId % ROOMS);
+        message.put("senderUserId", 42);
+        message.put("senderName", "Nusrat Jahan");
+        message.put("messageType", "TEXT");
+        message.put("content", "Meet at the bus stand at 7, I have the tickets");
+        message.put("createdAt", "2025-06-01T12:00:00");
+        return message;
+    }
+}
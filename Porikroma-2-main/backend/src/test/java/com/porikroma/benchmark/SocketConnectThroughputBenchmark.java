@@ -0,0 +1,186 @@
+package com.porikroma.benchmark;
+
+import com.corundumstudio.socketio.SocketIOServer;
+import com.porikroma.security.SocketAuthorizationListener;
+import com.porikroma.service.ClusterFanout;
+import com.porikroma.service.SocketEventDispatcher;
+import com.porikroma.service.SocketIOService;
+import com.porikroma.service.SocketOutbox;
+import com.porikroma.service.SocketSessionRegistry;
+import com.porikroma.service.TripRosterCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Load test for socket connects and trip joins while the roster lookup is slow: a real
+ * SocketIOService on a netty-socketio server, WebSocket clients that connect and join a trip at
+ * once, and a roster stub that blocks like a slow database. Runs once with the lookup on the
+ * dispatcher and once inline on the netty event loop, as before the dispatcher existed, and
+ * reports connect throughput and connect/join latency. Run with
+ * mvn test -Pbenchmark -Dtest=SocketConnectThroughputBenchmark.
+ */
+@Tag("benchmark")
+class SocketConnectThroughputBenchmark {
+
+    private static final int CLIENTS = 400;
+    private static final int TRIPS = 40;
+    private static final long[] ROSTER_MILLIS = {0, 20, 100};
+
+    private record Result(String mode, long rosterMillis, long connectedMillis, long connectP50, long connectP99,
+                          long joinP50, long joinP99, long joinedMillis, int joined) {
+    }
+
+    // The listener logic runs on whichever thread raised the event, i.e. the netty event loop
+    private static final class InlineDispatcher extends SocketEventDispatcher {
+        @Override
+        public boolean dispatch(String key, Runnable task) {
+            task.run();
+            return true;
+        }
+    }
+
+    @Test
+    void connectAndJoinWithASlowRosterLookup() throws Exception {
+        // Warm-up run so JIT and netty buffer pools don't count against the first mode
+        run(false, 0);
+        List<Result> results = new ArrayList<>();
+        for (long rosterMillis : ROSTER_MILLIS) {
+            results.add(run(false, rosterMillis));
+            results.add(run(true, rosterMillis));
+        }
+
+        System.out.printf("%nSocket connect and join: %d clients joining %d trips, %d netty worker threads%n",
+            CLIENTS, TRIPS, Runtime.getRuntime().availableProcessors() * 2);
+        System.out.printf("%-11s %10s %10s %12s %10s %10s %10s %10s %10s%n", "mode", "roster ms", "connects/s",
+            "connect p50", "p99", "join p50", "p99", "joined ms", "joined");
+        for (Result result : results) {
+            System.out.printf("%-11s %10d %10d %12d %10d %10d %10d %10d %10d%n", result.mode(), result.rosterMillis(),
+                CLIENTS * 1000L / Math.max(1, result.connectedMillis()), result.connectP50(), result.connectP99(),
+                result.joinP50(), result.joinP99(), result.joinedMillis(), result.joined());
+        }
+        for (Result result : results) {
+            assertThat(result.joined()).isEqualTo(CLIENTS);
+        }
+    }
+
+    private Result run(boolean dispatched, long rosterMillis) throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SocketIOServer server = BenchmarkSupport.socketServer();
+        SocketOutbox outbox = new SocketOutbox();
+        ReflectionTestUtils.setField(outbox, "server", server);
+        ReflectionTestUtils.setField(outbox, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(outbox, "capacity", 256);
+        ReflectionTestUtils.setField(outbox, "overflowPolicy", "coalesce");
+        ReflectionTestUtils.setField(outbox, "drainIntervalMs", 50L);
+        outbox.init();
+        SocketSessionRegistry sessionRegistry = new SocketSessionRegistry();
+        ReflectionTestUtils.setField(sessionRegistry, "meterRegistry", meterRegistry);
+        sessionRegistry.init();
+        SocketEventDispatcher dispatcher = dispatched ? new SocketEventDispatcher() : new InlineDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(dispatcher, "poolSize", 0);
+        ReflectionTestUtils.setField(dispatcher, "maxPendingPerKey", 1000);
+        dispatcher.init();
+
+        SocketAuthorizationListener authorization = mock(SocketAuthorizationListener.class);
+        when(authorization.authenticate(anyString())).thenAnswer(invocation -> Long.valueOf(invocation.<String>getArgument(0)));
+        // Stands in for the membership query against a slow database
+        TripRosterCache roster = mock(TripRosterCache.class);
+        when(roster.isAcceptedMember(anyLong(), anyLong())).thenAnswer(invocation -> {
+            Thread.sleep(rosterMillis);
+            return true;
+        });
+
+        SocketIOService service = new SocketIOService();
+        ReflectionTestUtils.setField(service, "server", server);
+        ReflectionTestUtils.setField(service, "clusterFanout", mock(ClusterFanout.class));
+        ReflectionTestUtils.setField(service, "socketAuthorizationListener", authorization);
+        ReflectionTestUtils.setField(service, "socketSessionRegistry", sessionRegistry);
+        ReflectionTestUtils.setField(service, "tripRosterCache", roster);
+        ReflectionTestUtils.setField(service, "socketOutbox", outbox);
+        ReflectionTestUtils.setField(service, "socketEventDispatcher", dispatcher);
+
+        // SocketIOService logs every connect and join; keep that out of the results
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        HttpClient http = HttpClient.newHttpClient();
+        List<SocketIoBenchClient> clients = new ArrayList<>();
+        try {
+            service.startServer();
+            int port = server.getConfiguration().getPort();
+            long[] connectNanos = new long[CLIENTS];
+            long[] joinNanos = new long[CLIENTS];
+            List<CompletableFuture<SocketIoBenchClient>> connecting = new ArrayList<>();
+            List<CompletableFuture<Void>> joining = new ArrayList<>();
+
+            long started = System.nanoTime();
+            for (int i = 0; i < CLIENTS; i++) {
+                int index = i;
+                String tripId = String.valueOf(i % TRIPS);
+                CompletableFuture<Void> joined = new CompletableFuture<>();
+                joining.add(joined);
+                connecting.add(SocketIoBenchClient.connect(http, port, "{\"token\":\"" + (i + 1) + "\"}", packet -> {
+                    if (packet.startsWith("[\"joined-trip\"")) {
+                        joinNanos[index] = System.nanoTime() - started - connectNanos[index];
+                        joined.complete(null);
+                    }
+                }).thenApply(client -> {
+                    connectNanos[index] = System.nanoTime() - started;
+                    client.emit("join-trip", tripId);
+                    return client;
+                }));
+            }
+            for (CompletableFuture<SocketIoBenchClient> future : connecting) {
+                clients.add(future.get(60, TimeUnit.SECONDS));
+            }
+            long connectedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            int joined = 0;
+            for (CompletableFuture<Void> future : joining) {
+                try {
+                    future.get(60, TimeUnit.SECONDS);
+                    joined++;
+                } catch (Exception e) {
+                    // Counted as not joined
+                }
+            }
+            long joinedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+            List<Long> connects = sortedMillis(connectNanos);
+            List<Long> joins = sortedMillis(joinNanos);
+            return new Result(dispatched ? "dispatched" : "inline", rosterMillis, connectedMillis,
+                BenchmarkSupport.percentile(connects, 50), BenchmarkSupport.percentile(connects, 99),
+                BenchmarkSupport.percentile(joins, 50), BenchmarkSupport.percentile(joins, 99), joinedMillis, joined);
+        } finally {
+            clients.forEach(SocketIoBenchClient::close);
+            dispatcher.shutdown();
+            outbox.shutdown();
+            server.stop();
+            System.setOut(out);
+        }
+    }
+
+    private static List<Long> sortedMillis(long[] nanos) {
+        List<Long> millis = new ArrayList<>();
+        for (long value : nanos) {
+            millis.add(TimeUnit.NANOSECONDS.toMillis(value));
+        }
+        millis.sort(null);
+        return millis;
+    }
+}
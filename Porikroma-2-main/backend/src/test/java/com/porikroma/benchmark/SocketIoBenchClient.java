@@ -0,0 +1,146 @@
+package com.porikroma.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+
+/**
+ * Bare Socket.IO v4 client over a raw WebSocket (Engine.IO 4, no polling, default namespace),
+ * just enough to drive a real netty-socketio server from benchmarks. Counts every frame the
+ * server sends together with its size on the wire: payload plus the unmasked frame header.
+ *
+ * The JDK client doesn't negotiate permessage-deflate, which browsers do, so each payload is
+ * also deflated on its own (no context takeover, the least favourable setting) to estimate
+ * the compressed size a browser would receive.
+ */
+final class SocketIoBenchClient implements WebSocket.Listener {
+
+    private final String authJson;
+    private final Consumer<String> onEvent;
+    private final CompletableFuture<Void> connected = new CompletableFuture<>();
+    private final StringBuilder partial = new StringBuilder();
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong wireBytes = new AtomicLong();
+    private final AtomicLong deflatedBytes = new AtomicLong();
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final byte[] deflateBuffer = new byte[64 * 1024];
+
+    // Guarded by this; WebSocket allows one outstanding send at a time
+    private CompletableFuture<WebSocket> sends;
+
+    private SocketIoBenchClient(String authJson, Consumer<String> onEvent) {
+        this.authJson = authJson;
+        this.onEvent = onEvent;
+    }
+
+    // onEvent gets the JSON array of each event packet, e.g. ["joined-trip","7"]
+    static CompletableFuture<SocketIoBenchClient> connect(HttpClient http, int port, String authJson, Consumer<String> onEvent) {
+        SocketIoBenchClient client = new SocketIoBenchClient(authJson, onEvent);
+        URI uri = URI.create("ws://localhost:" + port + "/socket.io/?EIO=4&transport=websocket");
+        return http.newWebSocketBuilder()
+            .buildAsync(uri, client)
+            .thenCompose(webSocket -> client.connected)
+            .thenApply(ignored -> client);
+    }
+
+    void emit(String event, String argument) {
+        send("42[\"" + event + "\",\"" + argument + "\"]");
+    }
+
+    long frames() {
+        return frames.get();
+    }
+
+    long wireBytes() {
+        return wireBytes.get();
+    }
+
+    long deflatedBytes() {
+        return deflatedBytes.get();
+    }
+
+    void close() {
+        CompletableFuture<WebSocket> pending;
+        synchronized (this) {
+            pending = sends;
+        }
+        if (pending != null) {
+            pending.thenCompose(webSocket -> webSocket.sendClose(WebSocket.NORMAL_CLOSURE, ""))
+                .orTimeout(2, TimeUnit.SECONDS)
+                .exceptionally(e -> null)
+                .join();
+        }
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+        synchronized (this) {
+            sends = CompletableFuture.completedFuture(webSocket);
+        }
+        webSocket.request(1);
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        partial.append(data);
+        if (last) {
+            String packet = partial.toString();
+            partial.setLength(0);
+            byte[] payload = packet.getBytes(StandardCharsets.UTF_8);
+            frames.incrementAndGet();
+            wireBytes.addAndGet(payload.length + headerLength(payload.length));
+            int deflated = deflate(payload);
+            deflatedBytes.addAndGet(deflated + headerLength(deflated));
+            handle(packet);
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        connected.completeExceptionally(error);
+    }
+
+    private void handle(String packet) {
+        if (packet.startsWith("0")) {
+            // Engine.IO open; join the default namespace with the auth payload
+            send("40" + authJson);
+        } else if (packet.equals("2")) {
+            send("3");
+        } else if (packet.startsWith("40")) {
+            connected.complete(null);
+        } else if (packet.startsWith("44")) {
+            connected.completeExceptionally(new IllegalStateException("Connect refused: " + packet));
+        } else if (packet.startsWith("42")) {
+            onEvent.accept(packet.substring(2));
+        }
+    }
+
+    private static int headerLength(int payloadLength) {
+        return payloadLength < 126 ? 2 : payloadLength < 65536 ? 4 : 10;
+    }
+
+    // Called on the listener's thread only, one message at a time
+    private int deflate(byte[] payload) {
+        deflater.reset();
+        deflater.setInput(payload);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            length += deflater.deflate(deflateBuffer);
+        }
+        return length;
+    }
+
+    private synchronized void send(String packet) {
+        sends = sends.thenCompose(webSocket -> webSocket.sendText(packet, true));
+    }
+}
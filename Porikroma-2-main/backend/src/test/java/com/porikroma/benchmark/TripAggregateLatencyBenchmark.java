@@ -0,0 +1,201 @@
+package com.porikroma.benchmark;
+
+import com.porikroma.dto.TripDto;
+import com.porikroma.repository.TripRepositoryImpl;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Latency of the trip detail load: TripRepositoryImpl.findTripAggregateById against the
+ * per-collection calls TripService.getTripById made before it (trip, members, sub-destinations,
+ * accommodations, transports, expenses, member count, total cost). Needs a MySQL database
+ * created from database/schema.sql; the benchmark seeds one trip and deletes it afterwards.
+ * Each path runs directly and through a LatencyProxy that adds network round-trip time.
+ * Run with mvn test -Pbenchmark -Dtest=TripAggregateLatencyBenchmark
+ * -Dbenchmark.mysql.url=jdbc:mysql://localhost:3306/porikroma [-Dbenchmark.mysql.user=root
+ * -Dbenchmark.mysql.password=...]; skipped when the url is not set.
+ */
+@Tag("benchmark")
+class TripAggregateLatencyBenchmark {
+
+    private static final int MEMBERS = 8;
+    private static final int ITEMS = 6;
+    private static final int EXPENSES = 30;
+    private static final long[] ADDED_RTT_MICROS = {0, 500, 2000};
+
+    private record Result(String path, long addedRttMicros, long p50Micros, long p99Micros, long meanMicros) {
+    }
+
+    @Test
+    void aggregateAgainstPerCollectionQueries() {
+        String url = System.getProperty("benchmark.mysql.url");
+        assumeTrue(url != null, "benchmark.mysql.url not set");
+        String user = System.getProperty("benchmark.mysql.user", "root");
+        String password = System.getProperty("benchmark.mysql.password", "");
+        URI target = URI.create(url.substring("jdbc:".length()));
+
+        List<Result> results = new ArrayList<>();
+        SingleConnectionDataSource seedingDataSource = dataSource(url, user, password);
+        JdbcTemplate seeding = new JdbcTemplate(seedingDataSource);
+        Seed seed = Seed.insert(seeding);
+        try {
+            for (long addedRttMicros : ADDED_RTT_MICROS) {
+                try (LatencyProxy proxy = new LatencyProxy(target.getHost(), target.getPort(), addedRttMicros / 2)) {
+                    String proxied = url.replace(target.getHost() + ":" + target.getPort(), "127.0.0.1:" + proxy.port());
+                    SingleConnectionDataSource dataSource = dataSource(proxied, user, password);
+                    TripRepositoryImpl repository = new TripRepositoryImpl();
+                    ReflectionTestUtils.setField(repository, "jdbcTemplate", new JdbcTemplate(dataSource));
+
+                    TripDto aggregate = repository.findTripAggregateById(seed.tripId()).orElseThrow();
+                    TripDto perCollection = perCollection(repository, seed.tripId());
+                    assertThat(aggregate.getMemberCount()).isEqualTo(perCollection.getMemberCount()).isEqualTo(MEMBERS);
+                    assertThat(aggregate.getTotalExpenses()).isEqualByComparingTo(perCollection.getTotalExpenses());
+                    assertThat(aggregate.getExpenses()).hasSize(EXPENSES);
+
+                    int iterations = addedRttMicros == 0 ? 2000 : (int) Math.max(100, 400_000 / addedRttMicros);
+                    results.add(measure("per-collection", addedRttMicros, iterations, () -> perCollection(repository, seed.tripId())));
+                    results.add(measure("aggregate", addedRttMicros, iterations,
+                        () -> repository.findTripAggregateById(seed.tripId()).orElseThrow()));
+                    dataSource.destroy();
+                }
+            }
+        } finally {
+            seed.delete(seeding);
+            seedingDataSource.destroy();
+        }
+
+        System.out.printf("%nTrip detail load: %d members, %d of each item, %d expenses%n", MEMBERS, ITEMS, EXPENSES);
+        System.out.printf("%-16s %14s %10s %10s %10s%n", "path", "added RTT us", "p50 us", "p99 us", "mean us");
+        for (Result result : results) {
+            System.out.printf("%-16s %14d %10d %10d %10d%n", result.path(), result.addedRttMicros(),
+                result.p50Micros(), result.p99Micros(), result.meanMicros());
+        }
+    }
+
+    // What TripService.getTripById did before the aggregate loader
+    private static TripDto perCollection(TripRepositoryImpl repository, Long tripId) {
+        TripDto trip = repository.findById(tripId).orElseThrow();
+        trip.setMembers(repository.findMembersByTripId(tripId));
+        trip.setSubDestinations(repository.findSubDestinationsByTripId(tripId));
+        trip.setAccommodations(repository.findAccommodationsByTripId(tripId));
+        trip.setTransports(repository.findTransportsByTripId(tripId));
+        trip.setExpenses(repository.findExpensesByTripId(tripId));
+        trip.setMemberCount((int) repository.countMembersByTripId(tripId));
+        trip.setTotalExpenses(repository.getTotalExpensesByTripId(tripId));
+        return trip;
+    }
+
+    private static Result measure(String path, long addedRttMicros, int iterations, Supplier<TripDto> load) {
+        for (int i = 0; i < iterations / 4; i++) {
+            load.get();
+        }
+        List<Long> micros = new ArrayList<>(iterations);
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+            long started = System.nanoTime();
+            load.get();
+            long elapsed = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started);
+            micros.add(elapsed);
+            total += elapsed;
+        }
+        micros.sort(null);
+        return new Result(path, addedRttMicros, BenchmarkSupport.percentile(micros, 50),
+            BenchmarkSupport.percentile(micros, 99), total / iterations);
+    }
+
+    // One connection, as a pooled request would hold, so connect cost stays out of the numbers
+    private static SingleConnectionDataSource dataSource(String url, String user, String password) {
+        String separator = url.contains("?") ? "&" : "?";
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(url + separator
+            + "useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true&allowMultiQueries=true", user, password, true);
+        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        return dataSource;
+    }
+
+    private record Seed(Long tripId, Long destinationId, List<Long> userIds) {
+
+        static Seed insert(JdbcTemplate jdbc) {
+            String run = Long.toString(System.nanoTime(), 36);
+            List<Long> userIds = new ArrayList<>();
+            for (int i = 0; i < MEMBERS; i++) {
+                jdbc.update("""
+                    INSERT INTO users (username, email, password, first_name, last_name, phone_number, gender)
+                    VALUES (?, ?, 'x', 'Bench', ?, '+8801000000000', 'OTHER')
+                    """, "bench_" + run + "_" + i, "bench_" + run + "_" + i + "@example.com", "User " + i);
+                userIds.add(lastId(jdbc));
+            }
+            jdbc.update("INSERT INTO destinations (destination_name) VALUES (?)", "Bench " + run);
+            Long destinationId = lastId(jdbc);
+            jdbc.update("""
+                INSERT INTO trips (trip_name, destination_id, creator_user_id, start_date, end_date)
+                VALUES (?, ?, ?, '2025-06-01', '2025-06-07')
+                """, "Bench trip " + run, destinationId, userIds.get(0));
+            Long tripId = lastId(jdbc);
+
+            for (int i = 0; i < MEMBERS; i++) {
+                jdbc.update("""
+                    INSERT INTO trip_members (trip_id, user_id, member_role, invitation_status, invited_by)
+                    VALUES (?, ?, ?, 'ACCEPTED', ?)
+                    """, tripId, userIds.get(i), i == 0 ? "CREATOR" : "MEMBER", userIds.get(0));
+            }
+            for (int i = 0; i < ITEMS; i++) {
+                jdbc.update("""
+                    INSERT INTO sub_destinations (destination_id, sub_destination_name, category, entry_fee)
+                    VALUES (?, ?, 'NATURAL', 200)
+                    """, destinationId, "Spot " + i);
+                jdbc.update("INSERT INTO trip_subdestinations (trip_id, sub_destination_id, estimated_cost) VALUES (?, ?, 200)",
+                    tripId, lastId(jdbc));
+                jdbc.update("""
+                    INSERT INTO accommodations (destination_id, accommodation_name, accommodation_type, price_per_night)
+                    VALUES (?, ?, 'HOTEL', 3500)
+                    """, destinationId, "Hotel " + i);
+                jdbc.update("""
+                    INSERT INTO trip_accommodations (trip_id, accommodation_id, check_in_date, check_out_date, total_cost)
+                    VALUES (?, ?, '2025-06-01', '2025-06-03', 7000)
+                    """, tripId, lastId(jdbc));
+                jdbc.update("""
+                    INSERT INTO transport (destination_id, transport_type, operator_name, route_from, route_to, price)
+                    VALUES (?, 'BUS', 'Green Line', 'Dhaka', 'Sylhet', 1200)
+                    """, destinationId);
+                jdbc.update("INSERT INTO trip_transport (trip_id, transport_id, total_cost) VALUES (?, ?, 1200)",
+                    tripId, lastId(jdbc));
+            }
+            for (int i = 0; i < EXPENSES; i++) {
+                jdbc.update("""
+                    INSERT INTO trip_expenses (trip_id, paid_by_user_id, expense_category, description, amount, expense_date)
+                    VALUES (?, ?, 'FOOD', ?, 450, '2025-06-02')
+                    """, tripId, userIds.get(i % MEMBERS), "Lunch " + i);
+            }
+            jdbc.update("""
+                INSERT INTO trip_cost_ledger (trip_id, expenses_total, accommodations_total, transport_total, subdestinations_total)
+                VALUES (?, ?, ?, ?, ?)
+                """, tripId, EXPENSES * 450, ITEMS * 7000, ITEMS * 1200, ITEMS * 200);
+            return new Seed(tripId, destinationId, userIds);
+        }
+
+        // Trip rows, items and catalogue entries go with their trip, destination and users
+        void delete(JdbcTemplate jdbc) {
+            jdbc.update("DELETE FROM trips WHERE trip_id = ?", tripId);
+            jdbc.update("DELETE FROM destinations WHERE destination_id = ?", destinationId);
+            for (Long userId : userIds) {
+                jdbc.update("DELETE FROM users WHERE user_id = ?", userId);
+            }
+        }
+
+        private static Long lastId(JdbcTemplate jdbc) {
+            return jdbc.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
+        }
+    }
+}
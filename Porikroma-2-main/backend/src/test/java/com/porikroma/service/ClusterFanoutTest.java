@@ -0,0 +1,119 @@
+package com.porikroma.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+class ClusterFanoutTest {
+
+    private final List<ClusterFanout> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(ClusterFanout::stop);
+    }
+
+    @Test
+    void deliversOneRoomInTheSameOrderOnEveryNode() throws InterruptedException {
+        List<String> deliveredOnA = new CopyOnWriteArrayList<>();
+        List<String> deliveredOnB = new CopyOnWriteArrayList<>();
+        ClusterFanout nodeA = node(deliveredOnA);
+        ClusterFanout nodeB = node(deliveredOnB);
+
+        // Both nodes publish to the same room at once
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> publishers = new ArrayList<>();
+        for (ClusterFanout publisher : List.of(nodeA, nodeB)) {
+            String tag = publisher == nodeA ? "a" : "b";
+            Thread thread = new Thread(() -> {
+                awaitQuietly(start);
+                for (int i = 0; i < 500; i++) {
+                    publisher.publish("trip_1", "new-message", tag + i);
+                }
+            });
+            thread.start();
+            publishers.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : publishers) {
+            thread.join();
+        }
+
+        assertThat(deliveredOnA).hasSize(1000);
+        assertThat(deliveredOnB).containsExactlyElementsOf(deliveredOnA);
+    }
+
+    @Test
+    void runsInvalidationHandlersOnOtherNodesOnly() {
+        ClusterFanout nodeA = node(new CopyOnWriteArrayList<>());
+        ClusterFanout nodeB = node(new CopyOnWriteArrayList<>());
+        AtomicInteger droppedOnA = new AtomicInteger();
+        List<Long> droppedOnB = new CopyOnWriteArrayList<>();
+        nodeA.onInvalidation("trip-roster", key -> droppedOnA.incrementAndGet());
+        nodeB.onInvalidation("trip-roster", droppedOnB::add);
+
+        nodeA.publishInvalidation("trip-roster", 7L);
+
+        assertThat(droppedOnA.get()).isZero();
+        assertThat(droppedOnB).containsExactly(7L);
+    }
+
+    @Test
+    void deliversLocallyWhenNotClustered() {
+        RoomEventCoalescer coalescer = mock(RoomEventCoalescer.class);
+        ClusterFanout standalone = new ClusterFanout();
+        ReflectionTestUtils.setField(standalone, "roomEventCoalescer", coalescer);
+        ReflectionTestUtils.setField(standalone, "transports", List.of(new LoopbackBroadcastTransport()));
+        ReflectionTestUtils.setField(standalone, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(standalone, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(standalone, "transportName", "none");
+        standalone.init();
+        standalone.start();
+
+        standalone.publish("trip_1", "new-message", "a");
+        standalone.publishInvalidation("trip-roster", 7L);
+
+        verify(coalescer).emit("trip_1", "new-message", "a");
+        verifyNoMoreInteractions(coalescer);
+    }
+
+    private ClusterFanout node(List<String> delivered) {
+        RoomEventCoalescer coalescer = mock(RoomEventCoalescer.class);
+        doAnswer(invocation -> delivered.add(invocation.getArgument(2).toString()))
+            .when(coalescer).emit(anyString(), anyString(), any());
+        ClusterFanout node = new ClusterFanout();
+        ReflectionTestUtils.setField(node, "roomEventCoalescer", coalescer);
+        ReflectionTestUtils.setField(node, "transports", List.of(new LoopbackBroadcastTransport()));
+        ReflectionTestUtils.setField(node, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(node, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(node, "transportName", "loopback");
+        node.init();
+        node.start();
+        nodes.add(node);
+        return node;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.porikroma.service;
+
+import com.porikroma.dto.PollDeltaDto;
+import com.porikroma.dto.TripMessageDto;
+import com.porikroma.repository.PollVoteRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class PollVoteEngineTest {
+
+    private static final int VOTERS = 1000;
+    private static final List<String> OPTIONS = List.of("Sylhet", "Bandarban", "Cox's Bazar", "Sundarbans");
+
+    // Stands in for poll_votes: one row per (poll, user), replaced atomically like the upsert
+    private static final class InMemoryPollVotes implements PollVoteRepository {
+        final Map<List<Long>, Integer> votes = new ConcurrentHashMap<>();
+
+        @Override
+        public Integer saveVote(Long messageId, Long userId, int optionIndex) {
+            return votes.put(List.of(messageId, userId), optionIndex);
+        }
+
+        @Override
+        public Map<Long, Map<Integer, Long>> countByMessageIds(Collection<Long> messageIds) {
+            Map<Long, Map<Integer, Long>> counts = new HashMap<>();
+            votes.forEach((key, option) -> {
+                if (messageIds.contains(key.get(0))) {
+                    counts.computeIfAbsent(key.get(0), id -> new HashMap<>()).merge(option, 1L, Long::sum);
+                }
+            });
+            return counts;
+        }
+
+        List<Long> countsFor(Long messageId) {
+            Map<Integer, Long> counts = countByMessageIds(List.of(messageId)).getOrDefault(messageId, Map.of());
+            List<Long> result = new ArrayList<>();
+            for (int i = 0; i < OPTIONS.size(); i++) {
+                result.add(counts.getOrDefault(i, 0L));
+            }
+            return result;
+        }
+    }
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InMemoryPollVotes pollVotes = new InMemoryPollVotes();
+    private final Collection<PollDeltaDto> broadcasts = new ConcurrentLinkedQueue<>();
+    private final ExecutorService voters = Executors.newFixedThreadPool(64);
+    private final TripMessageDto poll = TripMessageDto.builder()
+        .messageId(7L)
+        .tripId(3L)
+        .messageType("POLL")
+        .content("Where next?")
+        .pollOptions(OPTIONS)
+        .build();
+    private PollVoteEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        SocketIOService socketIOService = mock(SocketIOService.class);
+        doAnswer(invocation -> broadcasts.add(invocation.getArgument(1)))
+            .when(socketIOService).sendPollUpdateToTrip(anyLong(), any());
+        engine = new PollVoteEngine();
+        ReflectionTestUtils.setField(engine, "pollVoteRepository", pollVotes);
+        ReflectionTestUtils.setField(engine, "socketIOService", socketIOService);
+        ReflectionTestUtils.setField(engine, "meterRegistry", meterRegistry);
+        // Long enough that no tally is reloaded mid-test
+        ReflectionTestUtils.setField(engine, "tallyTtlMs", 600_000L);
+        engine.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        voters.shutdownNow();
+    }
+
+    @Test
+    void countsEveryVoteFromAThousandConcurrentVoters() throws Exception {
+        List<TripMessageDto> returned = voteConcurrently(user -> OPTIONS.get((int) (user % OPTIONS.size())));
+
+        assertThat(countsInEngine()).containsExactly(250L, 250L, 250L, 250L);
+        assertThat(countsInEngine()).isEqualTo(pollVotes.countsFor(poll.getMessageId()));
+        // Each voter's response already includes their own vote
+        for (int i = 0; i < VOTERS; i++) {
+            int option = (int) ((i + 1) % OPTIONS.size());
+            assertThat(returned.get(i).getPollVoteCounts().get(option)).isPositive();
+        }
+        assertThat(meterRegistry.counter("porikroma.polls.votes").count()).isEqualTo(VOTERS);
+    }
+
+    @Test
+    void movesChangedVotesWithoutLosingOrDoublingAny() throws Exception {
+        voteConcurrently(user -> OPTIONS.get(0));
+        voteConcurrently(user -> OPTIONS.get((int) (user % 3)));
+
+        List<Long> expected = pollVotes.countsFor(poll.getMessageId());
+        assertThat(expected.stream().mapToLong(Long::longValue).sum()).isEqualTo(VOTERS);
+        assertThat(countsInEngine()).isEqualTo(expected);
+    }
+
+    @Test
+    void broadcastDeltasAddUpToTheFinalTallies() throws Exception {
+        AtomicBoolean voting = new AtomicBoolean(true);
+        // One ticker, like the scheduled broadcast, running while the votes land
+        Thread ticker = new Thread(() -> {
+            while (voting.get()) {
+                engine.broadcastDeltas();
+            }
+        });
+        ticker.start();
+        voteConcurrently(user -> OPTIONS.get((int) (user % 2)));
+        voteConcurrently(user -> OPTIONS.get((int) (user % 4)));
+        voting.set(false);
+        ticker.join();
+        engine.broadcastDeltas();
+
+        long[] summed = new long[OPTIONS.size()];
+        List<Long> seqs = new ArrayList<>();
+        for (PollDeltaDto delta : broadcasts) {
+            delta.getDeltas().forEach((option, change) -> summed[option] += change);
+            seqs.add(delta.getSeq());
+        }
+        List<Long> expected = pollVotes.countsFor(poll.getMessageId());
+        for (int i = 0; i < OPTIONS.size(); i++) {
+            assertThat(summed[i]).as("option %d", i).isEqualTo(expected.get(i));
+        }
+        assertThat(seqs).isSorted().doesNotHaveDuplicates();
+    }
+
+    // Every voter votes once, all released at the same moment; returns the responses in voter order
+    private List<TripMessageDto> voteConcurrently(LongFunction<String> optionFor) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<TripMessageDto>> futures = new ArrayList<>();
+        for (long user = 1; user <= VOTERS; user++) {
+            long userId = user;
+            futures.add(voters.submit(() -> {
+                start.await();
+                return engine.vote(poll, userId, optionFor.apply(userId));
+            }));
+        }
+        start.countDown();
+        List<TripMessageDto> returned = new ArrayList<>();
+        for (Future<TripMessageDto> future : futures) {
+            returned.add(future.get(10, TimeUnit.SECONDS));
+        }
+        return returned;
+    }
+
+    private List<Long> countsInEngine() {
+        return engine.attachCounts(List.of(poll)).get(0).getPollVoteCounts();
+    }
+}
@@ -0,0 +1,198 @@
+package com.porikroma.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.porikroma.dto.TripMessageDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecentMessageCacheTest {
+
+    private static final long TRIP = 1L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private RecentMessageCache cache;
+    private ClusterFanout clusterFanout;
+    private Consumer<JsonNode> relayedSends;
+
+    @BeforeEach
+    void setUp() {
+        clusterFanout = mock(ClusterFanout.class);
+        cache = new RecentMessageCache();
+        ReflectionTestUtils.setField(cache, "perTrip", 5);
+        ReflectionTestUtils.setField(cache, "maxMessages", 12);
+        ReflectionTestUtils.setField(cache, "clusterTtlMs", 60000L);
+        ReflectionTestUtils.setField(cache, "clusterFanout", clusterFanout);
+        ReflectionTestUtils.setField(cache, "objectMapper", objectMapper);
+        cache.init();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<JsonNode>> handler = ArgumentCaptor.forClass(Consumer.class);
+        verify(clusterFanout).onRelayedEvent(eq("new-message"), handler.capture());
+        relayedSends = handler.getValue();
+    }
+
+    @Test
+    void loadsOnceAndServesLaterReadsFromMemory() {
+        CountingLoader loader = new CountingLoader(messages(TRIP, 1, 3));
+
+        assertThat(ids(cache.findBefore(TRIP, null, 10, loader))).containsExactly(1L, 2L, 3L);
+        assertThat(ids(cache.findBefore(TRIP, 3L, 10, loader))).containsExactly(1L, 2L);
+        assertThat(loader.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void fallsBackWhenAPageReachesPastTheBuffer() {
+        // A full buffer means older messages may exist in the database
+        CountingLoader loader = new CountingLoader(messages(TRIP, 6, 10));
+
+        assertThat(ids(cache.findBefore(TRIP, null, 3, loader))).containsExactly(8L, 9L, 10L);
+        assertThat(cache.findBefore(TRIP, 8L, 3, loader)).isEmpty();
+        assertThat(cache.findAfter(TRIP, 2L, 3, loader)).isEmpty();
+        assertThat(ids(cache.findAfter(TRIP, 6L, 3, loader))).containsExactly(7L, 8L, 9L);
+    }
+
+    @Test
+    void appliesSendsEditsAndDeletes() {
+        CountingLoader loader = new CountingLoader(messages(TRIP, 1, 2));
+        cache.findBefore(TRIP, null, 10, loader);
+
+        cache.onMessageSent(message(TRIP, 3));
+        TripMessageDto edited = message(TRIP, 2);
+        edited.setContent("edited");
+        cache.onMessageUpdated(edited);
+        cache.onMessageDeleted(TRIP, 1L);
+
+        List<TripMessageDto> page = cache.findBefore(TRIP, null, 10, loader).orElseThrow();
+        assertThat(page).extracting(TripMessageDto::getMessageId).containsExactly(2L, 3L);
+        assertThat(page.get(0).getContent()).isEqualTo("edited");
+        assertThat(loader.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void trimsToThePerTripCapacity() {
+        cache.findBefore(TRIP, null, 10, new CountingLoader(messages(TRIP, 1, 4)));
+
+        cache.onMessageSent(message(TRIP, 5));
+        cache.onMessageSent(message(TRIP, 6));
+        cache.onMessageSent(message(TRIP, 6));
+
+        assertThat(ids(cache.findBefore(TRIP, null, 5, () -> List.of()))).containsExactly(2L, 3L, 4L, 5L, 6L);
+        // Message 1 was trimmed, so the buffer can no longer vouch for what follows it
+        assertThat(cache.findAfter(TRIP, 1L, 10, () -> List.of())).isEmpty();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedTripsOverTheGlobalCap() {
+        CountingLoader first = new CountingLoader(messages(1L, 1, 5));
+        cache.findBefore(1L, null, 5, first);
+        cache.findBefore(2L, null, 5, new CountingLoader(messages(2L, 11, 15)));
+        cache.findBefore(3L, null, 5, new CountingLoader(messages(3L, 21, 25)));
+
+        cache.findBefore(1L, null, 5, first);
+
+        assertThat(first.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void dropsALoadThatRacedWithAnEdit() {
+        CountingLoader reload = new CountingLoader(messages(TRIP, 1, 2));
+        Supplier<List<TripMessageDto>> racingLoader = () -> {
+            cache.onMessageUpdated(message(TRIP, 1));
+            return messages(TRIP, 1, 2);
+        };
+
+        assertThat(cache.findBefore(TRIP, null, 10, racingLoader)).isEmpty();
+        assertThat(ids(cache.findBefore(TRIP, null, 10, reload))).containsExactly(1L, 2L);
+        assertThat(reload.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void relaysEditsAndDeletesButNotSends() {
+        when(clusterFanout.isClustered()).thenReturn(true);
+        cache.findBefore(TRIP, null, 10, new CountingLoader(messages(TRIP, 1, 2)));
+
+        cache.onMessageSent(message(TRIP, 3));
+        verify(clusterFanout, never()).publishInvalidation(anyString(), anyLong());
+
+        cache.onMessageUpdated(message(TRIP, 2));
+        cache.onMessageDeleted(TRIP, 1L);
+        verify(clusterFanout, times(2)).publishInvalidation("recent-messages", TRIP);
+    }
+
+    @Test
+    void appendsSendsRelayedFromOtherNodes() {
+        when(clusterFanout.isClustered()).thenReturn(true);
+        CountingLoader loader = new CountingLoader(messages(TRIP, 1, 2));
+        cache.findBefore(TRIP, null, 10, loader);
+
+        TripMessageDto remote = message(TRIP, 3);
+        remote.setCreatedAt(LocalDateTime.of(2025, 6, 1, 12, 0));
+        relayedSends.accept(objectMapper.valueToTree(remote));
+
+        List<TripMessageDto> page = cache.findBefore(TRIP, null, 10, loader).orElseThrow();
+        assertThat(page).extracting(TripMessageDto::getMessageId).containsExactly(1L, 2L, 3L);
+        assertThat(page.get(2).getCreatedAt()).isEqualTo(remote.getCreatedAt());
+        assertThat(loader.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void reloadsExpiredBuffersWhenClustered() {
+        when(clusterFanout.isClustered()).thenReturn(true);
+        ReflectionTestUtils.setField(cache, "clusterTtlMs", 0L);
+        CountingLoader loader = new CountingLoader(messages(TRIP, 1, 2));
+
+        cache.findBefore(TRIP, null, 10, loader);
+        cache.findBefore(TRIP, null, 10, loader);
+
+        assertThat(loader.calls.get()).isEqualTo(2);
+    }
+
+    private static List<Long> ids(Optional<List<TripMessageDto>> page) {
+        return page.orElseThrow().stream().map(TripMessageDto::getMessageId).toList();
+    }
+
+    private static List<TripMessageDto> messages(long tripId, long fromId, long toId) {
+        return new ArrayList<>(LongStream.rangeClosed(fromId, toId).mapToObj(id -> message(tripId, id)).toList());
+    }
+
+    private static TripMessageDto message(long tripId, long messageId) {
+        return TripMessageDto.builder().tripId(tripId).messageId(messageId).content("m" + messageId).build();
+    }
+
+    private static final class CountingLoader implements Supplier<List<TripMessageDto>> {
+        final List<TripMessageDto> rows;
+        final AtomicInteger calls = new AtomicInteger();
+
+        CountingLoader(List<TripMessageDto> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public List<TripMessageDto> get() {
+            calls.incrementAndGet();
+            return rows;
+        }
+    }
+}
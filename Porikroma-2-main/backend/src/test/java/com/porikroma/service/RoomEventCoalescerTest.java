@@ -0,0 +1,137 @@
+package com.porikroma.service;
+
+import com.porikroma.dto.SocketEventDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class RoomEventCoalescerTest {
+
+    private record Frame(String room, String event, Object data) {
+    }
+
+    private final List<Frame> frames = new CopyOnWriteArrayList<>();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SocketOutbox socketOutbox = mock(SocketOutbox.class);
+    private RoomEventCoalescer coalescer;
+
+    @AfterEach
+    void tearDown() {
+        if (coalescer != null) {
+            coalescer.shutdown();
+        }
+    }
+
+    @Test
+    void sendsStraightThroughWhenDisabled() {
+        coalescer = coalescer(false, 10, 50);
+
+        coalescer.emit("trip_1", "new-message", "a");
+        coalescer.emit("trip_1", "new-message", "b");
+
+        assertThat(frames).containsExactly(
+            new Frame("trip_1", "new-message", "a"),
+            new Frame("trip_1", "new-message", "b"));
+    }
+
+    @Test
+    void batchesABurstIntoOneFrameInOrder() {
+        coalescer = coalescer(true, 50, 50);
+
+        coalescer.emit("trip_1", "new-message", "a");
+        coalescer.emit("trip_1", "message-updated", "b");
+        coalescer.emit("trip_1", "new-message", "c");
+
+        verify(socketOutbox, timeout(2000)).sendToRoom(anyString(), anyString(), any());
+        assertThat(frames).hasSize(1);
+        Frame frame = frames.get(0);
+        assertThat(frame.event()).isEqualTo(RoomEventCoalescer.BATCH_EVENT);
+        @SuppressWarnings("unchecked")
+        List<SocketEventDto> events = (List<SocketEventDto>) frame.data();
+        assertThat(events).extracting(SocketEventDto::getEvent).containsExactly("new-message", "message-updated", "new-message");
+        assertThat(events).extracting(SocketEventDto::getData).containsExactly("a", "b", "c");
+        assertThat(meterRegistry.counter("porikroma.socket.coalescing.frames_saved").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void sendsALoneEventUnwrapped() {
+        coalescer = coalescer(true, 5, 50);
+
+        coalescer.emit("trip_1", "new-message", "a");
+
+        verify(socketOutbox, timeout(2000)).sendToRoom("trip_1", "new-message", "a");
+        assertThat(frames).hasSize(1);
+    }
+
+    @Test
+    void flushesAFullBatchWithoutWaitingForTheTick() {
+        coalescer = coalescer(true, 60_000, 3);
+
+        coalescer.emit("trip_1", "new-message", "a");
+        coalescer.emit("trip_1", "new-message", "b");
+        coalescer.emit("trip_1", "new-message", "c");
+
+        assertThat(frames).hasSize(1);
+        assertThat(frames.get(0).event()).isEqualTo(RoomEventCoalescer.BATCH_EVENT);
+    }
+
+    @Test
+    void keepsRoomsApart() {
+        coalescer = coalescer(true, 60_000, 2);
+
+        coalescer.emit("trip_1", "new-message", "a");
+        coalescer.emit("trip_2", "new-message", "b");
+        coalescer.emit("trip_1", "new-message", "c");
+
+        assertThat(frames).hasSize(1);
+        assertThat(frames.get(0).room()).isEqualTo("trip_1");
+    }
+
+    @Test
+    void countsEventsFramesAndFramesSaved() {
+        // No tick fires within the test, so only full batches and the shutdown flush send
+        coalescer = coalescer(true, 60_000, 50);
+        int rooms = 5;
+        int eventsPerRoom = 210;
+
+        for (int i = 0; i < eventsPerRoom; i++) {
+            for (int room = 0; room < rooms; room++) {
+                coalescer.emit("trip_" + room, "new-message", i);
+            }
+        }
+        coalescer.shutdown();
+
+        // Per room: four full batches of 50 and one partial batch of 10
+        assertThat(frames).hasSize(rooms * 5);
+        assertThat(meterRegistry.counter("porikroma.socket.coalescing.events").count()).isEqualTo(rooms * eventsPerRoom);
+        assertThat(meterRegistry.counter("porikroma.socket.coalescing.frames").count()).isEqualTo(rooms * 5);
+        assertThat(meterRegistry.counter("porikroma.socket.coalescing.frames_saved").count())
+            .isEqualTo(rooms * eventsPerRoom - rooms * 5);
+    }
+
+    private RoomEventCoalescer coalescer(boolean enabled, long maxDelayMs, int maxBatch) {
+        doAnswer(invocation -> frames.add(new Frame(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2))))
+            .when(socketOutbox).sendToRoom(anyString(), anyString(), any());
+        RoomEventCoalescer created = new RoomEventCoalescer();
+        ReflectionTestUtils.setField(created, "socketOutbox", socketOutbox);
+        ReflectionTestUtils.setField(created, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(created, "enabled", enabled);
+        ReflectionTestUtils.setField(created, "maxDelayMs", maxDelayMs);
+        ReflectionTestUtils.setField(created, "maxBatch", maxBatch);
+        created.init();
+        return created;
+    }
+}
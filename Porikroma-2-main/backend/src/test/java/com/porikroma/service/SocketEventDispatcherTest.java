@@ -0,0 +1,132 @@
+package com.porikroma.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SocketEventDispatcherTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SocketEventDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void runsTasksOfOneKeyOneAtATimeInOrder() throws InterruptedException {
+        dispatcher = dispatcher(0, 1000);
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(200);
+
+        for (int i = 0; i < 200; i++) {
+            int task = i;
+            dispatcher.dispatch("trip_1", () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                order.add(task);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(order).containsExactlyElementsOf(IntStream.range(0, 200).boxed().toList());
+        assertThat(maxRunning.get()).isEqualTo(1);
+    }
+
+    @Test
+    void runsDifferentKeysInParallel() throws InterruptedException {
+        dispatcher = dispatcher(0, 1000);
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        CountDownLatch done = new CountDownLatch(2);
+
+        // Each task waits for the other, so this only finishes if they overlap
+        for (String key : List.of("trip_1", "trip_2")) {
+            dispatcher.dispatch(key, () -> {
+                bothStarted.countDown();
+                try {
+                    if (bothStarted.await(5, TimeUnit.SECONDS)) {
+                        done.countDown();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void rejectsWhenAKeyHasTooMuchQueued() throws InterruptedException {
+        dispatcher = dispatcher(0, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        assertThat(dispatcher.dispatch("trip_1", () -> {
+            started.countDown();
+            awaitQuietly(release);
+        })).isTrue();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(dispatcher.dispatch("trip_1", () -> { })).isTrue();
+        assertThat(dispatcher.dispatch("trip_1", () -> { })).isTrue();
+        assertThat(dispatcher.dispatch("trip_1", () -> { })).isFalse();
+        assertThat(dispatcher.dispatch("trip_2", () -> { })).isTrue();
+        release.countDown();
+
+        assertThat(meterRegistry.counter("porikroma.socket.dispatch.rejected").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void keepsGoingAfterAFailedTaskAndDropsIdleKeys() throws InterruptedException {
+        dispatcher = dispatcher(2, 1000);
+        CountDownLatch done = new CountDownLatch(1);
+
+        dispatcher.dispatch("trip_1", () -> {
+            throw new IllegalStateException("boom");
+        });
+        dispatcher.dispatch("trip_1", done::countDown);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (busyKeys() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(busyKeys()).isZero();
+    }
+
+    private double busyKeys() {
+        return meterRegistry.get("porikroma.socket.dispatch.busy_keys").gauge().value();
+    }
+
+    private SocketEventDispatcher dispatcher(int poolSize, int maxPendingPerKey) {
+        SocketEventDispatcher created = new SocketEventDispatcher();
+        ReflectionTestUtils.setField(created, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(created, "poolSize", poolSize);
+        ReflectionTestUtils.setField(created, "maxPendingPerKey", maxPendingPerKey);
+        created.init();
+        return created;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
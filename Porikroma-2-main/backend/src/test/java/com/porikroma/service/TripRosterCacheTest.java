@@ -0,0 +1,87 @@
+package com.porikroma.service;
+
+import com.porikroma.dto.TripMemberDto;
+import com.porikroma.repository.TripRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TripRosterCacheTest {
+
+    private final TripRepository tripRepository = mock(TripRepository.class);
+    private TripRosterCache cache;
+
+    @BeforeEach
+    void setUp() {
+        when(tripRepository.findRosterByTripId(anyLong())).thenAnswer(invocation -> List.of(TripMemberDto.builder()
+            .tripId(invocation.getArgument(0))
+            .userId(1L)
+            .memberRole("CREATOR")
+            .invitationStatus("ACCEPTED")
+            .build()));
+        cache = new TripRosterCache();
+        ReflectionTestUtils.setField(cache, "tripRepository", tripRepository);
+        ReflectionTestUtils.setField(cache, "clusterFanout", mock(ClusterFanout.class));
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+        ReflectionTestUtils.setField(cache, "ttlMs", 60_000L);
+        cache.init();
+    }
+
+    @Test
+    void servesRepeatReadsFromTheCache() {
+        assertThat(cache.isAcceptedMember(1L, 1L)).isTrue();
+        assertThat(cache.canEdit(1L, 1L)).isTrue();
+        assertThat(cache.isAcceptedMember(1L, 2L)).isFalse();
+
+        verify(tripRepository, times(1)).findRosterByTripId(1L);
+    }
+
+    @Test
+    void dropsTheLeastRecentlyUsedTripOverTheCap() {
+        cache.isAcceptedMember(1L, 1L);
+        cache.isAcceptedMember(2L, 1L);
+        cache.isAcceptedMember(1L, 1L);
+        cache.isAcceptedMember(3L, 1L);
+
+        assertThat(cachedTrips()).containsOnlyKeys(1L, 3L);
+        cache.isAcceptedMember(2L, 1L);
+        verify(tripRepository, times(2)).findRosterByTripId(2L);
+        verify(tripRepository, times(1)).findRosterByTripId(1L);
+    }
+
+    @Test
+    void sweepsOutExpiredRosters() {
+        cache.isAcceptedMember(1L, 1L);
+        cache.removeExpired();
+        assertThat(cachedTrips()).containsOnlyKeys(1L);
+
+        ReflectionTestUtils.setField(cache, "ttlMs", 0L);
+        cache.removeExpired();
+
+        assertThat(cachedTrips()).isEmpty();
+    }
+
+    @Test
+    void reloadsAfterEvict() {
+        cache.isAcceptedMember(1L, 1L);
+        cache.evict(1L);
+        cache.isAcceptedMember(1L, 1L);
+
+        verify(tripRepository, times(2)).findRosterByTripId(1L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, ?> cachedTrips() {
+        return (Map<Long, ?>) ReflectionTestUtils.getField(cache, "rosters");
+    }
+}
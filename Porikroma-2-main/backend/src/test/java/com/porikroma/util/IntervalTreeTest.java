@@ -0,0 +1,111 @@
+package com.porikroma.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IntervalTreeTest {
+
+    private static final LocalDate BASE = LocalDate.of(2025, 1, 1);
+
+    @Test
+    void findsOverlappingAndContainedIntervals() {
+        IntervalTree tree = new IntervalTree();
+        tree.put(1, day(0), day(4));
+        tree.put(2, day(3), day(6));
+        tree.put(3, day(10), day(12));
+
+        assertThat(tree.findOverlapping(day(4), day(5))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(tree.findOverlapping(day(7), day(9))).isEmpty();
+        assertThat(tree.findContainedIn(day(0), day(6))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(tree.findContainedIn(day(1), day(12))).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(tree.findActiveOn(day(12))).containsExactly(3L);
+    }
+
+    @Test
+    void putReplacesAndRemoveDeletes() {
+        IntervalTree tree = new IntervalTree();
+        tree.put(1, day(0), day(2));
+        tree.put(1, day(20), day(22));
+
+        assertThat(tree.size()).isEqualTo(1);
+        assertThat(tree.findActiveOn(day(1))).isEmpty();
+        assertThat(tree.findActiveOn(day(21))).containsExactly(1L);
+
+        assertThat(tree.remove(1)).isTrue();
+        assertThat(tree.remove(1)).isFalse();
+        assertThat(tree.findActiveOn(day(21))).isEmpty();
+    }
+
+    @Test
+    void keepsIntervalsWithTheSameStartApart() {
+        IntervalTree tree = new IntervalTree();
+        tree.put(1, day(5), day(5));
+        tree.put(2, day(5), day(9));
+        tree.remove(1);
+
+        assertThat(tree.findActiveOn(day(5))).containsExactly(2L);
+    }
+
+    @Test
+    void rejectsEndBeforeStart() {
+        IntervalTree tree = new IntervalTree();
+
+        assertThatThrownBy(() -> tree.put(1, day(3), day(2))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void matchesLinearScanUnderRandomChanges() {
+        Random random = new Random(42);
+        IntervalTree tree = new IntervalTree();
+        Map<Long, LocalDate[]> expected = new HashMap<>();
+
+        for (int step = 0; step < 5000; step++) {
+            long id = random.nextInt(300);
+            if (random.nextInt(4) == 0) {
+                tree.remove(id);
+                expected.remove(id);
+            } else {
+                LocalDate start = day(random.nextInt(365));
+                LocalDate end = start.plusDays(random.nextInt(30));
+                tree.put(id, start, end);
+                expected.put(id, new LocalDate[] { start, end });
+            }
+
+            if (step % 50 == 0) {
+                LocalDate from = day(random.nextInt(365));
+                LocalDate to = from.plusDays(random.nextInt(40));
+                assertThat(tree.findOverlapping(from, to))
+                    .containsExactlyInAnyOrderElementsOf(scan(expected, from, to, false));
+                assertThat(tree.findContainedIn(from, to))
+                    .containsExactlyInAnyOrderElementsOf(scan(expected, from, to, true));
+            }
+        }
+        assertThat(tree.size()).isEqualTo(expected.size());
+    }
+
+    private List<Long> scan(Map<Long, LocalDate[]> intervals, LocalDate from, LocalDate to, boolean contained) {
+        List<Long> ids = new ArrayList<>();
+        intervals.forEach((id, range) -> {
+            boolean match = contained
+                ? !range[0].isBefore(from) && !range[1].isAfter(to)
+                : !range[0].isAfter(to) && !range[1].isBefore(from);
+            if (match) {
+                ids.add(id);
+            }
+        });
+        return ids;
+    }
+
+    private static LocalDate day(int offset) {
+        return BASE.plusDays(offset);
+    }
+}
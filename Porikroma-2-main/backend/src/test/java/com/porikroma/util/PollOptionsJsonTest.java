@@ -0,0 +1,37 @@
+package com.porikroma.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PollOptionsJsonTest {
+
+    @Test
+    void roundTripsOptionsContainingCommasAndQuotes() {
+        List<String> options = List.of("Beach, then hike", "Say \"no\"", "Stay in");
+
+        String json = PollOptionsJson.write(options);
+
+        assertThat(json).startsWith("[");
+        assertThat(PollOptionsJson.read(json)).containsExactlyElementsOf(options);
+    }
+
+    @Test
+    void readsLegacyCommaSeparatedValues() {
+        assertThat(PollOptionsJson.read("Yes,No,Maybe")).containsExactly("Yes", "No", "Maybe");
+    }
+
+    @Test
+    void mapsMissingValuesToNull() {
+        assertThat(PollOptionsJson.write(null)).isNull();
+        assertThat(PollOptionsJson.read(null)).isNull();
+        assertThat(PollOptionsJson.read("")).isNull();
+    }
+
+    @Test
+    void returnsNullForBrokenJson() {
+        assertThat(PollOptionsJson.read("[\"Yes\", ")).isNull();
+    }
+}
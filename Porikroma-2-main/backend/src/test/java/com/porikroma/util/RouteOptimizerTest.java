@@ -0,0 +1,106 @@
+package com.porikroma.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RouteOptimizerTest {
+
+    private static final long BUDGET = TimeUnit.SECONDS.toNanos(2);
+
+    @Test
+    void findsTheStraightPathThroughPointsOnALine() {
+        double[] positions = { 7, 1, 9, 3, 0, 5 };
+
+        RouteOptimizer.Route route = RouteOptimizer.optimize(lineDistances(positions), -1, BUDGET);
+
+        assertThat(route.isComplete()).isTrue();
+        assertThat(route.getDistance()).isCloseTo(9.0, within(1e-9));
+        assertPermutation(route.getOrder(), positions.length);
+    }
+
+    @Test
+    void keepsAFixedStart() {
+        double[] positions = { 7, 1, 9, 3, 0, 5 };
+
+        RouteOptimizer.Route route = RouteOptimizer.optimize(lineDistances(positions), 3, BUDGET);
+
+        assertThat(route.getOrder()[0]).isEqualTo(3);
+        assertPermutation(route.getOrder(), positions.length);
+        // From 3 the best open path goes down to 0 and then up to 9: 3 + 9
+        assertThat(route.getDistance()).isCloseTo(12.0, within(1e-9));
+    }
+
+    @Test
+    void handlesTinyInputs() {
+        assertThat(RouteOptimizer.optimize(new double[0][0], -1, BUDGET).getOrder()).isEmpty();
+        assertThat(RouteOptimizer.optimize(new double[][] { { 0 } }, -1, BUDGET).getOrder()).containsExactly(0);
+        double[][] two = { { 0, 4 }, { 4, 0 } };
+        assertThat(RouteOptimizer.optimize(two, 1, BUDGET).getOrder()).containsExactly(1, 0);
+        assertThat(RouteOptimizer.optimize(two, -1, BUDGET).getDistance()).isEqualTo(4.0);
+    }
+
+    @Test
+    void neverReturnsALongerRouteThanTheIdentityOrderOnLargeInputs() {
+        double[][] distances = randomPlane(120, new Random(7));
+
+        RouteOptimizer.Route route = RouteOptimizer.optimize(distances, -1, BUDGET);
+
+        assertPermutation(route.getOrder(), distances.length);
+        double identity = 0;
+        for (int i = 1; i < distances.length; i++) {
+            identity += distances[i - 1][i];
+        }
+        assertThat(route.getDistance()).isLessThan(identity);
+    }
+
+    @Test
+    void returnsAValidRouteWhenTheBudgetIsAlreadySpent() {
+        double[][] distances = randomPlane(200, new Random(11));
+
+        RouteOptimizer.Route route = RouteOptimizer.optimize(distances, 0, 0);
+
+        assertThat(route.isComplete()).isFalse();
+        assertThat(route.getOrder()[0]).isEqualTo(0);
+        assertPermutation(route.getOrder(), distances.length);
+    }
+
+    private static void assertPermutation(int[] order, int n) {
+        int[] sorted = order.clone();
+        Arrays.sort(sorted);
+        assertThat(sorted).containsExactly(IntStream.range(0, n).toArray());
+    }
+
+    private static double[][] lineDistances(double[] positions) {
+        int n = positions.length;
+        double[][] distances = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                distances[i][j] = Math.abs(positions[i] - positions[j]);
+            }
+        }
+        return distances;
+    }
+
+    private static double[][] randomPlane(int n, Random random) {
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = random.nextDouble() * 100;
+            y[i] = random.nextDouble() * 100;
+        }
+        double[][] distances = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                distances[i][j] = Math.hypot(x[i] - x[j], y[i] - y[j]);
+            }
+        }
+        return distances;
+    }
+}
@@ -0,0 +1,61 @@
+package com.porikroma.util;
+
+import com.porikroma.dto.TripDto;
+import com.porikroma.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TripCursorTest {
+
+    @Test
+    void roundTripsTheLastTripOfAPage() {
+        TripDto trip = new TripDto();
+        trip.setTripId(42L);
+        trip.setCreatedAt(LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_000_000));
+
+        TripCursor cursor = TripCursor.decode(TripCursor.encode(trip));
+
+        assertThat(cursor.getTripId()).isEqualTo(42L);
+        assertThat(cursor.getCreatedAt()).isEqualTo(trip.getCreatedAt());
+    }
+
+    @Test
+    void encodesAsUrlSafeTokenWithoutPadding() {
+        TripDto trip = new TripDto();
+        trip.setTripId(7L);
+        trip.setCreatedAt(LocalDateTime.of(2025, 1, 1, 0, 0));
+
+        assertThat(TripCursor.encode(trip)).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void treatsMissingTokenAsFirstPage() {
+        assertThat(TripCursor.decode(null)).isNull();
+        assertThat(TripCursor.decode("  ")).isNull();
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        String noSeparator = Base64.getUrlEncoder().encodeToString("2025-01-01T00:00".getBytes(StandardCharsets.UTF_8));
+        String badId = Base64.getUrlEncoder().encodeToString("2025-01-01T00:00|x".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> TripCursor.decode("not base64!")).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> TripCursor.decode(noSeparator)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> TripCursor.decode(badId)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void clampsPageSize() {
+        assertThat(TripCursor.clampPageSize(null)).isEqualTo(TripCursor.DEFAULT_PAGE_SIZE);
+        assertThat(TripCursor.clampPageSize(0)).isEqualTo(TripCursor.DEFAULT_PAGE_SIZE);
+        assertThat(TripCursor.clampPageSize(-5)).isEqualTo(TripCursor.DEFAULT_PAGE_SIZE);
+        assertThat(TripCursor.clampPageSize(30)).isEqualTo(30);
+        assertThat(TripCursor.clampPageSize(10_000)).isEqualTo(TripCursor.MAX_PAGE_SIZE);
+    }
+}
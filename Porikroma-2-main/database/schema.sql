@@ -156,6 +156,9 @@ CREATE TABLE trips (
     start_date DATE,
     end_date DATE,
     status ENUM('PLANNING', 'CONFIRMED', 'ONGOING', 'COMPLETED', 'CANCELLED') DEFAULT 'PLANNING',
+    is_public BOOLEAN DEFAULT FALSE,  -- Listed in public and popular trips
+    version BIGINT NOT NULL DEFAULT 1,  -- Change counter for trip detail ETags
+    archived_at TIMESTAMP NULL,  -- Set once messages and expenses have moved to trip_archives
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     FOREIGN KEY (destination_id) REFERENCES destinations(destination_id) ON DELETE CASCADE,
@@ -176,6 +179,7 @@ CREATE TABLE trip_members (
     emergency_contact VARCHAR(200),
     dietary_preferences TEXT,
     special_requirements TEXT,
+    trip_created_at TIMESTAMP NULL,  -- Copy of trips.created_at (never changes) so a user's trips page in order from one index
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     FOREIGN KEY (trip_id) REFERENCES trips(trip_id) ON DELETE CASCADE,
@@ -214,7 +218,8 @@ CREATE TABLE trip_accommodations (
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     FOREIGN KEY (trip_id) REFERENCES trips(trip_id) ON DELETE CASCADE,
-    FOREIGN KEY (accommodation_id) REFERENCES accommodations(accommodation_id) ON DELETE CASCADE
+    FOREIGN KEY (accommodation_id) REFERENCES accommodations(accommodation_id) ON DELETE CASCADE,
+    UNIQUE KEY unique_trip_accommodation (trip_id, accommodation_id)
 );
 
 -- Trip transport
@@ -234,7 +239,8 @@ CREATE TABLE trip_transport (
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     FOREIGN KEY (trip_id) REFERENCES trips(trip_id) ON DELETE CASCADE,
-    FOREIGN KEY (transport_id) REFERENCES transport(transport_id) ON DELETE CASCADE
+    FOREIGN KEY (transport_id) REFERENCES transport(transport_id) ON DELETE CASCADE,
+    UNIQUE KEY unique_trip_transport (trip_id, transport_id)
 );
 
 -- Trip invitations
@@ -278,7 +284,7 @@ CREATE TABLE trip_messages (
     message_type ENUM('TEXT', 'IMAGE', 'FILE', 'LOCATION', 'SYSTEM', 'POLL') DEFAULT 'TEXT',
     content TEXT NOT NULL,
     attachment_url VARCHAR(500),  -- ImgBB URL for images
-    poll_options JSON,  -- e.g., {"options": ["Yes", "No"], "votes": {user_id: option}}
+    poll_options JSON,  -- e.g., ["Yes", "No"]; votes are in poll_votes
     reply_to_message_id BIGINT NULL,
     is_edited BOOLEAN DEFAULT FALSE,
     edited_at TIMESTAMP NULL,
@@ -288,6 +294,49 @@ CREATE TABLE trip_messages (
     FOREIGN KEY (reply_to_message_id) REFERENCES trip_messages(message_id) ON DELETE SET NULL
 );
 
+-- Poll votes, one per user per poll message
+CREATE TABLE poll_votes (
+    message_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    option_index INT NOT NULL,
+    previous_option_index INT NULL,  -- Option the latest change of vote replaced
+    voted_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (message_id, user_id),
+    FOREIGN KEY (message_id) REFERENCES trip_messages(message_id) ON DELETE CASCADE,
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+);
+
+-- Per-trip message counter that read marks are measured against
+CREATE TABLE trip_chat_state (
+    trip_id BIGINT PRIMARY KEY,
+    message_seq BIGINT NOT NULL DEFAULT 0,  -- Messages ever sent; deletes don't lower it
+    last_message_id BIGINT NULL,
+    FOREIGN KEY (trip_id) REFERENCES trips(trip_id) ON DELETE CASCADE
+);
+
+-- One read high-water mark per user per trip
+CREATE TABLE trip_read_marks (
+    user_id BIGINT NOT NULL,
+    trip_id BIGINT NOT NULL,
+    read_seq BIGINT NOT NULL DEFAULT 0,  -- trip_chat_state.message_seq when last read
+    last_read_message_id BIGINT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (user_id, trip_id),
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE,
+    FOREIGN KEY (trip_id) REFERENCES trips(trip_id) ON DELETE CASCADE
+);
+
+-- Room events relayed between backend nodes (jdbc cluster transport); pruned after a few minutes
+CREATE TABLE socket_broadcasts (
+    event_id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    origin_node CHAR(36) NOT NULL,
+    origin_seq BIGINT NOT NULL,
+    room VARCHAR(100) NOT NULL,
+    event_name VARCHAR(50) NOT NULL,
+    payload MEDIUMTEXT NOT NULL,
+    created_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3)
+);
+
 -- Trip expenses
 CREATE TABLE trip_expenses (
     expense_id BIGINT PRIMARY KEY AUTO_INCREMENT,
@@ -307,6 +356,18 @@ CREATE TABLE trip_expenses (
     FOREIGN KEY (paid_by_user_id) REFERENCES users(user_id) ON DELETE CASCADE
 );
 
+-- Per-trip cost ledger, maintained on every item/expense write so reads are a primary key lookup
+CREATE TABLE trip_cost_ledger (
+    trip_id BIGINT PRIMARY KEY,
+    expenses_total DECIMAL(14,2) NOT NULL DEFAULT 0,
+    accommodations_total DECIMAL(14,2) NOT NULL DEFAULT 0,
+    transport_total DECIMAL(14,2) NOT NULL DEFAULT 0,
+    subdestinations_total DECIMAL(14,2) NOT NULL DEFAULT 0,
+    total_cost DECIMAL(14,2) AS (expenses_total + accommodations_total + transport_total + subdestinations_total) STORED,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (trip_id) REFERENCES trips(trip_id) ON DELETE CASCADE
+);
+
 -- Expense settlements
 CREATE TABLE expense_settlements (
     settlement_id BIGINT PRIMARY KEY AUTO_INCREMENT,
@@ -343,6 +404,30 @@ CREATE TABLE reviews (
     UNIQUE KEY unique_review (user_id, entity_type, entity_id)
 );
 
+-- Cold storage for long-completed trips: their messages, expenses and settlements as one gzipped JSON document
+CREATE TABLE trip_archives (
+    trip_id BIGINT PRIMARY KEY,
+    payload LONGBLOB NOT NULL,
+    message_count INT NOT NULL DEFAULT 0,
+    expense_count INT NOT NULL DEFAULT 0,
+    settlement_count INT NOT NULL DEFAULT 0,
+    archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (trip_id) REFERENCES trips(trip_id) ON DELETE CASCADE
+);
+
+-- Block-allocated id sequences for rows whose id is assigned before they are written
+CREATE TABLE id_sequences (
+    sequence_name VARCHAR(100) PRIMARY KEY,
+    next_value BIGINT NOT NULL
+);
+
+-- Leases for scheduled jobs that must run on one node at a time
+CREATE TABLE scheduler_locks (
+    lock_name VARCHAR(100) PRIMARY KEY,
+    locked_by VARCHAR(200),
+    locked_until TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
 -- Indexes for performance
 CREATE INDEX idx_users_email ON users(email);
 CREATE INDEX idx_users_username ON users(username);
@@ -351,16 +436,22 @@ CREATE INDEX idx_destinations_country_state ON destinations(country, state_provi
 CREATE INDEX idx_sub_destinations_destination ON sub_destinations(destination_id);
 CREATE INDEX idx_sub_destinations_category ON sub_destinations(category);
 CREATE INDEX idx_trips_creator ON trips(creator_user_id);
-CREATE INDEX idx_trips_destination ON trips(destination_id);
+CREATE INDEX idx_trips_destination_created ON trips(destination_id, created_at, trip_id);
 CREATE INDEX idx_trips_dates ON trips(start_date, end_date);
-CREATE INDEX idx_trips_status ON trips(status);
+CREATE INDEX idx_trips_status_start ON trips(status, start_date);
+CREATE INDEX idx_trips_status_end ON trips(status, end_date, archived_at);
+CREATE INDEX idx_trips_status_created ON trips(status, created_at, trip_id);
+CREATE INDEX idx_trips_created ON trips(created_at, trip_id);
 CREATE INDEX idx_trip_members_trip ON trip_members(trip_id);
-CREATE INDEX idx_trip_members_user ON trip_members(user_id);
+CREATE INDEX idx_trip_members_user ON trip_members(user_id, invitation_status, trip_id);
+CREATE INDEX idx_trip_members_user_created ON trip_members(user_id, invitation_status, trip_created_at, trip_id);
 CREATE INDEX idx_trip_members_status ON trip_members(invitation_status);
 CREATE INDEX idx_notifications_user ON user_notifications(user_id);
 CREATE INDEX idx_notifications_unread ON user_notifications(user_id, is_read);
 CREATE INDEX idx_notifications_created ON user_notifications(created_at);
-CREATE INDEX idx_messages_trip ON trip_messages(trip_id);
+CREATE INDEX idx_messages_trip_message ON trip_messages(trip_id, message_id);
 CREATE INDEX idx_messages_created ON trip_messages(created_at);
+CREATE INDEX idx_poll_votes_option ON poll_votes(message_id, option_index);
+CREATE INDEX idx_socket_broadcasts_created ON socket_broadcasts(created_at);
 CREATE INDEX idx_reviews_user ON reviews(user_id);
 CREATE INDEX idx_reviews_entity ON reviews(entity_type, entity_id);
\ No newline at end of file
@@ -2,8 +2,12 @@ import api from "./client";
 import { TripMessage } from "../types";
 
 export const chatApi = {
-  getTripMessages: async (tripId: number): Promise<TripMessage[]> => {
-    const response = await api.get(`/trips/${tripId}/messages`);
+  // Latest page by default; pass before/after a message id to page through history
+  getTripMessages: async (
+    tripId: number,
+    page?: { before?: number; after?: number; limit?: number }
+  ): Promise<TripMessage[]> => {
+    const response = await api.get(`/trips/${tripId}/messages`, { params: page });
     return response.data;
   },
 
@@ -33,4 +37,16 @@ export const chatApi = {
   markMessagesAsRead: async (tripId: number): Promise<void> => {
     await api.post(`/trips/${tripId}/messages/mark-read`);
   },
+
+  // All of the user's trips when tripIds is omitted
+  getUnreadCounts: async (
+    tripIds?: number[]
+  ): Promise<
+    { tripId: number; unreadCount: number; lastMessageId?: number; lastReadMessageId?: number }[]
+  > => {
+    const response = await api.get("/messages/unread-counts", {
+      params: tripIds ? { tripIds: tripIds.join(",") } : undefined,
+    });
+    return response.data;
+  },
 };
@@ -17,6 +17,8 @@ import {
 import { Send, Image, Paperclip, Smile, MessageCircle } from "lucide-react";
 import { chatApi } from "../api/chat";
 
+const OLDER_PAGE_SIZE = 50;
+
 const TripChatPage: React.FC = () => {
   const { id: tripId } = useParams<{ id: string }>();
   const { user } = useAuth();
@@ -27,6 +29,8 @@ const TripChatPage: React.FC = () => {
   const [isTyping, setIsTyping] = useState(false);
   const [typingUsers, setTypingUsers] = useState<string[]>([]);
   const [showImageUploader, setShowImageUploader] = useState(false);
+  const [loadingOlder, setLoadingOlder] = useState(false);
+  const [hasOlder, setHasOlder] = useState(true);
 
   const {
     data: messages = [],
@@ -34,11 +38,19 @@ const TripChatPage: React.FC = () => {
     error: messagesError,
   } = useQuery({
     queryKey: ["trip-messages", tripId],
-    queryFn: () => {
+    queryFn: async () => {
       console.log("Fetching messages for trip:", tripId);
-      return tripId
-        ? chatApi.getTripMessages(parseInt(tripId))
-        : Promise.resolve([]);
+      if (!tripId) {
+        return [];
+      }
+      const latest = await chatApi.getTripMessages(parseInt(tripId));
+      // Keep older pages already loaded; the latest page replaces everything from its first message on
+      const cached =
+        queryClient.getQueryData<TripMessage[]>(["trip-messages", tripId]) ?? [];
+      const older = latest.length
+        ? cached.filter((msg) => msg.messageId < latest[0].messageId)
+        : [];
+      return [...older, ...latest];
     },
     enabled: !!tripId,
     refetchInterval: 2000, // Poll every 2 seconds as fallback while Socket.IO is being fixed
@@ -53,6 +65,48 @@ const TripChatPage: React.FC = () => {
     console.log("User:", user);
   }, [tripId, messages, messagesLoading, messagesError, user]);
 
+  // Everything on screen counts as read; only call again when a newer message shows up
+  const latestMessageId = messages.length
+    ? messages[messages.length - 1].messageId
+    : undefined;
+  useEffect(() => {
+    if (tripId && latestMessageId) {
+      chatApi.markMessagesAsRead(parseInt(tripId)).catch(() => {});
+    }
+  }, [tripId, latestMessageId]);
+
+  useEffect(() => {
+    setHasOlder(true);
+  }, [tripId]);
+
+  const oldestMessageId = messages.length ? messages[0].messageId : undefined;
+  const loadOlderMessages = async () => {
+    if (!tripId || !oldestMessageId || loadingOlder) {
+      return;
+    }
+    setLoadingOlder(true);
+    try {
+      const older = await chatApi.getTripMessages(parseInt(tripId), {
+        before: oldestMessageId,
+        limit: OLDER_PAGE_SIZE,
+      });
+      if (older.length < OLDER_PAGE_SIZE) {
+        setHasOlder(false);
+      }
+      queryClient.setQueryData(
+        ["trip-messages", tripId],
+        (current: TripMessage[] = []) => {
+          const known = new Set(current.map((msg) => msg.messageId));
+          return [...older.filter((msg) => !known.has(msg.messageId)), ...current];
+        }
+      );
+    } catch (error) {
+      toast.error("Failed to load older messages");
+    } finally {
+      setLoadingOlder(false);
+    }
+  };
+
   const { data: trip } = useQuery({
     queryKey: ["trip", tripId],
     queryFn: () =>
@@ -120,6 +174,19 @@ const TripChatPage: React.FC = () => {
       console.log("Successfully joined trip room:", message);
     });
 
+    newSocket.on("join-trip-denied", () => {
+      toast.error("You are not a member of this trip's chat");
+    });
+
+    newSocket.on("trip-access-revoked", () => {
+      toast.error("You are no longer a member of this trip's chat");
+    });
+
+    // The server dropped events this client was too slow to receive; refetch instead
+    newSocket.on("resync", () => {
+      queryClient.invalidateQueries({ queryKey: ["trip-messages", tripId] });
+    });
+
     newSocket.on("new-message", (newMessage: TripMessage) => {
       console.log("Received new message via Socket.IO:", newMessage);
       queryClient.setQueryData(
@@ -166,6 +233,16 @@ const TripChatPage: React.FC = () => {
       );
     });
 
+    // The server may coalesce a burst into one frame; replay each event through its usual handler
+    newSocket.on(
+      "events-batch",
+      (events: { event: string; data: unknown }[]) => {
+        events.forEach(({ event, data }) =>
+          newSocket.listeners(event).forEach((listener) => listener(data))
+        );
+      }
+    );
+
     setSocket(newSocket);
 
     return () => {
@@ -173,10 +250,10 @@ const TripChatPage: React.FC = () => {
     };
   }, [tripId, user, queryClient]);
 
-  // Auto-scroll to bottom
+  // Auto-scroll to bottom when a newer message arrives, not when older pages are prepended
   useEffect(() => {
     messagesEndRef.current?.scrollIntoView({ behavior: "smooth" });
-  }, [messages]);
+  }, [latestMessageId]);
 
   // Typing indicator
   useEffect(() => {
@@ -337,6 +414,17 @@ const TripChatPage: React.FC = () => {
 
       {/* Messages */}
       <div className="flex-1 overflow-y-auto px-6 py-4 space-y-4">
+        {messages.length > 0 && hasOlder && (
+          <div className="flex justify-center">
+            <button
+              onClick={loadOlderMessages}
+              disabled={loadingOlder}
+              className="text-sm text-primary-600 hover:text-primary-700 disabled:text-gray-400"
+            >
+              {loadingOlder ? "Loading..." : "Load older messages"}
+            </button>
+          </div>
+        )}
         {Object.entries(messageGroups).map(([date, dateMessages]) => (
           <div key={date}>
             {/* Date Separator */}